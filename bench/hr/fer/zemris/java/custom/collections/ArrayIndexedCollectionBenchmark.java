@@ -0,0 +1,44 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * A JMH benchmark of the {@linkplain ArrayIndexedCollection}.
+ *
+ * @author Mario Bobic
+ * @see IndexedCollectionBenchmark
+ */
+public class ArrayIndexedCollectionBenchmark extends IndexedCollectionBenchmark {
+
+    /** The benchmarked collection. */
+    private final ArrayIndexedCollection col = new ArrayIndexedCollection();
+
+    @Override
+    protected Collection newCollection() {
+        return new ArrayIndexedCollection();
+    }
+
+    @Override
+    protected Collection collection() {
+        return col;
+    }
+
+    @Override
+    protected Object get(int index) {
+        return col.get(index);
+    }
+
+    @Override
+    protected void insert(Object value, int position) {
+        col.insert(value, position);
+    }
+
+    @Override
+    protected int indexOf(Object value) {
+        return col.indexOf(value);
+    }
+
+    @Override
+    protected void remove(int index) {
+        col.remove(index);
+    }
+
+}
@@ -0,0 +1,135 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark of the bulk operations of the
+ * {@linkplain ArrayIndexedCollection}, each compared to doing the same one
+ * element at a time:
+ * <ul>
+ * <li><tt>insertAll</tt> inserts <tt>count</tt> elements in the middle with
+ * {@link ArrayIndexedCollection#insertAll(Collection, int) insertAll} and
+ * removes them with {@link ArrayIndexedCollection#removeRange(int, int)
+ * removeRange}, while <tt>insertEach</tt> inserts and removes them one by
+ * one,
+ * <li><tt>addAll</tt> adds all elements of the collection to a new collection
+ * with {@link ArrayIndexedCollection#addAll(Collection) addAll}, while
+ * <tt>addEach</tt> adds them one by one through a processor, as
+ * {@link Collection#addAll(Collection)} does.
+ * </ul>
+ * The collection holds <tt>size</tt> elements before and after each
+ * operation.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkOperationsBenchmark {
+
+    /** Number of elements in the benchmarked collection. */
+    @Param({"1000000"})
+    public int size;
+
+    /** Number of elements inserted and removed at once. */
+    @Param({"10", "1000"})
+    public int count;
+
+    /** The benchmarked collection. */
+    private ArrayIndexedCollection col;
+    /** Elements inserted into the middle of the collection. */
+    private ArrayIndexedCollection inserted;
+
+    /**
+     * Fills the benchmarked collection and the inserted elements.
+     */
+    @Setup
+    public void setUp() {
+        col = new ArrayIndexedCollection(size + count);
+        for (int i = 0; i < size; i++) {
+            col.add(Integer.valueOf(i));
+        }
+
+        inserted = new ArrayIndexedCollection(count);
+        for (int i = 0; i < count; i++) {
+            inserted.add(Integer.valueOf(-i));
+        }
+    }
+
+    /**
+     * Inserts <tt>count</tt> elements in the middle and removes them, as
+     * ranges.
+     *
+     * @return the collection
+     */
+    @Benchmark
+    public ArrayIndexedCollection insertAll() {
+        int position = size/2;
+        col.insertAll(inserted, position);
+        col.removeRange(position, position + count);
+        return col;
+    }
+
+    /**
+     * Inserts <tt>count</tt> elements in the middle and removes them, one by
+     * one.
+     *
+     * @return the collection
+     */
+    @Benchmark
+    public ArrayIndexedCollection insertEach() {
+        int position = size/2;
+        for (int i = 0; i < count; i++) {
+            col.insert(inserted.get(i), position + i);
+        }
+        for (int i = 0; i < count; i++) {
+            col.remove(position);
+        }
+        return col;
+    }
+
+    /**
+     * Adds all elements of the collection to a new collection at once.
+     *
+     * @return the new collection
+     */
+    @Benchmark
+    public ArrayIndexedCollection addAll() {
+        ArrayIndexedCollection copy = new ArrayIndexedCollection();
+        copy.addAll(col);
+        return copy;
+    }
+
+    /**
+     * Adds all elements of the collection to a new collection one by one.
+     *
+     * @return the new collection
+     */
+    @Benchmark
+    public ArrayIndexedCollection addEach() {
+        final ArrayIndexedCollection copy = new ArrayIndexedCollection();
+        col.forEach(new Processor() {
+            @Override
+            public void process(Object value) {
+                copy.add(value);
+            }
+        });
+        return copy;
+    }
+
+}
@@ -0,0 +1,41 @@
+package hr.fer.zemris.java.custom.collections;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all of the collection benchmarks with the GC profiler, which reports the
+ * allocation rate next to the throughput of each benchmark.
+ * <p>
+ * The benchmarks are in the <tt>bench</tt> source folder, which has to be
+ * compiled together with the <tt>src</tt> folder, the JMH core library and the
+ * JMH annotation processor on the classpath. The optional program arguments are
+ * the sizes to be benchmarked, for example <tt>10 1000</tt>; all sizes from
+ * <tt>10</tt> to <tt>10^7</tt> are benchmarked by default.
+ *
+ * @author Mario Bobic
+ */
+public class CollectionsBenchmarkRunner {
+
+    /**
+     * Program entry point.
+     *
+     * @param args sizes to be benchmarked, optional
+     * @throws RunnerException if the benchmarks fail to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(IndexedCollectionBenchmark.class.getPackage().getName() + "\\..*Benchmark")
+                .addProfiler(GCProfiler.class);
+        if (args.length > 0) {
+            builder.param("size", args);
+        }
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+
+}
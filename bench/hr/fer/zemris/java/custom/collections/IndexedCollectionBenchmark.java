@@ -0,0 +1,262 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A base JMH benchmark of the indexed collections. Both the
+ * {@linkplain ArrayIndexedCollection} and the
+ * {@linkplain LinkedListIndexedCollection} provide the same indexed methods
+ * without sharing a type for them, so the subclasses of this benchmark
+ * provide the collection and delegate the indexed methods to it.
+ * <p>
+ * Each benchmark is measured on a collection that holds <tt>size</tt>
+ * elements. Benchmarks that modify the collection undo their modification in
+ * the same operation, so the size of the collection stays the same during the
+ * whole trial:
+ * <ul>
+ * <li><tt>insertHead</tt>, <tt>insertMiddle</tt> and <tt>insertTail</tt>
+ * insert an element at the first, the middle or the last index and remove it,
+ * <li><tt>removeObject</tt> removes the element from the middle of the
+ * collection by its value and inserts it back.
+ * </ul>
+ * The <tt>getSequential</tt> and <tt>getRandom</tt> benchmarks get a single
+ * element per operation, walking the collection from the first to the last
+ * index or at pseudo-random indexes generated with a fixed seed.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public abstract class IndexedCollectionBenchmark {
+
+    /** Number of pregenerated random indexes. Must be a power of two. */
+    private static final int RANDOM_INDEXES = 1024;
+
+    /** Number of elements in the benchmarked collection. */
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    /** Elements of the benchmarked collection. */
+    private Object[] values;
+    /** Pseudo-random indexes of the benchmarked collection. */
+    private int[] randomIndexes;
+    /** Element which is not in the benchmarked collection. */
+    private Object missing;
+    /** Index of the next element to get in order. */
+    private int cursor;
+    /** Index of the next random index. */
+    private int randomCursor;
+
+    /**
+     * Returns a new empty collection of the benchmarked type.
+     *
+     * @return a new empty collection
+     */
+    protected abstract Collection newCollection();
+
+    /**
+     * Returns the benchmarked collection filled with <tt>size</tt> elements.
+     *
+     * @return the benchmarked collection
+     */
+    protected abstract Collection collection();
+
+    /**
+     * Returns the element of the benchmarked collection at the given index.
+     *
+     * @param index index of the element
+     * @return the element at the given index
+     */
+    protected abstract Object get(int index);
+
+    /**
+     * Inserts the given value into the benchmarked collection.
+     *
+     * @param value value to be inserted
+     * @param position position of the value
+     */
+    protected abstract void insert(Object value, int position);
+
+    /**
+     * Returns the index of the given value in the benchmarked collection.
+     *
+     * @param value value to be searched for
+     * @return the index of the value, or -1
+     */
+    protected abstract int indexOf(Object value);
+
+    /**
+     * Removes the element at the given index from the benchmarked collection.
+     *
+     * @param index index of the element
+     */
+    protected abstract void remove(int index);
+
+    /**
+     * Generates the elements and the random indexes and fills the benchmarked
+     * collection.
+     */
+    @Setup
+    public void setUp() {
+        values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Integer.valueOf(i);
+        }
+        missing = Integer.valueOf(-1);
+
+        Random random = new Random(42);
+        randomIndexes = new int[RANDOM_INDEXES];
+        for (int i = 0; i < RANDOM_INDEXES; i++) {
+            randomIndexes[i] = random.nextInt(size);
+        }
+
+        Collection col = collection();
+        col.clear();
+        for (Object value : values) {
+            col.add(value);
+        }
+    }
+
+    /**
+     * Adds <tt>size</tt> elements to a new collection.
+     *
+     * @return the new collection
+     */
+    @Benchmark
+    public Collection add() {
+        Collection col = newCollection();
+        for (Object value : values) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    /**
+     * Inserts an element at the head and removes it.
+     */
+    @Benchmark
+    public void insertHead() {
+        insert(missing, 0);
+        remove(0);
+    }
+
+    /**
+     * Inserts an element in the middle and removes it.
+     */
+    @Benchmark
+    public void insertMiddle() {
+        insert(missing, size/2);
+        remove(size/2);
+    }
+
+    /**
+     * Inserts an element before the last element and removes it.
+     */
+    @Benchmark
+    public void insertTail() {
+        insert(missing, size-1);
+        remove(size-1);
+    }
+
+    /**
+     * Gets the next element in order.
+     *
+     * @return the next element
+     */
+    @Benchmark
+    public Object getSequential() {
+        Object value = get(cursor);
+        cursor = cursor+1 == size ? 0 : cursor+1;
+        return value;
+    }
+
+    /**
+     * Gets an element at a random index.
+     *
+     * @return the element at a random index
+     */
+    @Benchmark
+    public Object getRandom() {
+        randomCursor = (randomCursor+1) & (RANDOM_INDEXES-1);
+        return get(randomIndexes[randomCursor]);
+    }
+
+    /**
+     * Searches for the last element.
+     *
+     * @return the index of the last element
+     */
+    @Benchmark
+    public int indexOfLast() {
+        return indexOf(values[size-1]);
+    }
+
+    /**
+     * Searches for an element that is not in the collection.
+     *
+     * @return false
+     */
+    @Benchmark
+    public boolean containsMissing() {
+        return collection().contains(missing);
+    }
+
+    /**
+     * Removes the middle element by its value and inserts it back.
+     *
+     * @return true
+     */
+    @Benchmark
+    public boolean removeObject() {
+        Object value = values[size/2];
+        boolean removed = collection().remove(value);
+        insert(value, size/2);
+        return removed;
+    }
+
+    /**
+     * Adds all elements of the collection to a new collection.
+     *
+     * @return the new collection
+     */
+    @Benchmark
+    public Collection addAll() {
+        Collection col = newCollection();
+        col.addAll(collection());
+        return col;
+    }
+
+    /**
+     * Processes all elements of the collection.
+     *
+     * @param bh blackhole consuming the elements
+     */
+    @Benchmark
+    public void forEach(final Blackhole bh) {
+        collection().forEach(new Processor() {
+            @Override
+            public void process(Object value) {
+                bh.consume(value);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,83 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark of the {@linkplain ObjectStack}. The <tt>pushPop</tt>
+ * benchmark pushes and pops a single element on a stack that holds
+ * <tt>size</tt> elements, while the <tt>fillAndDrain</tt> benchmark pushes
+ * <tt>size</tt> elements onto a new stack and pops all of them.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ObjectStackBenchmark {
+
+    /** Number of elements on the benchmarked stack. */
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    /** The benchmarked stack. */
+    private ObjectStack stack;
+    /** Element pushed onto the stack. */
+    private Object value;
+
+    /**
+     * Fills the benchmarked stack.
+     */
+    @Setup
+    public void setUp() {
+        value = Integer.valueOf(42);
+        stack = new ObjectStack();
+        for (int i = 0; i < size; i++) {
+            stack.push(value);
+        }
+    }
+
+    /**
+     * Pushes an element and pops it.
+     *
+     * @return the popped element
+     */
+    @Benchmark
+    public Object pushPop() {
+        stack.push(value);
+        return stack.pop();
+    }
+
+    /**
+     * Pushes <tt>size</tt> elements onto a new stack and pops all of them.
+     *
+     * @return the last popped element
+     */
+    @Benchmark
+    public Object fillAndDrain() {
+        ObjectStack stack = new ObjectStack();
+        for (int i = 0; i < size; i++) {
+            stack.push(value);
+        }
+        Object last = null;
+        while (!stack.isEmpty()) {
+            last = stack.pop();
+        }
+        return last;
+    }
+
+}
@@ -0,0 +1,217 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark of processing the elements of the
+ * {@linkplain ArrayIndexedCollection} and the
+ * {@linkplain LinkedListIndexedCollection} with a CPU-heavy processor, with
+ * {@link Collection#forEach(Processor) forEach}, with a
+ * {@link Collection#parallelStream() parallel stream}, and with
+ * <tt>parallelForEach</tt> and <tt>parallelReduce</tt> on a pool with 1 to 8
+ * threads, which shows how the parallel methods scale across cores. The
+ * parallel streams over the collections run on the common pool.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParallelForEachBenchmark {
+
+    /** Number of rounds of work done for each element. */
+    private static final int ROUNDS = 256;
+
+    /** Adds the hash of an element to a partial sum. */
+    private static final Combiner HASH_SUM = new Combiner() {
+        @Override
+        public Object combine(Object first, Object second) {
+            return Long.valueOf((Long) first + hash(second));
+        }
+    };
+
+    /** Maps an element to its hash. */
+    private static final ToLongFunction<Object> HASH = new ToLongFunction<Object>() {
+        @Override
+        public long applyAsLong(Object value) {
+            return hash(value);
+        }
+    };
+
+    /** Adds two partial sums. */
+    private static final Combiner SUM = new Combiner() {
+        @Override
+        public Object combine(Object first, Object second) {
+            return Long.valueOf((Long) first + (Long) second);
+        }
+    };
+
+    /** Number of elements in the benchmarked collections. */
+    @Param({"1000000"})
+    public int size;
+
+    /** Number of threads of the pool. */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /** The benchmarked array collection. */
+    private ArrayIndexedCollection array;
+    /** The benchmarked linked list. */
+    private LinkedListIndexedCollection list;
+    /** The pool. */
+    private ForkJoinPool pool;
+
+    /**
+     * Fills the benchmarked collections and creates the pool.
+     */
+    @Setup
+    public void setUp() {
+        array = new ArrayIndexedCollection(size);
+        list = new LinkedListIndexedCollection();
+        for (int i = 0; i < size; i++) {
+            array.add(Integer.valueOf(i));
+            list.add(Integer.valueOf(i));
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Processes the elements of the array collection in the calling thread.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long arrayForEach() {
+        HashSumProcessor processor = new HashSumProcessor();
+        array.forEach(processor);
+        return processor.sum.get();
+    }
+
+    /**
+     * Processes the elements of the array collection in parallel on the pool.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long arrayParallelForEach() {
+        HashSumProcessor processor = new HashSumProcessor();
+        array.parallelForEach(processor, pool, 1024);
+        return processor.sum.get();
+    }
+
+    /**
+     * Reduces the elements of the array collection in parallel on the pool.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public Object arrayParallelReduce() {
+        return array.parallelReduce(Long.valueOf(0), HASH_SUM, SUM, pool, 1024);
+    }
+
+    /**
+     * Sums the hashes of the elements of the array collection with a parallel
+     * stream on the common pool.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long arrayParallelStream() {
+        return array.parallelStream().mapToLong(HASH).sum();
+    }
+
+    /**
+     * Processes the elements of the linked list in the calling thread.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long listForEach() {
+        HashSumProcessor processor = new HashSumProcessor();
+        list.forEach(processor);
+        return processor.sum.get();
+    }
+
+    /**
+     * Processes the elements of the linked list in parallel on the pool.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long listParallelForEach() {
+        HashSumProcessor processor = new HashSumProcessor();
+        list.parallelForEach(processor, pool, 1024);
+        return processor.sum.get();
+    }
+
+    /**
+     * Sums the hashes of the elements of the linked list with a parallel
+     * stream on the common pool.
+     *
+     * @return the sum of the hashes of the elements
+     */
+    @Benchmark
+    public long listParallelStream() {
+        return list.parallelStream().mapToLong(HASH).sum();
+    }
+
+    /**
+     * Returns a hash of the given element, computed in {@link #ROUNDS}
+     * rounds.
+     *
+     * @param value the element
+     * @return a hash of the element
+     */
+    private static long hash(Object value) {
+        long x = ((Integer) value).longValue();
+        for (int i = 0; i < ROUNDS; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+
+    /**
+     * A processor which adds the hashes of the elements to a shared sum.
+     *
+     * @author Mario Bobic
+     */
+    private static class HashSumProcessor extends Processor {
+        /** Sum of the hashes of the processed elements. */
+        private final AtomicLong sum = new AtomicLong();
+
+        @Override
+        public void process(Object value) {
+            sum.addAndGet(hash(value));
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package hr.fer.zemris.java.custom.scripting.lexer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.custom.scripting.elems.Element;
+import hr.fer.zemris.java.custom.scripting.elems.ElementConstantDouble;
+import hr.fer.zemris.java.custom.scripting.elems.ElementConstantInteger;
+import hr.fer.zemris.java.custom.scripting.elems.ElementFunction;
+import hr.fer.zemris.java.custom.scripting.elems.ElementOperator;
+import hr.fer.zemris.java.custom.scripting.elems.ElementVariable;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+
+/**
+ * A JMH benchmark that compares the character class element classifier of the
+ * {@linkplain SSLexer} with the {@linkplain LegacyElementClassifier legacy
+ * exception-based classifier} on echo-heavy documents.
+ * <p>
+ * The document consists of <tt>tags</tt> ECHO tags, each of them containing
+ * functions, operators, variables, strings, integers and doubles, which is the
+ * worst case for the legacy classifier since functions and operators are only
+ * recognized after several exceptions have been thrown and caught.
+ * <p>
+ * Both classifier benchmarks do the same work: they classify the same words
+ * into an {@linkplain Element} each, the way the parser creates elements from
+ * the lexer tokens, and hand every element to the same blackhole. String
+ * literals are scanned character by character by the lexer itself and never
+ * reach the classifier, so they are left out of the words of both
+ * benchmarks. The remaining benchmarks measure the whole document, tokenized
+ * to <tt>EOF</tt> and parsed.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ElementClassificationBenchmark {
+
+    /** Elements of a single ECHO tag body. */
+    private static final String[] ECHO_ELEMENTS = {
+        "@sin", "i", "*", "3.14", "@decfmt", "\"0.000\"", "-", "42", "+", "@dup"
+    };
+
+    /** Number of ECHO tags in the benchmarked document. */
+    @Param({"100", "10000"})
+    public int tags;
+
+    /** Benchmarked document. */
+    private String document;
+    /** Elements of all ECHO tags in the benchmarked document, except strings. */
+    private String[] words;
+
+    /**
+     * Generates the echo-heavy document and its elements.
+     */
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        int classified = 0;
+        for (String element : ECHO_ELEMENTS) {
+            if (element.charAt(0) != '"') {
+                classified++;
+            }
+        }
+        words = new String[tags * classified];
+
+        int index = 0;
+        for (int i = 0; i < tags; i++) {
+            sb.append("Line ").append(i).append(": {$=");
+            for (String element : ECHO_ELEMENTS) {
+                sb.append(' ').append(element);
+                if (element.charAt(0) != '"') {
+                    words[index++] = element;
+                }
+            }
+            sb.append(" $}\n");
+        }
+
+        document = sb.toString();
+    }
+
+    /**
+     * Classifies all elements using the character class classifier and
+     * creates an element from each token.
+     *
+     * @param bh blackhole consuming the elements
+     */
+    @Benchmark
+    public void charClassClassifier(Blackhole bh) {
+        for (String word : words) {
+            bh.consume(createElement(SSLexer.getElement(word)));
+        }
+    }
+
+    /**
+     * Classifies all elements using the legacy exception-based classifier.
+     *
+     * @param bh blackhole consuming the results
+     */
+    @Benchmark
+    public void legacyClassifier(Blackhole bh) {
+        for (String word : words) {
+            bh.consume(LegacyElementClassifier.getEchoElementFrom(word));
+        }
+    }
+
+    /**
+     * Tokenizes the whole echo-heavy document to <tt>EOF</tt>.
+     *
+     * @param bh blackhole consuming the tokens
+     */
+    @Benchmark
+    public void tokenizeDocument(Blackhole bh) {
+        SSLexer lexer = new SSLexer(document);
+        SSToken token;
+        do {
+            token = lexer.nextToken();
+            bh.consume(token);
+        } while (token.getType() != SSTokenType.EOF);
+    }
+
+    /**
+     * Parses the whole echo-heavy document.
+     *
+     * @return the parsed document node
+     */
+    @Benchmark
+    public Object parseDocument() {
+        return new SmartScriptParser(document).getDocumentNode();
+    }
+
+    /**
+     * Returns an element created from the given tag body element token, as
+     * the parser creates it.
+     *
+     * @param token token of a tag body element
+     * @return an element created from the given token
+     */
+    private static Element createElement(SSToken token) {
+        Object value = token.getValue();
+
+        switch (token.getType()) {
+        case VARIABLE:
+            return new ElementVariable((String) value);
+        case FUNCTION:
+            return new ElementFunction((String) value);
+        case CONSTANT_INTEGER:
+            return new ElementConstantInteger((Integer) value);
+        case CONSTANT_DOUBLE:
+            return new ElementConstantDouble((Double) value);
+        case OPERATOR:
+            return new ElementOperator((String) value);
+        default:
+            throw new IllegalStateException("Unexpected token: " + token.getType());
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package hr.fer.zemris.java.custom.scripting.lexer;
+
+import java.util.regex.Pattern;
+
+import hr.fer.zemris.java.custom.scripting.elems.*;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParserException;
+import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAndMethods.*;
+
+/**
+ * A copy of the tag body element classification previously done by the
+ * {@linkplain hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser
+ * SmartScriptParser}, kept only as a baseline for the
+ * {@linkplain ElementClassificationBenchmark}.
+ * <p>
+ * Each element is first tried as a FOR loop element and, if that fails with an
+ * exception, as a function or an operator. Numbers are validated by parsing
+ * them and catching the {@linkplain NumberFormatException}, so every function
+ * and operator costs several thrown and caught exceptions.
+ *
+ * @author Mario Bobic
+ */
+class LegacyElementClassifier {
+
+    /** Pattern for compiling variable and function names. */
+    private static final Pattern VALID_VARNAME =
+            Pattern.compile("[a-zA-Z]+[_0-9a-zA-Z]*");
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private LegacyElementClassifier() {
+    }
+
+    /**
+     * Returns an appropriate element from the given <tt>candidate</tt> adjusted
+     * for the ECHO legal body elements.
+     *
+     * @param candidate candidate to be retrieved as an element
+     * @return an appropriate element from the given <tt>candidate</tt>
+     * @throws SmartScriptParserException if the candidate is not an element
+     */
+    static Element getEchoElementFrom(String candidate) {
+        try {
+            return getForElementFrom(candidate);
+        } catch (SmartScriptParserException e) {
+            if (isFunctionNameValid(candidate)) {
+                return new ElementFunction(candidate);
+            } else if (isOperatorValid(candidate)) {
+                return new ElementOperator(candidate);
+            } else {
+                throw new SmartScriptParserException("Invalid element: " + candidate);
+            }
+        }
+    }
+
+    /**
+     * Returns an appropriate element from the given <tt>candidate</tt> adjusted
+     * for the FOR loop legal body elements.
+     *
+     * @param candidate candidate to be retrieved as an element
+     * @return an appropriate element from the given <tt>candidate</tt>
+     * @throws SmartScriptParserException if the candidate is not an element
+     */
+    private static Element getForElementFrom(String candidate) {
+        if (isVariableNameValid(candidate)) {
+            return new ElementVariable(candidate);
+        } else if (isStringValid(candidate)) {
+            return new ElementString(candidate);
+        } else if (isNumberValid(candidate)) {
+            return parseNumberElement(candidate);
+        } else {
+            throw new SmartScriptParserException("Invalid element: " + candidate);
+        }
+    }
+
+    /**
+     * Parses the given string as an integer or, if that fails, as a double.
+     *
+     * @param s string to be parsed
+     * @return an integer or a double element
+     * @throws SmartScriptParserException if the string is not a number
+     */
+    private static Element parseNumberElement(String s) {
+        try {
+            int value = Integer.parseInt(s);
+            return new ElementConstantInteger(value);
+        } catch (NumberFormatException e1) {
+            try {
+                double value = Double.parseDouble(s);
+                return new ElementConstantDouble(value);
+            } catch (NumberFormatException e2) {
+                throw new SmartScriptParserException("Cannot parse number: " + s);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given <tt>name</tt> is a valid variable name.
+     *
+     * @param name variable name to be validated
+     * @return true if <tt>name</tt> is a valid variable name
+     */
+    private static boolean isVariableNameValid(String name) {
+        return VALID_VARNAME.matcher(name).matches();
+    }
+
+    /**
+     * Returns true if the given <tt>name</tt> is a valid function name.
+     *
+     * @param name function name to be validated
+     * @return true if <tt>name</tt> is a valid function name
+     */
+    private static boolean isFunctionNameValid(String name) {
+        return name.startsWith(FUNCTION_MARK)
+                && isVariableNameValid(name.substring(1));
+    }
+
+    /**
+     * Returns true if the given <tt>string</tt> is bounded with quotation
+     * marks and contains only valid escape sequences.
+     *
+     * @param string string to be validated
+     * @return true if <tt>string</tt> is a valid string
+     * @throws SmartScriptParserException if an escape sequence is invalid
+     */
+    private static boolean isStringValid(String string) {
+        if (!(string.startsWith(QUOT_MARK) && string.endsWith(QUOT_MARK))) {
+            return false;
+        }
+
+        String withoutQuots = string.substring(1, string.length()-1);
+        char[] data = withoutQuots.toCharArray();
+
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == ESCAPE_CHAR) {
+                if (i == data.length-1) {
+                    throw new SmartScriptParserException(
+                            "Invalid string escape ending.");
+                } else {
+                    char nextChar = data[i+1];
+                    if ( !(nextChar == ESCAPE_CHAR
+                        || nextChar == QUOT_MARK.charAt(0)
+                        || nextChar == 'n'
+                        || nextChar == 'r'
+                        || nextChar == 't'
+                    )) {
+                        throw new SmartScriptParserException(
+                                "Invalid escape sequence: " + nextChar);
+                    } else {
+                        i++;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the given <tt>number</tt> can be parsed either into an
+     * integer or a double number.
+     *
+     * @param number number to be validated
+     * @return true if <tt>number</tt> is a valid integer or double
+     */
+    private static boolean isNumberValid(String number) {
+        try {
+            parseNumberElement(number);
+            return true;
+        } catch (SmartScriptParserException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the given <tt>symbol</tt> is a valid operator symbol.
+     *
+     * @param symbol operator symbol to be validated
+     * @return true if <tt>symbol</tt> is a valid operator symbol
+     */
+    private static boolean isOperatorValid(String symbol) {
+        return symbol.length() == 1 && OPERATORS.contains(symbol);
+    }
+
+}
@@ -0,0 +1,208 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hr.fer.zemris.java.custom.scripting.lexer.SSLexer;
+import hr.fer.zemris.java.custom.scripting.lexer.SSTokenType;
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.hw3.SmartScriptTester;
+
+/**
+ * A JMH benchmark of the template toolchain: lexing, parsing, converting the
+ * parsed document back to text and the full round-trip done by the
+ * {@linkplain SmartScriptTester}.
+ * <p>
+ * The benchmarked documents are the example documents <tt>doc1.txt</tt> to
+ * <tt>doc4.txt</tt>, read from the directory given by the
+ * <tt>smartscript.docs</tt> system property or from the working directory,
+ * and synthetic documents of 1 KB, 1 MB and 100 MB made by concatenating the
+ * example documents until the requested size is reached.
+ * <p>
+ * Besides the average time per document, the <tt>lex</tt> benchmark counts the
+ * generated tokens, so the throughput of the {@linkplain SSLexer#nextToken()}
+ * method is reported in tokens per second.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TemplateToolchainBenchmark {
+
+    /** Prefix of the synthetic document names, followed by the size. */
+    private static final String SYNTHETIC = "synthetic-";
+    /** Example documents the synthetic documents are made of. */
+    private static final String[] EXAMPLES = {
+        "doc1.txt", "doc2.txt", "doc3.txt", "doc4.txt"
+    };
+
+    /** Name of the example document file or of the synthetic document. */
+    @Param({
+        "doc1.txt", "doc2.txt", "doc3.txt", "doc4.txt",
+        "synthetic-1KB", "synthetic-1MB", "synthetic-100MB"
+    })
+    public String document;
+
+    /** Text of the benchmarked document. */
+    private String text;
+    /** The benchmarked document, parsed. */
+    private DocumentNode node;
+
+    /**
+     * Counter of the tokens generated by the lexer, reported by JMH as
+     * tokens per second.
+     *
+     * @author Mario Bobic
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+        /** Number of generated tokens. */
+        public long tokens;
+
+        /**
+         * Resets the counter before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    /**
+     * Reads or generates the benchmarked document and parses it.
+     *
+     * @throws IOException if an example document can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        if (document.startsWith(SYNTHETIC)) {
+            text = synthetic(parseSize(document.substring(SYNTHETIC.length())));
+        } else {
+            text = read(document);
+        }
+        node = new SmartScriptParser(text).getDocumentNode();
+    }
+
+    /**
+     * Lexes the document, calling the {@linkplain SSLexer#nextToken()} method
+     * until the end of the document.
+     *
+     * @param counter counter of the generated tokens
+     * @return the number of generated tokens
+     */
+    @Benchmark
+    public long lex(TokenCounter counter) {
+        SSLexer lexer = new SSLexer(text);
+        long tokens = 1;
+        while (lexer.nextToken().getType() != SSTokenType.EOF) {
+            tokens++;
+        }
+        counter.tokens += tokens;
+        return tokens;
+    }
+
+    /**
+     * Parses the document.
+     *
+     * @return the parsed document
+     */
+    @Benchmark
+    public DocumentNode parse() {
+        return new SmartScriptParser(text).getDocumentNode();
+    }
+
+    /**
+     * Converts the parsed document back to text.
+     *
+     * @return the text of the parsed document
+     */
+    @Benchmark
+    public String documentToString() {
+        return node.toString();
+    }
+
+    /**
+     * Parses the document, converts it back to text, escapes it, parses it
+     * again and compares the two texts, as done by the
+     * {@linkplain SmartScriptTester}.
+     *
+     * @return true if the round-trip reproduced the document
+     */
+    @Benchmark
+    public boolean roundTrip() {
+        DocumentNode document = new SmartScriptParser(text).getDocumentNode();
+        String body = SmartScriptTester.createOriginalDocumentBody(document);
+
+        String withEscapes = body.replace("\\", "\\\\").replace("{", "\\{");
+        DocumentNode document2 = new SmartScriptParser(withEscapes).getDocumentNode();
+        return body.equals(SmartScriptTester.createOriginalDocumentBody(document2));
+    }
+
+    /**
+     * Returns a synthetic document of at least the given <tt>size</tt> in
+     * characters, made by concatenating the example documents.
+     *
+     * @param size minimal size of the document
+     * @return a synthetic document
+     * @throws IOException if an example document can not be read
+     */
+    private static String synthetic(long size) throws IOException {
+        String[] examples = new String[EXAMPLES.length];
+        for (int i = 0; i < examples.length; i++) {
+            examples[i] = read(EXAMPLES[i]);
+        }
+
+        StringBuilder sb = new StringBuilder((int) size + 1024);
+        for (int i = 0; sb.length() < size; i = (i+1) % examples.length) {
+            sb.append(examples[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the example document with the given file <tt>name</tt>.
+     *
+     * @param name file name of the document
+     * @return text of the document
+     * @throws IOException if the document can not be read
+     */
+    private static String read(String name) throws IOException {
+        Path path = Paths.get(System.getProperty("smartscript.docs", "."), name);
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a size given as a number followed by <tt>KB</tt> or <tt>MB</tt>.
+     *
+     * @param size size to be parsed
+     * @return the size in bytes
+     */
+    private static long parseSize(String size) {
+        long unit = size.endsWith("MB") ? 1 << 20 : 1 << 10;
+        return Long.parseLong(size.substring(0, size.length()-2)) * unit;
+    }
+
+}
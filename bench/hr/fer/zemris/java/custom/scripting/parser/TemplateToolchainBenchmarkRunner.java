@@ -0,0 +1,46 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@linkplain TemplateToolchainBenchmark} and writes the results in
+ * the JSON format, so the results of different versions can be compared.
+ * <p>
+ * The optional first program argument is the path of the JSON file, which is
+ * <tt>template-benchmark.json</tt> by default. The optional other arguments
+ * are the documents to be benchmarked, for example <tt>doc1.txt
+ * synthetic-1MB</tt>; all documents are benchmarked by default.
+ *
+ * @author Mario Bobic
+ */
+public class TemplateToolchainBenchmarkRunner {
+
+    /** Default path of the JSON file with the results. */
+    private static final String DEFAULT_RESULT = "template-benchmark.json";
+
+    /**
+     * Program entry point.
+     *
+     * @param args path of the result file and documents, optional
+     * @throws RunnerException if the benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(TemplateToolchainBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : DEFAULT_RESULT);
+        if (args.length > 1) {
+            String[] documents = new String[args.length-1];
+            System.arraycopy(args, 1, documents, 0, documents.length);
+            builder.param("document", documents);
+        }
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+
+}
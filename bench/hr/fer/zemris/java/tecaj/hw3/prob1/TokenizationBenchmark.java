@@ -0,0 +1,137 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark of tokenizing a whole text with the {@linkplain Lexer}: one
+ * token at a time, into a {@linkplain TokenBatch} and into a batch in parallel
+ * on a pool with 1 to 8 threads, which shows how the parallel tokenization
+ * scales across cores.
+ * <p>
+ * The text is generated from words, words with escape sequences, numbers,
+ * symbols and extended sections, and is 1 MB or 100 MB long.
+ *
+ * @author Mario Bobic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TokenizationBenchmark {
+
+    /** Parts the text is made of. */
+    private static final String[] PARTS = {
+        "word", "ab\\1\\\\cd", "12345", "-", "?", "x1y2", "# x-1 \\9 42 #"
+    };
+
+    /** Length of the text in characters. */
+    @Param({"1048576", "104857600"})
+    public int length;
+
+    /** The tokenized text. */
+    private String text;
+
+    /**
+     * A pool with the given number of threads.
+     *
+     * @author Mario Bobic
+     */
+    @State(Scope.Benchmark)
+    public static class PoolState {
+        /** Number of threads of the pool. */
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        /** The pool. */
+        private ForkJoinPool pool;
+
+        /**
+         * Creates the pool.
+         */
+        @Setup
+        public void setUp() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        /**
+         * Shuts the pool down.
+         */
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates the text.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append(PARTS[random.nextInt(PARTS.length)]);
+            sb.append(random.nextInt(8) == 0 ? '\n' : ' ');
+        }
+        text = sb.toString();
+    }
+
+    /**
+     * Tokenizes the text one token at a time with {@link Lexer#nextToken()}.
+     *
+     * @return the number of tokens
+     */
+    @Benchmark
+    public long nextToken() {
+        Lexer lexer = new Lexer(text);
+        long tokens = 0;
+        boolean extended = false;
+        for (Token token = lexer.nextToken(); token.getType() != TokenType.EOF; token = lexer.nextToken()) {
+            if (token.getType() == TokenType.SYMBOL && token.getValue().equals('#')) {
+                extended = !extended;
+                lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+            }
+            tokens++;
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenizes the text into a batch, in the calling thread.
+     *
+     * @return the batch of tokens
+     */
+    @Benchmark
+    public TokenBatch tokenize() {
+        return TokenBatch.tokenize(text);
+    }
+
+    /**
+     * Tokenizes the text into a batch, in parallel on the pool.
+     *
+     * @param state state holding the pool
+     * @return the batch of tokens
+     */
+    @Benchmark
+    public TokenBatch tokenizeParallel(PoolState state) {
+        return TokenBatch.tokenizeParallel(text, state.pool);
+    }
+
+}
@@ -1,5 +1,12 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
 /**
  * An array indexed collection stores objects into a fixed-size array with the
  * initial capacity specified by the caller or 16 by default. If the array gets
@@ -8,6 +15,11 @@ package hr.fer.zemris.java.custom.collections;
  * <p>
  * This implementation <b>allows</b> duplicate elements and <b>does not
  * allow</b> <code>null</code> references.
+ * <p>
+ * Elements are moved with {@link System#arraycopy System.arraycopy}, and
+ * ranges of elements may be inserted or removed at once with
+ * {@link #insertAll(Collection, int)} and {@link #removeRange(int, int)},
+ * which move the subsequent elements only once for the whole range.
  *
  * @author Mario Bobic
  */
@@ -22,6 +34,8 @@ public class ArrayIndexedCollection extends Collection {
     private int capacity;
     /** The array into which the elements of this collection are stored. */
     private Object[] elements;
+    /** Number of structural modifications of this collection. */
+    private long modificationCount;
 
     /**
      * Constructs an instance of ArrayIndexedCollection with the default
@@ -95,9 +109,10 @@ public class ArrayIndexedCollection extends Collection {
             throw new IllegalArgumentException("Element must not be null.");
         }
 
-        ensureCapacity();
+        ensureCapacity(size + 1);
         elements[size] = value;
         size++;
+        modificationCount++;
     }
 
     /**
@@ -123,10 +138,66 @@ public class ArrayIndexedCollection extends Collection {
 
         checkIndex(position);
 
-        ensureCapacity();
+        ensureCapacity(size + 1);
         shiftRight(position);
         elements[position] = value;
         size++;
+        modificationCount++;
+    }
+
+    /**
+     * Inserts all of the elements of the given collection at the given
+     * position in this collection, in the order in which the other collection
+     * processes them. The element currently at that position (if any) and any
+     * subsequent elements are shifted to the right once, by the number of
+     * inserted elements, and the capacity is increased at most once.
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the
+     * position is outside of those boundaries, an
+     * {@linkplain IndexOutOfBoundsException} is thrown. If the other
+     * collection contains a <code>null</code> reference, this method throws
+     * the {@linkplain IllegalArgumentException} and this collection remains
+     * unchanged.
+     *
+     * @param other collection containing elements to be inserted
+     * @param position index at which the first element is to be inserted
+     * @throws IllegalArgumentException if the other collection is null or if
+     *         it contains a null reference
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    public void insertAll(Collection other, int position) {
+        if (other == null) {
+            throw new IllegalArgumentException("Collection must not be null.");
+        }
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Invalid position: " + position);
+        }
+
+        int count = other.size();
+        if (count == 0) {
+            return;
+        }
+        Object[] source = arrayOf(other);
+
+        ensureCapacity(size + count);
+        System.arraycopy(elements, position, elements, position + count, size - position);
+        System.arraycopy(source, 0, elements, position, count);
+        size += count;
+        modificationCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The capacity of this collection is increased at most once and the
+     * elements of another array indexed collection are copied in a single
+     * block.
+     *
+     * @throws IllegalArgumentException if the other collection is null or if
+     *         it contains a null reference
+     */
+    @Override
+    public void addAll(Collection other) {
+        insertAll(other, size);
     }
 
     /**
@@ -212,14 +283,81 @@ public class ArrayIndexedCollection extends Collection {
         elements[index] = null;
         shiftLeft(index);
         size--;
+        modificationCount++;
     }
 
+    /**
+     * Removes all of the elements whose index is between
+     * <code>fromIndex</code>, inclusive, and <code>toIndex</code>, exclusive.
+     * Shifts any subsequent elements to the left once, by the number of
+     * removed elements. If <code>fromIndex == toIndex</code>, this collection
+     * remains unchanged.
+     *
+     * @param fromIndex index of the first element to be removed
+     * @param toIndex index after the last element to be removed
+     * @throws IndexOutOfBoundsException if <code>fromIndex</code> or
+     *         <code>toIndex</code> is out of range <code>[0, size]</code>, or
+     *         if <code>fromIndex &gt; toIndex</code>
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid range: " + fromIndex + " to " + toIndex);
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+
+        int newSize = size - (toIndex - fromIndex);
+        System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+        /* Erase the duplicates of the shifted elements. */
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+        modificationCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The elements are tested in order and the kept elements are compacted
+     * to the front of the array in the same pass, so the complexity of this
+     * method is O(n) regardless of the number of removed elements. If the
+     * tester throws an exception, the elements removed up to then stay removed
+     * and the rest remain in this collection.
+     */
     @Override
-    public void clear() {
-        for (int i = 0; i < size; i++) {
-            elements[i] = null;
+    public boolean removeIf(Tester tester) {
+        if (tester == null) {
+            throw new IllegalArgumentException("Tester must not be null.");
         }
+
+        int oldSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < oldSize; i++) {
+                Object value = elements[i];
+                if (!tester.test(value)) {
+                    elements[kept++] = value;
+                }
+            }
+        } finally {
+            /* Keep the untested elements if the tester has thrown. */
+            System.arraycopy(elements, i, elements, kept, oldSize-i);
+            kept += oldSize-i;
+            Arrays.fill(elements, kept, oldSize, null);
+            size = kept;
+            if (kept < oldSize) {
+                modificationCount++;
+            }
+        }
+
+        return kept < oldSize;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
         size = 0;
+        modificationCount++;
     }
 
     @Override
@@ -242,19 +380,176 @@ public class ArrayIndexedCollection extends Collection {
         }
     }
 
+    /**
+     * Processes each element of this collection with the given processor in
+     * parallel, on the {@linkplain ForkJoinPool#commonPool() common pool}. The
+     * backing array is split into ranges of at most 1024 elements.
+     *
+     * @param processor the processor which processes each element
+     * @throws IllegalArgumentException if the given processor is null
+     * @throws ConcurrentModificationException if this collection is
+     *         structurally modified while the elements are processed
+     * @see #parallelForEach(Processor, ForkJoinPool, int)
+     */
+    public void parallelForEach(Processor processor) {
+        parallelForEach(processor, ForkJoinPool.commonPool(), ParallelProcessing.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Processes each element of this collection with the given processor in
+     * parallel, on the given pool. The backing array is split in halves until
+     * the ranges are no longer than the <tt>threshold</tt>, and the ranges are
+     * processed by the threads of the pool.
+     * <p>
+     * The elements are processed in no particular order and the processor may
+     * be called from several threads at once, so it must be thread-safe. This
+     * collection must not be modified while the elements are processed.
+     *
+     * @param processor the processor which processes each element
+     * @param pool pool that processes the elements
+     * @param threshold number of elements below which a range is not split
+     * @throws IllegalArgumentException if the processor or the pool is null,
+     *         or if the threshold is less than 1
+     * @throws ConcurrentModificationException if this collection is
+     *         structurally modified while the elements are processed
+     */
+    public void parallelForEach(Processor processor, ForkJoinPool pool, int threshold) {
+        long savedModificationCount = modificationCount;
+        ParallelProcessing.forEach(elements, 0, size, processor, pool, threshold);
+        if (modificationCount != savedModificationCount) {
+            throw new ConcurrentModificationException("Collection was modified.");
+        }
+    }
+
+    /**
+     * Reduces the elements of this collection to a single result in parallel,
+     * on the {@linkplain ForkJoinPool#commonPool() common pool}. The backing
+     * array is split into ranges of at most 1024 elements.
+     *
+     * @param identity the initial value of each range
+     * @param accumulator combines a partial result with an element
+     * @param combiner combines two partial results
+     * @return the result of the reduction, or the identity if this collection
+     *         is empty
+     * @throws IllegalArgumentException if a combiner is null
+     * @throws ConcurrentModificationException if this collection is
+     *         structurally modified while the elements are reduced
+     * @see #parallelReduce(Object, Combiner, Combiner, ForkJoinPool, int)
+     */
+    public Object parallelReduce(Object identity, Combiner accumulator, Combiner combiner) {
+        return parallelReduce(identity, accumulator, combiner,
+                ForkJoinPool.commonPool(), ParallelProcessing.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Reduces the elements of this collection to a single result in parallel,
+     * on the given pool. The backing array is split in halves until the ranges
+     * are no longer than the <tt>threshold</tt>. The elements of each range
+     * are accumulated into the <tt>identity</tt> in order, and the results of
+     * neighbouring ranges are combined in order, so that no shared mutable
+     * result is needed.
+     * <p>
+     * The <tt>identity</tt> must be an identity for the combiner, and both
+     * combiners must be associative and thread-safe, but need not be
+     * commutative. The identity is shared by all ranges, so the accumulator
+     * must not modify it. This collection must not be modified while the
+     * elements are reduced.
+     *
+     * @param identity the initial value of each range
+     * @param accumulator combines a partial result with an element
+     * @param combiner combines two partial results
+     * @param pool pool that reduces the elements
+     * @param threshold number of elements below which a range is not split
+     * @return the result of the reduction, or the identity if this collection
+     *         is empty
+     * @throws IllegalArgumentException if a combiner or the pool is null, or if
+     *         the threshold is less than 1
+     * @throws ConcurrentModificationException if this collection is
+     *         structurally modified while the elements are reduced
+     */
+    public Object parallelReduce(Object identity, Combiner accumulator, Combiner combiner,
+            ForkJoinPool pool, int threshold) {
+        long savedModificationCount = modificationCount;
+        Object result = ParallelProcessing.reduce(elements, 0, size,
+                identity, accumulator, combiner, pool, threshold);
+        if (modificationCount != savedModificationCount) {
+            throw new ConcurrentModificationException("Collection was modified.");
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The spliterator gets the elements directly from the backing array
+     * and is {@linkplain Spliterator#SIZED sized}, so it splits the remaining
+     * index range in halves in constant time. It binds to the elements on its
+     * first use, and fails fast if this collection is structurally modified
+     * afterwards.
+     */
+    @Override
+    public Spliterator<Object> spliterator() {
+        return new ArraySpliterator(this, 0, -1, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The getter gets each element in constant time, directly from the
+     * backing array, and fails fast if this collection is structurally
+     * modified after the getter was created.
+     */
+    @Override
+    public ElementsGetter createElementsGetter() {
+        return new ArrayElementsGetter(this);
+    }
+
     /**
      * Increases the capacity of this collection instance if necessary, to
-     * ensure that it can hold new elements. More formally, the collection's
-     * array is full if <code>size == capacity</code>, and its capacity will be
-     * doubled.
+     * ensure that it can hold at least <code>minCapacity</code> elements. More
+     * formally, if <code>minCapacity &gt; capacity</code>, the capacity will be
+     * doubled, or increased to <code>minCapacity</code> if doubling is not
+     * enough.
+     *
+     * @param minCapacity the required capacity
      */
-    private void ensureCapacity() {
-        if (size == capacity) {
-            capacity *= 2;
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            capacity = Math.max(2 * capacity, minCapacity);
             elements = copyOfArray(elements, capacity);
         }
     }
 
+    /**
+     * Returns an array holding the elements of the given collection from index
+     * <code>0</code> to <code>other.size()</code>. The backing array of
+     * another array indexed collection is returned directly, while the
+     * elements of any other collection, including this one, are copied into a
+     * new array.
+     *
+     * @param other collection whose elements are returned
+     * @return an array holding the elements of the collection
+     * @throws IllegalArgumentException if the collection contains a null
+     *         reference
+     */
+    private Object[] arrayOf(Collection other) {
+        if (other instanceof ArrayIndexedCollection && other != this) {
+            return ((ArrayIndexedCollection) other).elements;
+        }
+
+        final Object[] array = new Object[other.size()];
+        other.forEach(new Processor() {
+            private int index;
+
+            @Override
+            public void process(Object value) {
+                if (value == null) {
+                    throw new IllegalArgumentException("Element must not be null.");
+                }
+                array[index++] = value;
+            }
+        });
+        return array;
+    }
+
     /**
      * Shifts the backing array to the right due to an insertion. The shifting
      * starts at the end of the backing array (size-1) and ends at the specified
@@ -264,9 +559,7 @@ public class ArrayIndexedCollection extends Collection {
      * @param index index where to end shifting
      */
     private void shiftRight(int index) {
-        for (int i = size-1; i >= index; i--) {
-            elements[i+1] = elements[i];
-        }
+        System.arraycopy(elements, index, elements, index+1, size-index);
         /* Erase the last shifted element's duplicate. */
         elements[index] = null;
     }
@@ -280,9 +573,7 @@ public class ArrayIndexedCollection extends Collection {
      * @param index index where to start shifting
      */
     private void shiftLeft(int index) {
-        for (int i = index; i < size-1; i++) {
-            elements[i] = elements[i+1];
-        }
+        System.arraycopy(elements, index+1, elements, index, size-index-1);
         /* Erase the last shifted element's duplicate. */
         elements[size-1] = null;
     }
@@ -307,9 +598,7 @@ public class ArrayIndexedCollection extends Collection {
         Object[] newArr = new Object[newLength];
 
         int min = Math.min(original.length, newLength);
-        for (int i = 0; i < min; i++) {
-            newArr[i] = original[i];
-        }
+        System.arraycopy(original, 0, newArr, 0, min);
 
         return newArr;
     }
@@ -328,4 +617,174 @@ public class ArrayIndexedCollection extends Collection {
         }
     }
 
+    /**
+     * An elements getter over an array indexed collection, which gets the
+     * elements by their index in the backing array.
+     *
+     * @author Mario Bobic
+     */
+    private static class ArrayElementsGetter implements ElementsGetter {
+
+        /** The collection whose elements are returned. */
+        private final ArrayIndexedCollection col;
+        /** Index of the next element. */
+        private int index;
+        /** Modification count of the collection when this getter was created. */
+        private final long savedModificationCount;
+
+        /**
+         * Constructs a new instance of ArrayElementsGetter over the given
+         * collection.
+         *
+         * @param col the collection whose elements are returned
+         */
+        private ArrayElementsGetter(ArrayIndexedCollection col) {
+            this.col = col;
+            this.savedModificationCount = col.modificationCount;
+        }
+
+        @Override
+        public boolean hasNextElement() {
+            checkModification();
+            return index < col.size;
+        }
+
+        @Override
+        public Object getNextElement() {
+            if (!hasNextElement()) {
+                throw new NoSuchElementException("No more elements.");
+            }
+            return col.elements[index++];
+        }
+
+        /**
+         * Throws a {@linkplain ConcurrentModificationException} if the
+         * collection was structurally modified after this getter was created.
+         *
+         * @throws ConcurrentModificationException if the collection was modified
+         */
+        private void checkModification() {
+            if (col.modificationCount != savedModificationCount) {
+                throw new ConcurrentModificationException("Collection was modified.");
+            }
+        }
+    }
+
+    /**
+     * A spliterator over an array indexed collection, which gets the elements
+     * by their index in the backing array and splits an index range in
+     * halves. The range is bound to the size of the collection on the first
+     * use of the spliterator.
+     *
+     * @author Mario Bobic
+     */
+    private static class ArraySpliterator implements Spliterator<Object> {
+
+        /** The collection whose elements are returned. */
+        private final ArrayIndexedCollection col;
+        /** Index of the next element. */
+        private int index;
+        /** Index after the last element, or -1 if not yet bound. */
+        private int fence;
+        /** Modification count of the collection when the range was bound. */
+        private long savedModificationCount;
+
+        /**
+         * Constructs a new instance of ArraySpliterator over the elements of
+         * the given collection from <tt>index</tt> to <tt>fence</tt>.
+         *
+         * @param col the collection whose elements are returned
+         * @param index index of the first element
+         * @param fence index after the last element, or -1 to bind it to the
+         *        size of the collection on the first use
+         * @param savedModificationCount modification count of the collection
+         *        when the range was bound
+         */
+        private ArraySpliterator(ArrayIndexedCollection col, int index, int fence,
+                long savedModificationCount) {
+            this.col = col;
+            this.index = index;
+            this.fence = fence;
+            this.savedModificationCount = savedModificationCount;
+        }
+
+        /**
+         * Returns the index after the last element, binding it to the size of
+         * the collection if not yet bound.
+         *
+         * @return the index after the last element
+         */
+        private int getFence() {
+            if (fence < 0) {
+                savedModificationCount = col.modificationCount;
+                fence = col.size;
+            }
+            return fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            if (action == null) {
+                throw new NullPointerException("Action must not be null.");
+            }
+            if (index >= getFence()) {
+                return false;
+            }
+
+            action.accept(col.elements[index++]);
+            checkModification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            if (action == null) {
+                throw new NullPointerException("Action must not be null.");
+            }
+
+            int hi = getFence();
+            Object[] elements = col.elements;
+            for (int i = index; i < hi; i++) {
+                action.accept(elements[i]);
+            }
+            index = hi;
+            checkModification();
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+
+            index = mid;
+            return new ArraySpliterator(col, lo, mid, savedModificationCount);
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        /**
+         * Throws a {@linkplain ConcurrentModificationException} if the
+         * collection was structurally modified after the range was bound.
+         *
+         * @throws ConcurrentModificationException if the collection was modified
+         */
+        private void checkModification() {
+            if (col.modificationCount != savedModificationCount) {
+                throw new ConcurrentModificationException("Collection was modified.");
+            }
+        }
+    }
+
 }
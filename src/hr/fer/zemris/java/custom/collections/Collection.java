@@ -1,5 +1,11 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * A collection represents a general group of objects, known as its
  * <i>elements</i>. Many methods this class provides are defined in terms of the
@@ -95,6 +101,78 @@ public class Collection {
     public void forEach(Processor processor) {
     }
 
+    /**
+     * Returns a new {@linkplain ElementsGetter} which gets the elements of
+     * this collection one at a time, in the order in which
+     * {@link #forEach forEach} processes them.
+     * <p>
+     * This class copies the elements with {@link #forEach forEach} when the
+     * getter is created, so the getter does not see later modifications.
+     * Subclasses should return a getter which gets each element in constant
+     * time without copying and which fails fast if the collection is modified.
+     *
+     * @return a new elements getter over this collection
+     */
+    public ElementsGetter createElementsGetter() {
+        final Object[] elements = copyElements();
+
+        return new ElementsGetter() {
+            private int index;
+
+            @Override
+            public boolean hasNextElement() {
+                return index < elements.length;
+            }
+
+            @Override
+            public Object getNextElement() {
+                if (!hasNextElement()) {
+                    throw new NoSuchElementException("No more elements.");
+                }
+                return elements[index++];
+            }
+        };
+    }
+
+    /**
+     * Returns a {@linkplain Spliterator} over the elements of this collection,
+     * in the order in which {@link #forEach forEach} processes them.
+     * <p>
+     * This class copies the elements with {@link #forEach forEach} when the
+     * spliterator is created, so the spliterator does not see later
+     * modifications. Subclasses should return a spliterator which does not
+     * copy the elements, splits them efficiently and reports as many
+     * characteristics as possible.
+     *
+     * @return a spliterator over the elements of this collection
+     */
+    public Spliterator<Object> spliterator() {
+        return Spliterators.spliterator(copyElements(), Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a sequential {@linkplain Stream} over the elements of this
+     * collection, which gets the elements from the
+     * {@link #spliterator() spliterator}.
+     *
+     * @return a sequential stream over the elements of this collection
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel {@linkplain Stream} over the elements of this
+     * collection, which gets the elements from the
+     * {@link #spliterator() spliterator}, and splits them as the spliterator
+     * allows.
+     *
+     * @return a parallel stream over the elements of this collection
+     */
+    public Stream<Object> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     /**
      * Adds all of the elements in the specified collection to this collection.
      * This other collection remains unchanged.
@@ -113,6 +191,95 @@ public class Collection {
         other.forEach(p);
     }
 
+    /**
+     * Removes all of the elements of this collection that are accepted by the
+     * given tester. Returns <code>true</code> if any element was removed.
+     * <p>
+     * This class first finds the accepted elements with
+     * {@link #forEach forEach} and then removes each of them with
+     * {@link #remove(Object) remove}, which is slow for most collections.
+     * Subclasses should remove the elements in a single pass instead.
+     *
+     * @param tester the tester which accepts the elements to be removed
+     * @return true if any element was removed, false otherwise
+     * @throws IllegalArgumentException if the given tester is null
+     */
+    public boolean removeIf(final Tester tester) {
+        if (tester == null) {
+            throw new IllegalArgumentException("Tester must not be null.");
+        }
+
+        final Object[] accepted = new Object[size()];
+        final int[] count = new int[1];
+        forEach(new Processor() {
+            @Override
+            public void process(Object value) {
+                if (tester.test(value)) {
+                    accepted[count[0]++] = value;
+                }
+            }
+        });
+
+        for (int i = 0; i < count[0]; i++) {
+            remove(accepted[i]);
+        }
+        return count[0] > 0;
+    }
+
+    /**
+     * Removes all of the elements of this collection that are also contained
+     * in the specified collection, as determined by its
+     * {@link #contains contains} method. Returns <code>true</code> if any
+     * element was removed. The other collection remains unchanged.
+     *
+     * @param other collection containing elements to be removed
+     * @return true if any element was removed, false otherwise
+     * @throws IllegalArgumentException if the other collection is null
+     */
+    public boolean removeAll(final Collection other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Collection must not be null.");
+        }
+        if (other == this) {
+            boolean empty = isEmpty();
+            clear();
+            return !empty;
+        }
+
+        return removeIf(new Tester() {
+            @Override
+            public boolean test(Object value) {
+                return other.contains(value);
+            }
+        });
+    }
+
+    /**
+     * Retains only the elements of this collection that are contained in the
+     * specified collection, as determined by its {@link #contains contains}
+     * method. Returns <code>true</code> if any element was removed. The other
+     * collection remains unchanged.
+     *
+     * @param other collection containing elements to be retained
+     * @return true if any element was removed, false otherwise
+     * @throws IllegalArgumentException if the other collection is null
+     */
+    public boolean retainAll(final Collection other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Collection must not be null.");
+        }
+        if (other == this) {
+            return false;
+        }
+
+        return removeIf(new Tester() {
+            @Override
+            public boolean test(Object value) {
+                return !other.contains(value);
+            }
+        });
+    }
+
     /**
      * Removes all of the elements from this collection. The collection will be
      * empty after this method returns.
@@ -120,4 +287,23 @@ public class Collection {
     public void clear() {
     }
 
+    /**
+     * Copies the elements of this collection into a new array with
+     * {@link #forEach forEach}.
+     *
+     * @return an array holding the elements of this collection
+     */
+    private Object[] copyElements() {
+        final Object[] elements = new Object[size()];
+        forEach(new Processor() {
+            private int index;
+
+            @Override
+            public void process(Object value) {
+                elements[index++] = value;
+            }
+        });
+        return elements;
+    }
+
 }
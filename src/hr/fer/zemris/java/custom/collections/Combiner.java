@@ -0,0 +1,24 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This interface is a functional interface for combining two Objects into
+ * one. A combiner is used to reduce the elements of a collection to a single
+ * result, for example in
+ * {@link ArrayIndexedCollection#parallelReduce(Object, Combiner, Combiner)
+ * parallelReduce}, where one combiner accumulates the elements into partial
+ * results and another one combines the partial results.
+ *
+ * @author Mario Bobic
+ */
+public interface Combiner {
+
+    /**
+     * Combines the two values and returns the result.
+     *
+     * @param first the first value, such as a partial result
+     * @param second the second value, such as an element or a partial result
+     * @return the combined value
+     */
+    Object combine(Object first, Object second);
+
+}
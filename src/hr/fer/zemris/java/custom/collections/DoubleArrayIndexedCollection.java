@@ -0,0 +1,311 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Arrays;
+
+/**
+ * An array indexed collection of primitive <tt>double</tt> values. This is the
+ * primitive counterpart of the {@linkplain ArrayIndexedCollection} which stores
+ * the values unboxed into a fixed-size <tt>double</tt> array with the initial
+ * capacity specified by the caller or 16 by default. If the array gets filled,
+ * this class ensures that the capacity expands to twice the number of the
+ * current capacity of the array.
+ * <p>
+ * Since the values are not boxed, adding, getting and searching values do not
+ * allocate any objects and the values are stored next to each other in memory.
+ * Values are processed by a {@linkplain DoubleProcessor}. This collection may be
+ * converted to and from the object collections by the
+ * {@linkplain #toCollection()} method and the
+ * {@linkplain #DoubleArrayIndexedCollection(Collection)} constructor.
+ * <p>
+ * This implementation <b>allows</b> duplicate values.
+ * Values are compared as by the {@linkplain Double#equals} method, so
+ * <tt>NaN</tt> values can be found and <tt>0.0</tt> and <tt>-0.0</tt> are
+ * considered different values, same as in the {@linkplain ArrayIndexedCollection}.
+ *
+ * @author Mario Bobic
+ * @see ArrayIndexedCollection
+ */
+public class DoubleArrayIndexedCollection {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The size of this collection (the number of values it contains). */
+    private int size;
+    /** The array into which the values of this collection are stored. */
+    private double[] elements;
+
+    /**
+     * Constructs an instance of DoubleArrayIndexedCollection with the default
+     * capacity of 16.
+     */
+    public DoubleArrayIndexedCollection() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance of DoubleArrayIndexedCollection with the capacity set
+     * to <code>initialCapacity</code>.
+     *
+     * @param initialCapacity initial capacity of this collection
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is less than 1
+     */
+    public DoubleArrayIndexedCollection(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must not be less than 1.");
+        }
+        elements = new double[initialCapacity];
+    }
+
+    /**
+     * Constructs an instance of DoubleArrayIndexedCollection containing the values
+     * of the specified object collection, in the order in which they are
+     * processed by the {@linkplain Collection#forEach forEach} method of the
+     * specified collection. All elements of the specified collection must be
+     * {@linkplain Number numbers} and are converted by the
+     * {@linkplain Number#doubleValue()} method.
+     *
+     * @param other the collection whose elements are to be placed into this one
+     * @throws NullPointerException if the specified collection is null
+     * @throws ClassCastException if an element is not a number
+     */
+    public DoubleArrayIndexedCollection(Collection other) {
+        this(Math.max(other.size(), DEFAULT_CAPACITY));
+        other.forEach(new Processor() {
+            @Override
+            public void process(Object value) {
+                add(((Number) value).doubleValue());
+            }
+        });
+    }
+
+    /**
+     * Constructs an instance of DoubleArrayIndexedCollection containing the values
+     * of the specified array.
+     *
+     * @param values the array whose values are to be placed into this one
+     * @throws NullPointerException if the specified array is null
+     */
+    public DoubleArrayIndexedCollection(double[] values) {
+        this(Math.max(values.length, DEFAULT_CAPACITY));
+        System.arraycopy(values, 0, elements, 0, values.length);
+        size = values.length;
+    }
+
+    /**
+     * Returns true if this collection contains no values. False otherwise.
+     *
+     * @return true if this collection contains zero values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of currently stored values in this collection.
+     *
+     * @return the number of values in this collection
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given value into this collection (the value is added into first
+     * empty place in this collection). The average complexity of this method is
+     * O(1) due to the internal array.
+     *
+     * @param value value to be added to this collection
+     */
+    public void add(double value) {
+        ensureCapacity(size + 1);
+        elements[size] = value;
+        size++;
+    }
+
+    /**
+     * Inserts the given value at the given position in this collection. This
+     * method does not overwrite the previously recorded value at the specified
+     * position, but shifts the value currently at that position (if any) and
+     * any subsequent values to the right (adds one to their indices).
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the index
+     * is outside of those boundaries, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param value value to be inserted to this collection
+     * @param position index at which the specified value is to be inserted
+     * @throws IndexOutOfBoundsException if the position index is out of range
+     */
+    public void insert(double value, int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Invalid position: " + position);
+        }
+
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, position, elements, position+1, size-position);
+        elements[position] = value;
+        size++;
+    }
+
+    /**
+     * Returns true if this collection contains the given value.
+     *
+     * @param value value to search for
+     * @return true if this collection contains the value
+     */
+    public boolean contains(double value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the value that is stored in this collection at position
+     * <code>index</code>. The average complexity of this method is O(1)
+     * due to the internal array storage.
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}.
+     *
+     * @param index index of the value to return
+     * @return the value at the specified position in this collection
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public double get(int index) {
+        checkIndex(index);
+
+        return elements[index];
+    }
+
+    /**
+     * Replaces the value at the specified position in this collection with the
+     * given value and returns the previous value.
+     *
+     * @param index index of the value to replace
+     * @param value value to be stored at the specified position
+     * @return the value previously at the specified position
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public double set(int index, double value) {
+        checkIndex(index);
+
+        double old = elements[index];
+        elements[index] = value;
+        return old;
+    }
+
+    /**
+     * Searches the collection and returns the index of the first occurrence of
+     * the given value or -1 if the value is not found.
+     *
+     * @param value value to search for
+     * @return the index of the first occurrence of the specified value in
+     *         this collection, or -1 if this it does not contain the value
+     */
+    public int indexOf(double value) {
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(elements[i], value) == 0)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the value at the specified position in this collection. Shifts
+     * any subsequent values to the left (subtracts one from their indices).
+     *
+     * @param index the index of the value to be removed
+     * @return the removed value
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public double remove(int index) {
+        checkIndex(index);
+
+        double old = elements[index];
+        System.arraycopy(elements, index+1, elements, index, size-index-1);
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes all of the values from this collection. The collection will be
+     * empty after this method returns.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns an array containing all of the values in this collection, in
+     * the order they are stored in this collection.
+     *
+     * @return an array containing all of the values in this collection
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns an object collection containing all of the values in this
+     * collection, boxed into {@linkplain Double} objects, in the order they are
+     * stored in this collection.
+     *
+     * @return an object collection containing all of the values
+     */
+    public ArrayIndexedCollection toCollection() {
+        ArrayIndexedCollection col = new ArrayIndexedCollection(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            col.add(Double.valueOf(elements[i]));
+        }
+        return col;
+    }
+
+    /**
+     * Calls the {@linkplain DoubleProcessor#process process} method of the given
+     * processor for each value of this collection, in the order they are stored
+     * in this collection.
+     *
+     * @param processor the processor which processes each value
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    public void forEach(DoubleProcessor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (int i = 0; i < size; i++) {
+            processor.process(elements[i]);
+        }
+    }
+
+    /**
+     * Increases the capacity of this collection instance if necessary, to
+     * ensure that it can hold at least the specified number of values. The
+     * capacity is at least doubled.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(2*elements.length, minCapacity));
+        }
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
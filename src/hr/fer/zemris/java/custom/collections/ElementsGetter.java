@@ -0,0 +1,39 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * An elements getter is a cursor over the elements of a collection, which
+ * returns one element at a time, in the order in which the collection
+ * {@linkplain Collection#forEach processes} them. Unlike processing, getting
+ * the elements may be stopped at any time and interleaved with getting the
+ * elements of another collection.
+ * <p>
+ * Elements getters of the collections in this package are <i>fail-fast</i>: if
+ * the collection is structurally modified after the getter was created, the
+ * getter throws a {@linkplain java.util.ConcurrentModificationException} on its
+ * next use.
+ *
+ * @author Mario Bobic
+ * @see Collection#createElementsGetter()
+ */
+public interface ElementsGetter {
+
+    /**
+     * Returns true if there are more elements to get. False otherwise.
+     *
+     * @return true if there are more elements to get
+     * @throws java.util.ConcurrentModificationException
+     *             if the collection was modified after this getter was created
+     */
+    boolean hasNextElement();
+
+    /**
+     * Returns the next element.
+     *
+     * @return the next element
+     * @throws java.util.NoSuchElementException if there are no more elements
+     * @throws java.util.ConcurrentModificationException
+     *             if the collection was modified after this getter was created
+     */
+    Object getNextElement();
+
+}
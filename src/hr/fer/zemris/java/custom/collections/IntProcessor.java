@@ -0,0 +1,24 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This class is a functional class for processing a primitive <tt>int</tt>
+ * value. It is the primitive counterpart of the {@linkplain Processor} class
+ * and is used by the {@linkplain IntArrayIndexedCollection} so that the values
+ * do not have to be boxed in order to be processed. On each round, a processor
+ * may be asked to {@linkplain #process process} the value passed as an argument
+ * to the only method in this class.
+ *
+ * @author Mario Bobic
+ */
+public class IntProcessor {
+
+    /**
+     * Processes the value. This method should be overridden by implementing the
+     * actual processing of the value.
+     *
+     * @param value the value to be processed
+     */
+    public void process(int value) {
+    }
+
+}
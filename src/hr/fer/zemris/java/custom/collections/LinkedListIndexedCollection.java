@@ -1,5 +1,12 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
 /**
  * Doubly-linked list implementation of the {@linkplain Collection} class.
  * Implements all optional list operations. This collection has <i>unlimited</i>
@@ -19,6 +26,8 @@ public class LinkedListIndexedCollection extends Collection {
     private ListNode first;
     /** Last node of this list. */
     private ListNode last;
+    /** Number of structural modifications of this list. */
+    private long modificationCount;
 
     /**
      * Constructs an empty instance of LinkedListIndexedCollection.
@@ -67,6 +76,7 @@ public class LinkedListIndexedCollection extends Collection {
             last = node;
         }
         size++;
+        modificationCount++;
     }
 
     /**
@@ -104,6 +114,7 @@ public class LinkedListIndexedCollection extends Collection {
             }
             existing.prev = newNode;
             size++;
+            modificationCount++;
         }
     }
 
@@ -183,28 +194,40 @@ public class LinkedListIndexedCollection extends Collection {
     public void remove(int index) {
         checkIndex(index);
 
-        ListNode node = getNode(index);
-        /* Check if it's the first element. */
-        if (index != 0) {
-            node.prev.next = node.next;
-        } else {
-            first = node.next;
+        unlink(getNode(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The list is walked once from the first to the last node and the
+     * accepted nodes are unlinked as they are found, so the complexity of this
+     * method is O(n) regardless of the number of removed elements.
+     */
+    @Override
+    public boolean removeIf(Tester tester) {
+        if (tester == null) {
+            throw new IllegalArgumentException("Tester must not be null.");
         }
-        /* Check if it's the last element. */
-        if (index != size-1) {
-            node.next.prev = node.prev;
-        } else {
-            last = node.prev;
+
+        boolean removed = false;
+        ListNode cur = first;
+        while (cur != null) {
+            ListNode next = cur.next;
+            if (tester.test(cur.value)) {
+                unlink(cur);
+                removed = true;
+            }
+            cur = next;
         }
 
-        node.value = null;
-        size--;
+        return removed;
     }
 
     @Override
     public void clear() {
         first = last = null;
         size = 0;
+        modificationCount++;
     }
 
     @Override
@@ -237,6 +260,159 @@ public class LinkedListIndexedCollection extends Collection {
         }
     }
 
+    /**
+     * Processes each element of this list with the given processor in
+     * parallel, on the {@linkplain ForkJoinPool#commonPool() common pool}. The
+     * elements are split into ranges of at most 1024 elements.
+     *
+     * @param processor the processor which processes each element
+     * @throws IllegalArgumentException if the given processor is null
+     * @throws ConcurrentModificationException if this list is structurally
+     *         modified while the elements are processed
+     * @see #parallelForEach(Processor, ForkJoinPool, int)
+     */
+    public void parallelForEach(Processor processor) {
+        parallelForEach(processor, ForkJoinPool.commonPool(), ParallelProcessing.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Processes each element of this list with the given processor in
+     * parallel, on the given pool.
+     * <p>
+     * A list can not be split without walking through its nodes, so this is a
+     * best-effort version: the elements are first copied into an array in one
+     * linear pass, and the array is then split in halves until the ranges are
+     * no longer than the <tt>threshold</tt>, and the ranges are processed by
+     * the threads of the pool. It pays off only if processing an element
+     * takes much longer than copying it.
+     * <p>
+     * The elements are processed in no particular order and the processor may
+     * be called from several threads at once, so it must be thread-safe. This
+     * list must not be modified while the elements are processed.
+     *
+     * @param processor the processor which processes each element
+     * @param pool pool that processes the elements
+     * @param threshold number of elements below which a range is not split
+     * @throws IllegalArgumentException if the processor or the pool is null,
+     *         or if the threshold is less than 1
+     * @throws ConcurrentModificationException if this list is structurally
+     *         modified while the elements are processed
+     */
+    public void parallelForEach(Processor processor, ForkJoinPool pool, int threshold) {
+        long savedModificationCount = modificationCount;
+        ParallelProcessing.forEach(toArray(), 0, size, processor, pool, threshold);
+        if (modificationCount != savedModificationCount) {
+            throw new ConcurrentModificationException("Collection was modified.");
+        }
+    }
+
+    /**
+     * Reduces the elements of this list to a single result in parallel, on
+     * the {@linkplain ForkJoinPool#commonPool() common pool}. The elements are
+     * split into ranges of at most 1024 elements.
+     *
+     * @param identity the initial value of each range
+     * @param accumulator combines a partial result with an element
+     * @param combiner combines two partial results
+     * @return the result of the reduction, or the identity if this list is
+     *         empty
+     * @throws IllegalArgumentException if a combiner is null
+     * @throws ConcurrentModificationException if this list is structurally
+     *         modified while the elements are reduced
+     * @see #parallelReduce(Object, Combiner, Combiner, ForkJoinPool, int)
+     */
+    public Object parallelReduce(Object identity, Combiner accumulator, Combiner combiner) {
+        return parallelReduce(identity, accumulator, combiner,
+                ForkJoinPool.commonPool(), ParallelProcessing.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Reduces the elements of this list to a single result in parallel, on
+     * the given pool. As in {@link #parallelForEach(Processor, ForkJoinPool, int)
+     * parallelForEach}, the elements are first copied into an array in one
+     * linear pass. The array is then split in halves until the ranges are no
+     * longer than the <tt>threshold</tt>, the elements of each range are
+     * accumulated into the <tt>identity</tt> in order, and the results of
+     * neighbouring ranges are combined in order.
+     * <p>
+     * The <tt>identity</tt> must be an identity for the combiner, and both
+     * combiners must be associative and thread-safe, but need not be
+     * commutative. The accumulator must not modify the identity. This list
+     * must not be modified while the elements are reduced.
+     *
+     * @param identity the initial value of each range
+     * @param accumulator combines a partial result with an element
+     * @param combiner combines two partial results
+     * @param pool pool that reduces the elements
+     * @param threshold number of elements below which a range is not split
+     * @return the result of the reduction, or the identity if this list is
+     *         empty
+     * @throws IllegalArgumentException if a combiner or the pool is null, or if
+     *         the threshold is less than 1
+     * @throws ConcurrentModificationException if this list is structurally
+     *         modified while the elements are reduced
+     */
+    public Object parallelReduce(Object identity, Combiner accumulator, Combiner combiner,
+            ForkJoinPool pool, int threshold) {
+        long savedModificationCount = modificationCount;
+        Object result = ParallelProcessing.reduce(toArray(), 0, size,
+                identity, accumulator, combiner, pool, threshold);
+        if (modificationCount != savedModificationCount) {
+            throw new ConcurrentModificationException("Collection was modified.");
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The spliterator follows the links between the nodes and is
+     * {@linkplain Spliterator#SIZED sized}. A list can not be split in the
+     * middle without walking through its nodes, so the spliterator splits off
+     * a batch of the next elements into an array, and each batch is larger
+     * than the previous one. It binds to the elements on its first use, and
+     * fails fast if this list is structurally modified afterwards.
+     */
+    @Override
+    public Spliterator<Object> spliterator() {
+        return new ListSpliterator(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The getter follows the links between the nodes, so it gets each
+     * element in constant time, and fails fast if this list is structurally
+     * modified after the getter was created.
+     */
+    @Override
+    public ElementsGetter createElementsGetter() {
+        return new ListElementsGetter(this);
+    }
+
+    /**
+     * Removes the given node from this list by linking its previous and next
+     * node together.
+     *
+     * @param node node to be removed
+     */
+    private void unlink(ListNode node) {
+        /* Check if it's the first element. */
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            first = node.next;
+        }
+        /* Check if it's the last element. */
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            last = node.prev;
+        }
+
+        node.value = null;
+        size--;
+        modificationCount++;
+    }
+
     /**
      * Returns the node at the specified element index.
      *
@@ -304,4 +480,191 @@ public class LinkedListIndexedCollection extends Collection {
         }
 
     }
+
+    /**
+     * An elements getter over a linked list indexed collection, which follows
+     * the links from the first to the last node.
+     *
+     * @author Mario Bobic
+     */
+    private static class ListElementsGetter implements ElementsGetter {
+
+        /** The list whose elements are returned. */
+        private final LinkedListIndexedCollection list;
+        /** Node of the next element, or <code>null</code> after the last one. */
+        private ListNode next;
+        /** Modification count of the list when this getter was created. */
+        private final long savedModificationCount;
+
+        /**
+         * Constructs a new instance of ListElementsGetter over the given list.
+         *
+         * @param list the list whose elements are returned
+         */
+        private ListElementsGetter(LinkedListIndexedCollection list) {
+            this.list = list;
+            this.next = list.first;
+            this.savedModificationCount = list.modificationCount;
+        }
+
+        @Override
+        public boolean hasNextElement() {
+            checkModification();
+            return next != null;
+        }
+
+        @Override
+        public Object getNextElement() {
+            if (!hasNextElement()) {
+                throw new NoSuchElementException("No more elements.");
+            }
+            Object value = next.value;
+            next = next.next;
+            return value;
+        }
+
+        /**
+         * Throws a {@linkplain ConcurrentModificationException} if the list
+         * was structurally modified after this getter was created.
+         *
+         * @throws ConcurrentModificationException if the list was modified
+         */
+        private void checkModification() {
+            if (list.modificationCount != savedModificationCount) {
+                throw new ConcurrentModificationException("Collection was modified.");
+            }
+        }
+    }
+
+    /**
+     * A spliterator over a linked list indexed collection, which follows the
+     * links between the nodes and splits off batches of elements into arrays.
+     * The spliterator is bound to the first node and the size of the list on
+     * its first use.
+     *
+     * @author Mario Bobic
+     */
+    private static class ListSpliterator implements Spliterator<Object> {
+
+        /** Number of elements the size of each next batch grows by. */
+        private static final int BATCH_UNIT = 1 << 10;
+        /** Maximum number of elements in a batch. */
+        private static final int MAX_BATCH = 1 << 25;
+
+        /** The list whose elements are returned. */
+        private final LinkedListIndexedCollection list;
+        /** Node of the next element, or <tt>null</tt> if there is none. */
+        private ListNode next;
+        /** Number of remaining elements, or -1 if not yet bound. */
+        private int remaining;
+        /** Number of elements in the last batch. */
+        private int batch;
+        /** Modification count of the list when the spliterator was bound. */
+        private long savedModificationCount;
+
+        /**
+         * Constructs a new instance of ListSpliterator over the given list.
+         *
+         * @param list the list whose elements are returned
+         */
+        private ListSpliterator(LinkedListIndexedCollection list) {
+            this.list = list;
+            this.remaining = -1;
+        }
+
+        /**
+         * Returns the number of remaining elements, binding the spliterator
+         * to the first node and the size of the list if not yet bound.
+         *
+         * @return the number of remaining elements
+         */
+        private int getRemaining() {
+            if (remaining < 0) {
+                savedModificationCount = list.modificationCount;
+                next = list.first;
+                remaining = list.size;
+            }
+            return remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            if (action == null) {
+                throw new NullPointerException("Action must not be null.");
+            }
+            if (getRemaining() == 0) {
+                return false;
+            }
+
+            ListNode node = next;
+            next = node.next;
+            remaining--;
+            action.accept(node.value);
+            checkModification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            if (action == null) {
+                throw new NullPointerException("Action must not be null.");
+            }
+
+            int n = getRemaining();
+            ListNode cur = next;
+            for (int i = 0; i < n; i++) {
+                checkModification();
+                action.accept(cur.value);
+                cur = cur.next;
+            }
+            next = cur;
+            remaining = 0;
+            checkModification();
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            int n = getRemaining();
+            if (n <= 1) {
+                return null;
+            }
+
+            batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+            int count = Math.min(batch, n);
+            Object[] values = new Object[count];
+            ListNode cur = next;
+            for (int i = 0; i < count; i++) {
+                values[i] = cur.value;
+                cur = cur.next;
+            }
+            checkModification();
+
+            next = cur;
+            remaining = n - count;
+            return Spliterators.spliterator(values, ORDERED | NONNULL);
+        }
+
+        @Override
+        public long estimateSize() {
+            return getRemaining();
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        /**
+         * Throws a {@linkplain ConcurrentModificationException} if the list
+         * was structurally modified after the spliterator was bound.
+         *
+         * @throws ConcurrentModificationException if the list was modified
+         */
+        private void checkModification() {
+            if (list.modificationCount != savedModificationCount) {
+                throw new ConcurrentModificationException("Collection was modified.");
+            }
+        }
+    }
+
 }
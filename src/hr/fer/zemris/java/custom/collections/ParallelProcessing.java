@@ -0,0 +1,217 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Processes and reduces a range of elements of an array in parallel on a
+ * {@linkplain ForkJoinPool}. The range is split in halves until the parts are
+ * no longer than a threshold, and the parts are then processed or reduced by
+ * the threads of the pool. This class is used by the collections of this
+ * package to implement their parallel methods.
+ *
+ * @author Mario Bobic
+ */
+final class ParallelProcessing {
+
+    /** Default number of elements below which a range is not split. */
+    static final int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * Disable instantiation.
+     */
+    private ParallelProcessing() {
+    }
+
+    /**
+     * Processes the elements of the given array from <tt>from</tt> to
+     * <tt>to</tt> with the given processor on the given pool, in no particular
+     * order.
+     *
+     * @param elements array holding the elements
+     * @param from index of the first element
+     * @param to index after the last element
+     * @param processor the processor which processes each element
+     * @param pool pool that processes the elements
+     * @param threshold number of elements below which a range is not split
+     * @throws IllegalArgumentException if the processor or the pool is null,
+     *         or if the threshold is less than 1
+     */
+    static void forEach(Object[] elements, int from, int to,
+            Processor processor, ForkJoinPool pool, int threshold) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+        checkArguments(pool, threshold);
+
+        pool.invoke(new ForEachTask(elements, from, to, processor, threshold));
+    }
+
+    /**
+     * Reduces the elements of the given array from <tt>from</tt> to
+     * <tt>to</tt> on the given pool. Each part of the range is reduced by
+     * accumulating its elements into the <tt>identity</tt> in order, and the
+     * results of neighbouring parts are combined in order, so the combiners
+     * must be associative but need not be commutative.
+     *
+     * @param elements array holding the elements
+     * @param from index of the first element
+     * @param to index after the last element
+     * @param identity the initial value of each part
+     * @param accumulator combines a partial result with an element
+     * @param combiner combines two partial results
+     * @param pool pool that reduces the elements
+     * @param threshold number of elements below which a range is not split
+     * @return the result of the reduction, or the identity if the range is
+     *         empty
+     * @throws IllegalArgumentException if a combiner or the pool is null, or if
+     *         the threshold is less than 1
+     */
+    static Object reduce(Object[] elements, int from, int to, Object identity,
+            Combiner accumulator, Combiner combiner, ForkJoinPool pool, int threshold) {
+        if (accumulator == null || combiner == null) {
+            throw new IllegalArgumentException("Combiner must not be null.");
+        }
+        checkArguments(pool, threshold);
+
+        return pool.invoke(new ReduceTask(elements, from, to, identity, accumulator, combiner, threshold));
+    }
+
+    /**
+     * Checks the pool and the threshold of a parallel method.
+     *
+     * @param pool the pool to be checked
+     * @param threshold the threshold to be checked
+     * @throws IllegalArgumentException if the pool is null or if the threshold
+     *         is less than 1
+     */
+    private static void checkArguments(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null.");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must not be less than 1: " + threshold);
+        }
+    }
+
+    /**
+     * A task which processes a range of elements, splitting it in halves
+     * while it is longer than the threshold.
+     *
+     * @author Mario Bobic
+     */
+    private static class ForEachTask extends RecursiveAction {
+        /** Serialization UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Array holding the elements. */
+        private final Object[] elements;
+        /** Index of the first element. */
+        private final int from;
+        /** Index after the last element. */
+        private final int to;
+        /** The processor which processes each element. */
+        private final Processor processor;
+        /** Number of elements below which the range is not split. */
+        private final int threshold;
+
+        /**
+         * Constructs a new instance of ForEachTask.
+         *
+         * @param elements array holding the elements
+         * @param from index of the first element
+         * @param to index after the last element
+         * @param processor the processor which processes each element
+         * @param threshold number of elements below which the range is not split
+         */
+        private ForEachTask(Object[] elements, int from, int to, Processor processor, int threshold) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.processor = processor;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    processor.process(elements[i]);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEachTask(elements, from, mid, processor, threshold),
+                    new ForEachTask(elements, mid, to, processor, threshold));
+        }
+    }
+
+    /**
+     * A task which reduces a range of elements, splitting it in halves while
+     * it is longer than the threshold.
+     *
+     * @author Mario Bobic
+     */
+    private static class ReduceTask extends RecursiveTask<Object> {
+        /** Serialization UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Array holding the elements. */
+        private final Object[] elements;
+        /** Index of the first element. */
+        private final int from;
+        /** Index after the last element. */
+        private final int to;
+        /** The initial value of each part. */
+        private final Object identity;
+        /** Combines a partial result with an element. */
+        private final Combiner accumulator;
+        /** Combines two partial results. */
+        private final Combiner combiner;
+        /** Number of elements below which the range is not split. */
+        private final int threshold;
+
+        /**
+         * Constructs a new instance of ReduceTask.
+         *
+         * @param elements array holding the elements
+         * @param from index of the first element
+         * @param to index after the last element
+         * @param identity the initial value of each part
+         * @param accumulator combines a partial result with an element
+         * @param combiner combines two partial results
+         * @param threshold number of elements below which the range is not split
+         */
+        private ReduceTask(Object[] elements, int from, int to, Object identity,
+                Combiner accumulator, Combiner combiner, int threshold) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Object compute() {
+            if (to - from <= threshold) {
+                Object result = identity;
+                for (int i = from; i < to; i++) {
+                    result = accumulator.combine(result, elements[i]);
+                }
+                return result;
+            }
+
+            int mid = (from + to) >>> 1;
+            ReduceTask left = new ReduceTask(elements, from, mid, identity, accumulator, combiner, threshold);
+            ReduceTask right = new ReduceTask(elements, mid, to, identity, accumulator, combiner, threshold);
+            right.fork();
+            Object leftResult = left.compute();
+            return combiner.combine(leftResult, right.join());
+        }
+    }
+
+}
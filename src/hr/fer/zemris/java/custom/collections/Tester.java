@@ -0,0 +1,21 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This interface is a functional interface for testing an Object. A tester
+ * decides whether the value passed as an argument to the only method in this
+ * interface is accepted, for example when the elements of a collection are
+ * {@linkplain Collection#removeIf(Tester) removed} by a condition.
+ *
+ * @author Mario Bobic
+ */
+public interface Tester {
+
+    /**
+     * Tests the value and returns true if it is accepted. False otherwise.
+     *
+     * @param value the object to be tested
+     * @return true if the object is accepted
+     */
+    boolean test(Object value);
+
+}
@@ -26,6 +26,15 @@ public class ElementConstantDouble extends Element {
         this.value = value;
     }
 
+    /**
+     * Returns the constant double value stored in this element.
+     *
+     * @return the constant double value stored in this element
+     */
+    public double getValue() {
+        return value;
+    }
+
     /**
      * Returns a string representation of a constant double value stored in this
      * element.
@@ -26,6 +26,15 @@ public class ElementConstantInteger extends Element {
         this.value = value;
     }
 
+    /**
+     * Returns the constant integer value stored in this element.
+     *
+     * @return the constant integer value stored in this element
+     */
+    public int getValue() {
+        return value;
+    }
+
     /**
      * Returns a string representation of a constant integer value stored in
      * this element.
@@ -33,6 +33,16 @@ public class ElementFunction extends Element {
         this.name = processName(name);
     }
 
+    /**
+     * Returns the function name stored in this element, without a function
+     * mark symbol.
+     *
+     * @return the function name
+     */
+    public String getName() {
+        return name;
+    }
+
     /**
      * Returns a string representation of the function name stored in this
      * element.
@@ -25,6 +25,15 @@ public class ElementOperator extends Element {
         this.symbol = symbol;
     }
 
+    /**
+     * Returns the operator symbol stored in this element.
+     *
+     * @return the operator symbol stored in this element
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
     /**
      * Returns a string representation of the operator symbol stored in this
      * element.
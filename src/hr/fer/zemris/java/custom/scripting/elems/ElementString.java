@@ -32,6 +32,19 @@ public class ElementString extends Element {
         this.value = processValue(value);
     }
 
+    /**
+     * Returns the string value stored in this element, without the surrounding
+     * quotation marks. The <tt>\n</tt>, <tt>\r</tt> and <tt>\t</tt> escape
+     * sequences are processed into the characters they denote, while escaped
+     * quotation marks and escape characters are kept as they are written, so
+     * that {@link #asText()} reproduces the string.
+     *
+     * @return the string value
+     */
+    public String getValue() {
+        return value;
+    }
+
     /**
      * Returns the string value stored in this element.
      */
@@ -47,6 +60,9 @@ public class ElementString extends Element {
     /**
      * Processes and returns the string value without
      * {@link SmartScriptConstantsAndMethods#QUOT_MARK quotation mark} symbols.
+     * The <tt>\n</tt>, <tt>\r</tt> and <tt>\t</tt> escape sequences are
+     * replaced in a single pass, so an escaped escape character followed by
+     * one of these letters is kept as it is.
      *
      * @param value value to be processed
      * @return value without the surrounding quotation marks
@@ -58,10 +74,31 @@ public class ElementString extends Element {
             throw new IllegalArgumentException(
                 "Strings must start and end with " + QUOT_MARK + " symbols");
         }
-        return value.substring(1, value.length()-1)
-                .replace("\\n", "\n")
-                .replace("\\r", "\r")
-                .replace("\\t", "\t");
+        int end = value.length()-1;
+        StringBuilder sb = new StringBuilder(end);
+        for (int i = 1; i < end; i++) {
+            char c = value.charAt(i);
+            if (c != ESCAPE_CHAR || i+1 == end) {
+                sb.append(c);
+                continue;
+            }
+
+            char next = value.charAt(++i);
+            switch (next) {
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            default:
+                sb.append(c).append(next);
+            }
+        }
+        return sb.toString();
     }
 
 }
@@ -25,6 +25,15 @@ public class ElementVariable extends Element {
         this.name = name;
     }
 
+    /**
+     * Returns the variable name stored in this element.
+     *
+     * @return the variable name stored in this element
+     */
+    public String getName() {
+        return name;
+    }
+
     /**
      * Returns the variable name stored in this element.
      */
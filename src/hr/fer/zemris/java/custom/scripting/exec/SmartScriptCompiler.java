@@ -0,0 +1,269 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import static hr.fer.zemris.java.custom.scripting.exec.SmartScriptProgram.*;
+import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAndMethods.ESCAPE_CHAR;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.ElementsGetter;
+import hr.fer.zemris.java.custom.scripting.elems.*;
+import hr.fer.zemris.java.custom.scripting.nodes.*;
+
+/**
+ * A compiler that lowers a {@linkplain DocumentNode} tree into a flat
+ * {@linkplain SmartScriptProgram}. The tree is walked only once, when the
+ * program is compiled, so the cost of executing a program does not depend on
+ * the object graph of the tree it was compiled from.
+ * <p>
+ * The nodes are compiled as follows:
+ * <ul>
+ * <li>a {@linkplain TextNode} is compiled into a single <tt>TEXT</tt>
+ * instruction,
+ * <li>an {@linkplain EchoNode} is compiled into one instruction per element,
+ * followed by an <tt>ECHO</tt> instruction,
+ * <li>a {@linkplain ForLoopNode} is compiled into the instructions pushing its
+ * start, end and step expression, a <tt>LOOP_BEGIN</tt> instruction, the
+ * instructions of its children and a <tt>LOOP_END</tt> instruction. If the
+ * loop has no step expression, the step is <tt>1</tt>.
+ * </ul>
+ * Equal constants share a single entry in the constant pool and each variable
+ * name is given a single variable slot.
+ *
+ * @author Mario Bobic
+ * @see SmartScriptProgram
+ */
+public class SmartScriptCompiler {
+
+    /** Initial capacity of the instruction array. */
+    private static final int INITIAL_CAPACITY = 64;
+    /** Step of a FOR loop without a step expression. */
+    private static final Integer DEFAULT_STEP = Integer.valueOf(1);
+
+    /** Instructions of the program being compiled. */
+    private int[] code = new int[INITIAL_CAPACITY];
+    /** Number of values in the instruction array. */
+    private int length;
+    /** Constant pool of the program being compiled. */
+    private final ArrayIndexedCollection constants = new ArrayIndexedCollection();
+    /** Indexes of the constants in the constant pool. */
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+    /** Number of allocated variable slots, including the hidden ones. */
+    private int slotCount;
+    /** Indexes of the named variable slots. */
+    private final Map<String, Integer> slotIndexes = new HashMap<>();
+
+    /**
+     * Disable instantiation from outside of this class.
+     */
+    private SmartScriptCompiler() {
+    }
+
+    /**
+     * Compiles the given <tt>document</tt> into a program.
+     *
+     * @param document document to be compiled
+     * @return a program compiled from the document
+     * @throws IllegalArgumentException if <tt>document</tt> is <tt>null</tt>
+     * @throws SmartScriptEngineException if the document can not be compiled
+     */
+    public static SmartScriptProgram compile(DocumentNode document) {
+        if (document == null) {
+            throw new IllegalArgumentException("Document must not be null.");
+        }
+
+        SmartScriptCompiler compiler = new SmartScriptCompiler();
+        compiler.compileChildren(document);
+
+        Object[] constants = new Object[compiler.constants.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = compiler.constants.get(i);
+        }
+        String[] slots = new String[compiler.slotCount];
+        for (Map.Entry<String, Integer> entry : compiler.slotIndexes.entrySet()) {
+            slots[entry.getValue()] = entry.getKey();
+        }
+
+        return new SmartScriptProgram(
+            Arrays.copyOf(compiler.code, compiler.length), constants, slots);
+    }
+
+    /**
+     * Compiles all children of the given <tt>parent</tt> node.
+     *
+     * @param parent node whose children are to be compiled
+     */
+    private void compileChildren(Node parent) {
+        ElementsGetter getter = parent.childNodesGetter();
+        while (getter.hasNextElement()) {
+            compileNode((Node) getter.getNextElement());
+        }
+    }
+
+    /**
+     * Compiles the given <tt>node</tt>.
+     *
+     * @param node node to be compiled
+     * @throws SmartScriptEngineException if the node is not supported
+     */
+    private void compileNode(Node node) {
+        if (node instanceof TextNode) {
+            emit(TEXT, constant(((TextNode) node).getText()));
+        } else if (node instanceof EchoNode) {
+            for (Element element : ((EchoNode) node).getElements()) {
+                compileElement(element);
+            }
+            emit(ECHO);
+        } else if (node instanceof ForLoopNode) {
+            compileForLoop((ForLoopNode) node);
+        } else {
+            throw new SmartScriptEngineException(
+                "Unsupported node: " + node.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Compiles the given FOR loop node and its children.
+     *
+     * @param node FOR loop node to be compiled
+     */
+    private void compileForLoop(ForLoopNode node) {
+        compileElement(node.getStartExpression());
+        compileElement(node.getEndExpression());
+        if (node.getStepExpression() != null) {
+            compileElement(node.getStepExpression());
+        } else {
+            emit(PUSH_CONST, constant(DEFAULT_STEP));
+        }
+
+        int variable = slot(node.getVariable().getName());
+        int bounds = hiddenSlots(2);
+
+        emit(LOOP_BEGIN, variable, bounds, 0);
+        int exitOperand = length - 1;
+        int body = length;
+
+        compileChildren(node);
+
+        emit(LOOP_END, variable, bounds, body);
+        code[exitOperand] = length;
+    }
+
+    /**
+     * Compiles the given <tt>element</tt> into an instruction.
+     *
+     * @param element element to be compiled
+     * @throws SmartScriptEngineException if the element is not supported
+     */
+    private void compileElement(Element element) {
+        if (element instanceof ElementVariable) {
+            emit(LOAD_VAR, slot(((ElementVariable) element).getName()));
+        } else if (element instanceof ElementConstantInteger) {
+            emit(PUSH_CONST, constant(((ElementConstantInteger) element).getValue()));
+        } else if (element instanceof ElementConstantDouble) {
+            emit(PUSH_CONST, constant(((ElementConstantDouble) element).getValue()));
+        } else if (element instanceof ElementString) {
+            emit(PUSH_CONST, constant(unescape(((ElementString) element).getValue())));
+        } else if (element instanceof ElementFunction) {
+            String name = ((ElementFunction) element).getName();
+            int function = SmartScriptFunctions.indexOf(name);
+            if (function == -1) {
+                throw new SmartScriptEngineException("Unknown function: " + element.asText());
+            }
+            emit(CALL_FUNCTION, function);
+        } else if (element instanceof ElementOperator) {
+            emit(OPERATOR, ((ElementOperator) element).getSymbol().charAt(0));
+        } else {
+            throw new SmartScriptEngineException("Unsupported element: " + element.asText());
+        }
+    }
+
+    /**
+     * Returns the given string value with the escaped quotation marks and
+     * escape characters replaced by the characters they denote, as the value
+     * is rendered.
+     *
+     * @param value string value of an {@linkplain ElementString}
+     * @return the unescaped value
+     */
+    private static String unescape(String value) {
+        int index = value.indexOf(ESCAPE_CHAR);
+        if (index == -1) {
+            return value;
+        }
+
+        StringBuilder sb = new StringBuilder(value.length());
+        sb.append(value, 0, index);
+        for (int i = index; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ESCAPE_CHAR && i+1 < value.length()) {
+                c = value.charAt(++i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the index of the given <tt>value</tt> in the constant pool,
+     * adding it to the pool if it is not already there.
+     *
+     * @param value constant value
+     * @return the index of the value in the constant pool
+     */
+    private int constant(Object value) {
+        Integer index = constantIndexes.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndexes.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the variable slot with the given <tt>name</tt>,
+     * allocating a new slot if there is none.
+     *
+     * @param name variable name
+     * @return the index of the variable slot
+     */
+    private int slot(String name) {
+        Integer index = slotIndexes.get(name);
+        if (index == null) {
+            index = slotCount++;
+            slotIndexes.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * Allocates the given <tt>number</tt> of consecutive hidden variable slots
+     * and returns the index of the first one.
+     *
+     * @param number number of slots to be allocated
+     * @return the index of the first allocated slot
+     */
+    private int hiddenSlots(int number) {
+        int index = slotCount;
+        slotCount += number;
+        return index;
+    }
+
+    /**
+     * Appends the given values to the instruction array, enlarging it if
+     * needed.
+     *
+     * @param values values to be appended
+     */
+    private void emit(int... values) {
+        if (length + values.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(2*code.length, length + values.length));
+        }
+        System.arraycopy(values, 0, code, length, values.length);
+        length += values.length;
+    }
+
+}
@@ -0,0 +1,134 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A context in which a {@linkplain SmartScriptProgram} is executed. The
+ * context provides the output the program is written to, the parameters,
+ * persistent parameters and temporary parameters accessible to the program
+ * functions and the MIME type of the generated output.
+ * <p>
+ * Parameters are read-only, persistent parameters may be shared between
+ * several executions by passing the same map to several contexts and
+ * temporary parameters live only as long as this context.
+ *
+ * @author Mario Bobic
+ * @see SmartScriptInterpreter
+ */
+public class SmartScriptContext {
+
+    /** Default MIME type of the generated output. */
+    public static final String DEFAULT_MIME_TYPE = "text/html";
+
+    /** Output the program is written to. */
+    private final Appendable output;
+    /** Read-only parameters. */
+    private final Map<String, String> parameters;
+    /** Persistent parameters. */
+    private final Map<String, String> persistentParameters;
+    /** Temporary parameters. */
+    private final Map<String, String> temporaryParameters = new HashMap<>();
+    /** MIME type of the generated output. */
+    private String mimeType = DEFAULT_MIME_TYPE;
+
+    /**
+     * Constructs an instance of SmartScriptContext with the specified output
+     * and no parameters.
+     *
+     * @param output output the program is written to
+     * @throws IllegalArgumentException if <tt>output</tt> is <tt>null</tt>
+     */
+    public SmartScriptContext(Appendable output) {
+        this(output, new HashMap<String, String>(), new HashMap<String, String>());
+    }
+
+    /**
+     * Constructs an instance of SmartScriptContext with the specified output,
+     * parameters and persistent parameters.
+     *
+     * @param output output the program is written to
+     * @param parameters read-only parameters
+     * @param persistentParameters persistent parameters
+     * @throws IllegalArgumentException if any argument is <tt>null</tt>
+     */
+    public SmartScriptContext(Appendable output, Map<String, String> parameters,
+            Map<String, String> persistentParameters) {
+        if (output == null || parameters == null || persistentParameters == null) {
+            throw new IllegalArgumentException("Output and parameters must not be null.");
+        }
+        this.output = output;
+        this.parameters = parameters;
+        this.persistentParameters = persistentParameters;
+    }
+
+    /**
+     * Writes the given <tt>text</tt> to the output of this context.
+     *
+     * @param text text to be written
+     * @throws SmartScriptEngineException if an I/O error occurs
+     */
+    public void write(String text) {
+        try {
+            output.append(text);
+        } catch (IOException e) {
+            throw new SmartScriptEngineException("Unable to write output: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the output of this context.
+     *
+     * @return the output of this context
+     */
+    public Appendable getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the read-only parameters of this context.
+     *
+     * @return the read-only parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the persistent parameters of this context.
+     *
+     * @return the persistent parameters
+     */
+    public Map<String, String> getPersistentParameters() {
+        return persistentParameters;
+    }
+
+    /**
+     * Returns the temporary parameters of this context.
+     *
+     * @return the temporary parameters
+     */
+    public Map<String, String> getTemporaryParameters() {
+        return temporaryParameters;
+    }
+
+    /**
+     * Returns the MIME type of the generated output.
+     *
+     * @return the MIME type of the generated output
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Sets the MIME type of the generated output.
+     *
+     * @param mimeType the MIME type of the generated output
+     */
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+}
@@ -0,0 +1,52 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+/**
+ * Exception that is thrown if an unexpected problem occurs during the
+ * compilation or execution of a smart script.
+ *
+ * @author Mario Bobic
+ */
+public class SmartScriptEngineException extends RuntimeException {
+    /** Serialization UID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an {@code SmartScriptEngineException} with no
+     * detail message and no cause.
+     */
+    public SmartScriptEngineException() {
+        super();
+    }
+
+    /**
+     * Constructs an {@code SmartScriptEngineException} with the
+     * specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public SmartScriptEngineException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs an {@code SmartScriptEngineException} with the
+     * specified cause.
+     *
+     * @param cause the cause
+     */
+    public SmartScriptEngineException(Throwable cause) {
+        super(cause);
+    }
+
+    /**
+     * Constructs an {@code SmartScriptEngineException} with the
+     * specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause the cause
+     */
+    public SmartScriptEngineException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.text.DecimalFormat;
+import java.util.Map;
+
+/**
+ * Functions that may be called from a smart script. Each function takes its
+ * arguments from the stack and pushes its result, if any, back onto the
+ * stack. Functions are identified by their index in the {@link #NAMES}
+ * array, which is resolved once, when the program is compiled.
+ * <p>
+ * The following functions are supported:
+ * <ul>
+ * <li><tt>sin</tt> - replaces <i>x</i> with the sine of <i>x</i> degrees,
+ * <li><tt>decfmt</tt> - pops a format and replaces <i>x</i> with <i>x</i>
+ * formatted by the {@linkplain DecimalFormat},
+ * <li><tt>dup</tt> - duplicates the value on top of the stack,
+ * <li><tt>swap</tt> - swaps the two values on top of the stack,
+ * <li><tt>setMimeType</tt> - pops and sets the MIME type of the output,
+ * <li><tt>paramGet</tt>, <tt>pparamGet</tt>, <tt>tparamGet</tt> - pop a
+ * default value and a name and push the value of the parameter, persistent
+ * parameter or temporary parameter with that name, or the default value,
+ * <li><tt>pparamSet</tt>, <tt>tparamSet</tt> - pop a name and a value and set
+ * the persistent or temporary parameter,
+ * <li><tt>pparamDel</tt>, <tt>tparamDel</tt> - pop a name and remove the
+ * persistent or temporary parameter.
+ * </ul>
+ *
+ * @author Mario Bobic
+ */
+final class SmartScriptFunctions {
+
+    /** Names of the supported functions, indexed by the function index. */
+    static final String[] NAMES = {
+        "sin", "decfmt", "dup", "swap", "setMimeType", "paramGet",
+        "pparamGet", "pparamSet", "pparamDel", "tparamGet", "tparamSet", "tparamDel"
+    };
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private SmartScriptFunctions() {
+    }
+
+    /**
+     * Returns the index of the function with the given <tt>name</tt>, or
+     * <tt>-1</tt> if there is no such function.
+     *
+     * @param name function name
+     * @return the index of the function, or <tt>-1</tt>
+     */
+    static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calls the function with the given <tt>index</tt> on the given
+     * <tt>stack</tt> in the given <tt>context</tt>.
+     *
+     * @param index index of the function
+     * @param stack stack the arguments are popped from and the result pushed to
+     * @param context context in which the function is called
+     * @throws SmartScriptEngineException if the function fails
+     */
+    static void call(int index, ValueStack stack, SmartScriptContext context) {
+        switch (index) {
+        case 0: // sin
+            stack.pushDouble(Math.sin(Math.toRadians(stack.popDouble())));
+            break;
+        case 1: { // decfmt
+            DecimalFormat format = new DecimalFormat(stack.pop().toString());
+            stack.push(format.format(stack.popDouble()));
+            break;
+        }
+        case 2: // dup
+            stack.dup();
+            break;
+        case 3: // swap
+            stack.swap();
+            break;
+        case 4: // setMimeType
+            context.setMimeType(stack.pop().toString());
+            break;
+        case 5: // paramGet
+            getParameter(context.getParameters(), stack);
+            break;
+        case 6: // pparamGet
+            getParameter(context.getPersistentParameters(), stack);
+            break;
+        case 7: // pparamSet
+            setParameter(context.getPersistentParameters(), stack);
+            break;
+        case 8: // pparamDel
+            context.getPersistentParameters().remove(stack.pop().toString());
+            break;
+        case 9: // tparamGet
+            getParameter(context.getTemporaryParameters(), stack);
+            break;
+        case 10: // tparamSet
+            setParameter(context.getTemporaryParameters(), stack);
+            break;
+        case 11: // tparamDel
+            context.getTemporaryParameters().remove(stack.pop().toString());
+            break;
+        default:
+            throw new SmartScriptEngineException("Unknown function index: " + index);
+        }
+    }
+
+    /**
+     * Pops a default value and a name and pushes the value of the parameter
+     * with that name, or the default value if there is no such parameter.
+     *
+     * @param parameters parameters to be read
+     * @param stack stack the arguments are popped from and the result pushed to
+     */
+    private static void getParameter(Map<String, String> parameters, ValueStack stack) {
+        Object defaultValue = stack.pop();
+        String value = parameters.get(stack.pop().toString());
+        stack.push(value == null ? defaultValue : value);
+    }
+
+    /**
+     * Pops a name and a value and sets the parameter with that name.
+     *
+     * @param parameters parameters to be modified
+     * @param stack stack the arguments are popped from
+     */
+    private static void setParameter(Map<String, String> parameters, ValueStack stack) {
+        String name = stack.pop().toString();
+        parameters.put(name, stack.pop().toString());
+    }
+
+}
@@ -0,0 +1,160 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import static hr.fer.zemris.java.custom.scripting.exec.SmartScriptProgram.*;
+
+import hr.fer.zemris.java.custom.collections.EmptyStackException;
+
+/**
+ * An interpreter of compiled {@linkplain SmartScriptProgram programs}. The
+ * interpreter executes the instructions of a program in a single loop, without
+ * recursion and without visiting any nodes of the document the program was
+ * compiled from.
+ * <p>
+ * Values are evaluated on a {@linkplain ValueStack} and are integers, doubles
+ * or strings. Numbers are kept unboxed, both on the stack and in the variables,
+ * which are stored in the slots reserved at the bottom of the stack, so
+ * evaluating arithmetic expressions and running loops allocates nothing.
+ * Operators <tt>+</tt>, <tt>-</tt>, <tt>*</tt>, <tt>/</tt> and <tt>^</tt> pop
+ * their right and then their left operand and push the result.
+ * <p>
+ * A FOR loop assigns its start value to the loop variable and executes its body
+ * while the variable is less than or equal to its end value, incrementing the
+ * variable by its step value after each iteration.
+ *
+ * @author Mario Bobic
+ * @see SmartScriptProgram
+ * @see SmartScriptContext
+ */
+public class SmartScriptInterpreter {
+
+    /** Program executed by this interpreter. */
+    private final SmartScriptProgram program;
+
+    /**
+     * Constructs an instance of SmartScriptInterpreter that executes the given
+     * <tt>program</tt>.
+     *
+     * @param program program to be executed
+     * @throws IllegalArgumentException if <tt>program</tt> is <tt>null</tt>
+     */
+    public SmartScriptInterpreter(SmartScriptProgram program) {
+        if (program == null) {
+            throw new IllegalArgumentException("Program must not be null.");
+        }
+        this.program = program;
+    }
+
+    /**
+     * Executes the program of this interpreter in the given <tt>context</tt>.
+     *
+     * @param context context in which the program is executed
+     * @throws IllegalArgumentException if <tt>context</tt> is <tt>null</tt>
+     * @throws SmartScriptEngineException if the execution fails
+     */
+    public void execute(SmartScriptContext context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Context must not be null.");
+        }
+
+        int[] code = program.code;
+        Object[] constants = program.constants;
+        ValueStack stack = new ValueStack();
+        StringBuilder sb = new StringBuilder();
+
+        // variables are stored in the slots below the evaluated values
+        int base = program.slots.length;
+        stack.reserve(base);
+
+        int pc = 0;
+        try {
+            while (pc < code.length) {
+                switch (code[pc]) {
+                case TEXT:
+                    context.write((String) constants[code[pc+1]]);
+                    pc += 2;
+                    break;
+                case PUSH_CONST:
+                    stack.push(constants[code[pc+1]]);
+                    pc += 2;
+                    break;
+                case LOAD_VAR:
+                    loadVariable(stack, code[pc+1]);
+                    pc += 2;
+                    break;
+                case CALL_FUNCTION:
+                    SmartScriptFunctions.call(code[pc+1], stack, context);
+                    pc += 2;
+                    break;
+                case OPERATOR:
+                    stack.applyOperator((char) code[pc+1]);
+                    pc += 2;
+                    break;
+                case ECHO:
+                    sb.setLength(0);
+                    stack.appendTo(sb, base);
+                    stack.truncate(base);
+                    context.write(sb.toString());
+                    pc += 1;
+                    break;
+                case LOOP_BEGIN: {
+                    int variable = code[pc+1];
+                    int bounds = code[pc+2];
+                    stack.store(bounds+1);
+                    stack.store(bounds);
+                    stack.store(variable);
+                    checkStep(stack, bounds+1);
+                    pc = stack.compare(variable, bounds) > 0 ? code[pc+3] : pc + 4;
+                    break;
+                }
+                case LOOP_END: {
+                    int variable = code[pc+1];
+                    int bounds = code[pc+2];
+                    boolean next = stack.increment(variable, bounds+1, bounds);
+                    pc = next ? code[pc+3] : pc + 4;
+                    break;
+                }
+                default:
+                    throw new SmartScriptEngineException("Unknown instruction: " + code[pc]);
+                }
+            }
+        } catch (EmptyStackException e) {
+            throw new SmartScriptEngineException("Not enough values on stack.", e);
+        }
+    }
+
+    /**
+     * Checks that the loop step in the given <tt>slot</tt> is positive. The
+     * loop runs while its variable is not greater than the end value, so a
+     * loop with a step that is not positive would never end.
+     *
+     * @param stack stack whose bottom slots hold the variables
+     * @param slot index of the loop step slot
+     * @throws SmartScriptEngineException if the step is not positive
+     */
+    private static void checkStep(ValueStack stack, int slot) {
+        int zero = stack.size();
+        stack.pushInt(0);
+        boolean positive = stack.compare(slot, zero) > 0;
+        stack.truncate(zero);
+
+        if (!positive) {
+            throw new SmartScriptEngineException("Loop step must be positive: " + stack.get(slot));
+        }
+    }
+
+    /**
+     * Pushes the value of the variable in the given <tt>slot</tt> onto the
+     * given <tt>stack</tt>.
+     *
+     * @param stack stack whose bottom slots hold the variables
+     * @param slot index of the variable slot
+     * @throws SmartScriptEngineException if the variable is not set
+     */
+    private void loadVariable(ValueStack stack, int slot) {
+        if (stack.typeAt(slot) == ValueStack.NONE) {
+            throw new SmartScriptEngineException("Variable is not set: " + program.slots[slot]);
+        }
+        stack.load(slot);
+    }
+
+}
@@ -0,0 +1,121 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+
+/**
+ * A smart script document compiled into a flat instruction program. Programs
+ * are created by the {@linkplain SmartScriptCompiler} and executed by the
+ * {@linkplain SmartScriptInterpreter}. A program is immutable and may be
+ * executed any number of times, even concurrently.
+ * <p>
+ * The instructions are stored in a single <tt>int</tt> array, each instruction
+ * being an opcode followed by a fixed number of operands. Operands refer to
+ * the constant pool of the program, to variable slots or to other instructions
+ * of the program. The following instructions are supported:
+ * <ul>
+ * <li>{@link #TEXT} <i>constant</i> - writes a text constant to the output,
+ * <li>{@link #PUSH_CONST} <i>constant</i> - pushes a constant onto the stack,
+ * <li>{@link #LOAD_VAR} <i>slot</i> - pushes the value of a variable onto the
+ * stack,
+ * <li>{@link #CALL_FUNCTION} <i>function</i> - calls a function on the stack,
+ * <li>{@link #OPERATOR} <i>symbol</i> - applies an operator to the two values
+ * on top of the stack,
+ * <li>{@link #ECHO} - writes all of the values on the stack to the output and
+ * empties the stack,
+ * <li>{@link #LOOP_BEGIN} <i>slot bounds exit</i> - pops the step, the end and
+ * the start value of a loop, sets the loop variable and jumps to the
+ * <i>exit</i> instruction if the loop has no iterations,
+ * <li>{@link #LOOP_END} <i>slot bounds body</i> - increments the loop
+ * variable and jumps back to the <i>body</i> instruction if the loop has more
+ * iterations. The variable is left unchanged if the increment would pass the
+ * end value.
+ * </ul>
+ * The end and the step value of a loop are stored in two hidden variable slots
+ * starting from the <i>bounds</i> slot.
+ *
+ * @author Mario Bobic
+ * @see SmartScriptCompiler
+ * @see SmartScriptInterpreter
+ */
+public final class SmartScriptProgram {
+
+    /** Writes a text constant to the output. */
+    public static final int TEXT = 0;
+    /** Pushes a constant onto the stack. */
+    public static final int PUSH_CONST = 1;
+    /** Pushes the value of a variable onto the stack. */
+    public static final int LOAD_VAR = 2;
+    /** Calls a function on the stack. */
+    public static final int CALL_FUNCTION = 3;
+    /** Applies an operator to the two values on top of the stack. */
+    public static final int OPERATOR = 4;
+    /** Writes all of the values on the stack to the output. */
+    public static final int ECHO = 5;
+    /** Begins a loop, jumping past its end if it has no iterations. */
+    public static final int LOOP_BEGIN = 6;
+    /** Ends a loop iteration, jumping back to its body if not finished. */
+    public static final int LOOP_END = 7;
+
+    /** Instructions of this program. */
+    final int[] code;
+    /** Constant pool of this program. */
+    final Object[] constants;
+    /** Names of the variable slots, or <tt>null</tt> for hidden slots. */
+    final String[] slots;
+
+    /**
+     * Constructs an instance of SmartScriptProgram with the given
+     * instructions, constant pool and variable slots.
+     *
+     * @param code instructions of the program
+     * @param constants constant pool of the program
+     * @param slots names of the variable slots
+     */
+    SmartScriptProgram(int[] code, Object[] constants, String[] slots) {
+        this.code = code;
+        this.constants = constants;
+        this.slots = slots;
+    }
+
+    /**
+     * Compiles the given <tt>document</tt> into a program. This is a shortcut
+     * for the {@linkplain SmartScriptCompiler#compile(DocumentNode)} method.
+     *
+     * @param document document to be compiled
+     * @return a program compiled from the document
+     * @throws SmartScriptEngineException if the document can not be compiled
+     */
+    public static SmartScriptProgram compile(DocumentNode document) {
+        return SmartScriptCompiler.compile(document);
+    }
+
+    /**
+     * Returns the number of <tt>int</tt> values in the instruction array of
+     * this program.
+     *
+     * @return the length of this program
+     */
+    public int length() {
+        return code.length;
+    }
+
+    /**
+     * Returns the number of constants in the constant pool of this program.
+     *
+     * @return the number of constants in this program
+     */
+    public int numberOfConstants() {
+        return constants.length;
+    }
+
+    /**
+     * Returns the number of variable slots, including the hidden ones, used
+     * by this program.
+     *
+     * @return the number of variable slots in this program
+     */
+    public int numberOfSlots() {
+        return slots.length;
+    }
+
+}
@@ -0,0 +1,590 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.Arrays;
+
+import hr.fer.zemris.java.custom.collections.EmptyStackException;
+
+/**
+ * A stack of values used for evaluating smart script expressions. Unlike the
+ * {@linkplain hr.fer.zemris.java.custom.collections.ObjectStack ObjectStack},
+ * this stack keeps integer and double values unboxed in primitive arrays, with
+ * a parallel array of type tags telling which of the arrays holds the value at
+ * each position. Only strings and other objects are kept as references, so
+ * pushing, popping and applying operators to numbers allocates nothing.
+ * <p>
+ * Values below the top of the stack may be addressed by their index, starting
+ * from <tt>0</tt> at the bottom of the stack. This makes it possible to
+ * {@linkplain #reserve(int) reserve} a number of slots at the bottom of the
+ * stack and use them as unboxed variables. The reserved slots can be
+ * {@linkplain #load(int) loaded} and {@linkplain #store(int) stored}, but are
+ * never popped.
+ * <p>
+ * Strings used as numbers are converted into integers if they contain no
+ * decimal point nor exponent, and into doubles otherwise. If both operands of
+ * an operator are integers, the result is an integer, except for the
+ * <tt>^</tt> operator whose result is always a double. Otherwise the result is
+ * a double. Integer results that do not fit into an <tt>int</tt> are reported
+ * as an error instead of silently wrapping around.
+ *
+ * @author Mario Bobic
+ */
+public class ValueStack {
+
+    /** Type of a reserved slot that has no value. */
+    public static final byte NONE = 0;
+    /** Type of an integer value. */
+    public static final byte INTEGER = 1;
+    /** Type of a double value. */
+    public static final byte DOUBLE = 2;
+    /** Type of a string or any other object. */
+    public static final byte OBJECT = 3;
+
+    /** Default capacity of the stack. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Types of the values on the stack. */
+    private byte[] types;
+    /** Integer values on the stack. */
+    private long[] longs;
+    /** Double values on the stack. */
+    private double[] doubles;
+    /** Object values on the stack. */
+    private Object[] objects;
+    /** Number of values on the stack. */
+    private int size;
+    /** Number of reserved slots at the bottom of the stack. */
+    private int reserved;
+
+    /**
+     * Constructs a new empty instance of ValueStack with the default capacity.
+     */
+    public ValueStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty instance of ValueStack with the specified initial
+     * capacity.
+     *
+     * @param initialCapacity initial capacity of the stack
+     * @throws IllegalArgumentException if the initial capacity is less than 1
+     */
+    public ValueStack(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException(
+                "Initial capacity must not be less than 1: " + initialCapacity);
+        }
+        types = new byte[initialCapacity];
+        longs = new long[initialCapacity];
+        doubles = new double[initialCapacity];
+        objects = new Object[initialCapacity];
+    }
+
+    /**
+     * Returns true if this stack contains no values above the reserved slots.
+     * False otherwise.
+     *
+     * @return true if this stack contains zero values
+     */
+    public boolean isEmpty() {
+        return size == reserved;
+    }
+
+    /**
+     * Returns the number of values on this stack, including the reserved slots.
+     *
+     * @return the number of values on this stack
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values and all reserved slots from this stack.
+     */
+    public void clear() {
+        reserved = 0;
+        truncate(0);
+    }
+
+    /**
+     * Removes all values above the given <tt>size</tt> from this stack. The
+     * reserved slots are never removed.
+     *
+     * @param size new size of this stack
+     * @throws IndexOutOfBoundsException if the new size is invalid
+     */
+    public void truncate(int size) {
+        if (size < reserved || size > this.size) {
+            throw new IndexOutOfBoundsException(
+                "Size: " + size + ", Reserved: " + reserved + ", Current size: " + this.size);
+        }
+        Arrays.fill(objects, size, this.size, null);
+        this.size = size;
+    }
+
+    /**
+     * Reserves the given <tt>count</tt> of slots with no value at the bottom of
+     * the stack. Slots may only be reserved while there are no values above the
+     * already reserved slots.
+     *
+     * @param count number of slots to be reserved
+     * @throws IllegalStateException if there are values above the reserved
+     *         slots
+     */
+    public void reserve(int count) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("Slots must be reserved on an empty stack.");
+        }
+        ensureCapacity(size + count);
+        Arrays.fill(types, size, size + count, NONE);
+        size += count;
+        reserved = size;
+    }
+
+    /**
+     * Pushes the given integer value onto the stack.
+     *
+     * @param value value to be pushed
+     */
+    public void pushInt(int value) {
+        ensureCapacity(size + 1);
+        types[size] = INTEGER;
+        longs[size] = value;
+        size++;
+    }
+
+    /**
+     * Pushes the given double value onto the stack.
+     *
+     * @param value value to be pushed
+     */
+    public void pushDouble(double value) {
+        ensureCapacity(size + 1);
+        types[size] = DOUBLE;
+        doubles[size] = value;
+        size++;
+    }
+
+    /**
+     * Pushes the given value onto the stack. {@linkplain Integer} and
+     * {@linkplain Double} values are unboxed.
+     *
+     * @param value value to be pushed
+     * @throws IllegalArgumentException if the value is <tt>null</tt>
+     */
+    public void push(Object value) {
+        if (value instanceof Integer) {
+            pushInt((Integer) value);
+        } else if (value instanceof Double) {
+            pushDouble((Double) value);
+        } else if (value == null) {
+            throw new IllegalArgumentException("Value must not be null.");
+        } else {
+            ensureCapacity(size + 1);
+            types[size] = OBJECT;
+            objects[size] = value;
+            size++;
+        }
+    }
+
+    /**
+     * Removes the value on top of the stack and returns it, boxing it if it is
+     * a number.
+     *
+     * @return the value on top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    public Object pop() {
+        Object value = peek();
+        objects[--size] = null;
+        return value;
+    }
+
+    /**
+     * Removes the value on top of the stack and returns it as a double.
+     *
+     * @return the value on top of the stack as a double
+     * @throws EmptyStackException if the stack is empty
+     * @throws SmartScriptEngineException if the value is not a number
+     */
+    public double popDouble() {
+        checkNotEmpty(1);
+        toNumber(size-1);
+        size--;
+        return types[size] == INTEGER ? longs[size] : doubles[size];
+    }
+
+    /**
+     * Returns the value on top of the stack without removing it, boxing it if
+     * it is a number.
+     *
+     * @return the value on top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    public Object peek() {
+        checkNotEmpty(1);
+        return get(size-1);
+    }
+
+    /**
+     * Returns the type of the value at the given <tt>index</tt>.
+     *
+     * @param index index of the value
+     * @return the type of the value
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public byte typeAt(int index) {
+        checkIndex(index, size);
+        return types[index];
+    }
+
+    /**
+     * Returns the value at the given <tt>index</tt>, boxing it if it is a
+     * number.
+     *
+     * @param index index of the value
+     * @return the value at the given index, or <tt>null</tt> for a slot with
+     *         no value
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public Object get(int index) {
+        checkIndex(index, size);
+        switch (types[index]) {
+        case INTEGER:
+            return (int) longs[index];
+        case DOUBLE:
+            return doubles[index];
+        default:
+            return objects[index];
+        }
+    }
+
+    /**
+     * Pushes a copy of the value at the given <tt>index</tt> onto the stack.
+     *
+     * @param index index of the value
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public void load(int index) {
+        checkIndex(index, size);
+        ensureCapacity(size + 1);
+        copy(index, size);
+        size++;
+    }
+
+    /**
+     * Removes the value on top of the stack and stores it at the given
+     * <tt>index</tt>.
+     *
+     * @param index index where the value is stored
+     * @throws EmptyStackException if the stack is empty
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public void store(int index) {
+        checkNotEmpty(1);
+        checkIndex(index, size-1);
+        size--;
+        copy(size, index);
+        objects[size] = null;
+    }
+
+    /**
+     * Duplicates the value on top of the stack.
+     *
+     * @throws EmptyStackException if the stack is empty
+     */
+    public void dup() {
+        checkNotEmpty(1);
+        load(size-1);
+    }
+
+    /**
+     * Swaps the two values on top of the stack.
+     *
+     * @throws EmptyStackException if there are less than two values
+     */
+    public void swap() {
+        checkNotEmpty(2);
+        ensureCapacity(size + 1);
+        copy(size-1, size);
+        copy(size-2, size-1);
+        copy(size, size-2);
+        objects[size] = null;
+    }
+
+    /**
+     * Removes the two values on top of the stack, applies the operator with the
+     * given <tt>symbol</tt> to them and pushes the result. The value on top of
+     * the stack is the right operand.
+     *
+     * @param symbol operator symbol
+     * @throws EmptyStackException if there are less than two values
+     * @throws SmartScriptEngineException if the operation fails
+     */
+    public void applyOperator(char symbol) {
+        checkNotEmpty(2);
+        int left = size-2;
+        int right = size-1;
+        toNumber(left);
+        toNumber(right);
+
+        if (types[left] == INTEGER && types[right] == INTEGER && symbol != '^') {
+            long a = longs[left];
+            long b = longs[right];
+            long result;
+            switch (symbol) {
+            case '+': result = a + b; break;
+            case '-': result = a - b; break;
+            case '*': result = a * b; break;
+            case '/':
+                if (b == 0) {
+                    throw new SmartScriptEngineException("Division by zero.");
+                }
+                result = a / b;
+                break;
+            default:
+                throw new SmartScriptEngineException("Unknown operator: " + symbol);
+            }
+            // operands are ints, so the long result is always exact
+            if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+                throw new SmartScriptEngineException("Integer overflow: " + a + " " + symbol + " " + b);
+            }
+            longs[left] = result;
+        } else {
+            double a = doubleAt(left);
+            double b = doubleAt(right);
+            switch (symbol) {
+            case '+': doubles[left] = a + b; break;
+            case '-': doubles[left] = a - b; break;
+            case '*': doubles[left] = a * b; break;
+            case '/': doubles[left] = a / b; break;
+            case '^': doubles[left] = Math.pow(a, b); break;
+            default:
+                throw new SmartScriptEngineException("Unknown operator: " + symbol);
+            }
+            types[left] = DOUBLE;
+        }
+
+        size--;
+    }
+
+    /**
+     * Adds the value at the <tt>increment</tt> index to the value at the
+     * <tt>index</tt> index, storing the result at the <tt>index</tt> index, but
+     * only if the result is not greater than the value at the <tt>bound</tt>
+     * index. Otherwise the value at the <tt>index</tt> index is left unchanged.
+     * <p>
+     * The sum is compared before it is stored, so a value close to the largest
+     * integer is never incremented past it.
+     *
+     * @param index index of the value to be incremented
+     * @param increment index of the increment
+     * @param bound index of the inclusive upper bound
+     * @return <tt>true</tt> if the value was incremented, <tt>false</tt> if
+     *         the result would be greater than the bound
+     * @throws IndexOutOfBoundsException if an index is invalid
+     * @throws SmartScriptEngineException if a value is not a number
+     */
+    public boolean increment(int index, int increment, int bound) {
+        checkIndex(index, size);
+        checkIndex(increment, size);
+        checkIndex(bound, size);
+
+        // convert copies, so the increment and the bound keep their types
+        int value = size;
+        int step = size+1;
+        int limit = size+2;
+        ensureCapacity(size + 3);
+        copy(index, value);
+        copy(increment, step);
+        copy(bound, limit);
+        try {
+            toNumber(value);
+            toNumber(step);
+            toNumber(limit);
+
+            if (types[value] == INTEGER && types[step] == INTEGER) {
+                // int operands, so the long sum can not overflow
+                long sum = longs[value] + longs[step];
+                boolean greater = types[limit] == INTEGER
+                        ? sum > longs[limit]
+                        : sum > doubles[limit];
+                if (greater) {
+                    return false;
+                }
+                longs[value] = sum;
+            } else {
+                double sum = doubleAt(value) + doubleAt(step);
+                if (sum > doubleAt(limit)) {
+                    return false;
+                }
+                doubles[value] = sum;
+                types[value] = DOUBLE;
+            }
+            copy(value, index);
+            return true;
+        } finally {
+            objects[value] = null;
+            objects[step] = null;
+            objects[limit] = null;
+        }
+    }
+
+    /**
+     * Compares the values at the given indexes as numbers.
+     *
+     * @param i index of the left value
+     * @param j index of the right value
+     * @return a negative integer, zero, or a positive integer as the left value
+     *         is less than, equal to, or greater than the right value
+     * @throws IndexOutOfBoundsException if an index is invalid
+     * @throws SmartScriptEngineException if a value is not a number
+     */
+    public int compare(int i, int j) {
+        checkIndex(i, size);
+        checkIndex(j, size);
+
+        // convert copies, so the compared values keep their types
+        int left = size;
+        int right = size+1;
+        ensureCapacity(size + 2);
+        copy(i, left);
+        copy(j, right);
+        try {
+            toNumber(left);
+            toNumber(right);
+
+            if (types[left] == INTEGER && types[right] == INTEGER) {
+                return Long.compare(longs[left], longs[right]);
+            }
+            return Double.compare(doubleAt(left), doubleAt(right));
+        } finally {
+            objects[left] = null;
+            objects[right] = null;
+        }
+    }
+
+    /**
+     * Appends the values starting from the given <tt>index</tt> up to the top
+     * of the stack to the given string builder, from the bottom to the top.
+     *
+     * @param sb string builder the values are appended to
+     * @param index index of the first value to be appended
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public void appendTo(StringBuilder sb, int index) {
+        checkIndex(index, size+1);
+        for (int i = index; i < size; i++) {
+            switch (types[i]) {
+            case INTEGER:
+                sb.append((int) longs[i]);
+                break;
+            case DOUBLE:
+                sb.append(doubles[i]);
+                break;
+            default:
+                sb.append(objects[i]);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Converts the value at the given <tt>index</tt> into a number if it is a
+     * string or any other object.
+     *
+     * @param index index of the value
+     * @throws SmartScriptEngineException if the value is not a number
+     */
+    private void toNumber(int index) {
+        if (types[index] == INTEGER || types[index] == DOUBLE) {
+            return;
+        }
+        if (types[index] == NONE) {
+            throw new SmartScriptEngineException("Value is not set.");
+        }
+
+        String s = objects[index].toString();
+        try {
+            if (s.indexOf('.') == -1 && s.indexOf('e') == -1 && s.indexOf('E') == -1) {
+                longs[index] = Integer.parseInt(s);
+                types[index] = INTEGER;
+            } else {
+                doubles[index] = Double.parseDouble(s);
+                types[index] = DOUBLE;
+            }
+        } catch (NumberFormatException e) {
+            throw new SmartScriptEngineException("Value is not a number: " + s, e);
+        }
+        objects[index] = null;
+    }
+
+    /**
+     * Returns the number at the given <tt>index</tt> as a double.
+     *
+     * @param index index of the number
+     * @return the number as a double
+     */
+    private double doubleAt(int index) {
+        return types[index] == INTEGER ? longs[index] : doubles[index];
+    }
+
+    /**
+     * Copies the value from the <tt>source</tt> index to the
+     * <tt>destination</tt> index.
+     *
+     * @param source index of the value to be copied
+     * @param destination index the value is copied to
+     */
+    private void copy(int source, int destination) {
+        types[destination] = types[source];
+        longs[destination] = longs[source];
+        doubles[destination] = doubles[source];
+        objects[destination] = objects[source];
+    }
+
+    /**
+     * Throws an {@linkplain EmptyStackException} if there are less than the
+     * given <tt>count</tt> of values on this stack.
+     *
+     * @param count number of values required
+     * @throws EmptyStackException if there are not enough values
+     */
+    private void checkNotEmpty(int count) {
+        if (size - reserved < count) {
+            throw new EmptyStackException("Stack has less than " + count + " values.");
+        }
+    }
+
+    /**
+     * Throws an {@linkplain IndexOutOfBoundsException} if the given
+     * <tt>index</tt> is not in range [0, bound&gt;.
+     *
+     * @param index index to be checked
+     * @param bound exclusive upper bound of the index
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Bound: " + bound);
+        }
+    }
+
+    /**
+     * Enlarges the backing arrays of this stack if they can not hold the given
+     * <tt>capacity</tt> of values.
+     *
+     * @param capacity number of values the stack must be able to hold
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > types.length) {
+            int newCapacity = Math.max(2*types.length, capacity);
+            types = Arrays.copyOf(types, newCapacity);
+            longs = Arrays.copyOf(longs, newCapacity);
+            doubles = Arrays.copyOf(doubles, newCapacity);
+            objects = Arrays.copyOf(objects, newCapacity);
+        }
+    }
+
+}
@@ -0,0 +1,469 @@
+package hr.fer.zemris.java.custom.scripting.generator;
+
+import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAndMethods.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+
+/**
+ * A generator of synthetic smart script documents for load and scaling tests.
+ * Every generated document is valid and can be parsed by the
+ * {@linkplain SmartScriptParser}. Documents are fully determined by the seed
+ * given to the constructor and by the settings of the generator, so the same
+ * document is generated every time for the same seed and settings.
+ * <p>
+ * A document is a random sequence of texts, ECHO tags and FOR loops, generated
+ * until it reaches the requested size, after which all open FOR loops are
+ * closed. The shape of the document is controlled by the following settings:
+ * <ul>
+ * <li><b>maximum depth</b> - the maximum number of nested FOR loops,
+ * <li><b>maximum echo length</b> - the maximum number of elements in an ECHO
+ * tag,
+ * <li><b>escape density</b> - the probability that a character of a text or a
+ * string is an escape sequence (<tt>\{</tt> and <tt>\\</tt> in texts,
+ * <tt>\"</tt>, <tt>\\</tt>, <tt>\n</tt>, <tt>\r</tt> and <tt>\t</tt> in
+ * strings),
+ * <li><b>whitespace noise</b> - the probability that the whitespace around the
+ * elements of a tag is a run of spaces, tabs and newlines instead of a single
+ * space, as in the <tt>doc2.txt</tt> example.
+ * </ul>
+ * The generator may be used as a library, by calling one of the
+ * <tt>generate</tt> methods, or from the command line, in which case it
+ * streams the generated document to a file. The command line arguments are the
+ * path of the output file, the size of the document in characters, an optional
+ * seed and optional settings given as <tt>--depth=N</tt>, <tt>--echo=N</tt>,
+ * <tt>--escapes=P</tt> and <tt>--noise=P</tt>.
+ *
+ * @author Mario Bobic
+ */
+public class SmartScriptGenerator {
+
+    /** Default maximum number of nested FOR loops. */
+    public static final int DEFAULT_MAX_DEPTH = 3;
+    /** Default maximum number of elements in an ECHO tag. */
+    public static final int DEFAULT_MAX_ECHO_LENGTH = 6;
+    /** Default probability of an escape sequence. */
+    public static final double DEFAULT_ESCAPE_DENSITY = 0.02;
+    /** Default probability of a whitespace run in a tag. */
+    public static final double DEFAULT_WHITESPACE_NOISE = 0.1;
+
+    /** Words the texts are made of. */
+    private static final String[] WORDS = {
+        "This", "is", "sample", "text", "time", "message", "generated",
+        "{", "}", "$", "sum", "of", "numbers", "=", "(", ")", "-th", "\u010D\u0107\u017E"
+    };
+    /** Variable names. */
+    private static final String[] VARIABLES = { "i", "j", "k", "a_1", "counter", "x" };
+    /** Function names. */
+    private static final String[] FUNCTIONS = {
+        "sin", "decfmt", "dup", "swap", "setMimeType", "paramGet", "tparamSet"
+    };
+    /** Escape sequences in strings. */
+    private static final String[] STRING_ESCAPES = { "\\\"", "\\\\", "\\n", "\\r", "\\t" };
+    /** Whitespace characters of a whitespace run. */
+    private static final String WHITESPACES = " \t\r\n";
+    /** Maximum length of a whitespace run. */
+    private static final int MAX_WHITESPACE_RUN = 12;
+    /** Maximum number of words in a text. */
+    private static final int MAX_TEXT_WORDS = 12;
+    /** Maximum length of a string element, without quotation marks. */
+    private static final int MAX_STRING_LENGTH = 10;
+    /** Probability of starting a FOR loop, if the maximum depth allows it. */
+    private static final double FOR_PROBABILITY = 0.15;
+    /** Probability of ending a FOR loop, if there is one to end. */
+    private static final double END_PROBABILITY = 0.15;
+    /** Probability of a text, otherwise an ECHO tag is generated. */
+    private static final double TEXT_PROBABILITY = 0.5;
+
+    /** Seed of the generated documents. */
+    private final long seed;
+    /** Maximum number of nested FOR loops. */
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    /** Maximum number of elements in an ECHO tag. */
+    private int maxEchoLength = DEFAULT_MAX_ECHO_LENGTH;
+    /** Probability of an escape sequence. */
+    private double escapeDensity = DEFAULT_ESCAPE_DENSITY;
+    /** Probability of a whitespace run in a tag. */
+    private double whitespaceNoise = DEFAULT_WHITESPACE_NOISE;
+
+    /** Random generator of the document being generated. */
+    private Random random;
+    /** Output of the document being generated. */
+    private Appendable out;
+    /** Number of characters written to the output. */
+    private long written;
+
+    /**
+     * Constructs an instance of SmartScriptGenerator with the specified seed
+     * and the default settings.
+     *
+     * @param seed seed of the generated documents
+     */
+    public SmartScriptGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Program entry point.
+     *
+     * @param args path of the output file, size, optional seed and settings
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Expected arguments: output-file size [seed] "
+                    + "[--depth=N] [--echo=N] [--escapes=P] [--noise=P]");
+            System.exit(1);
+        }
+
+        Path path = Paths.get(args[0]);
+        SmartScriptGenerator generator;
+        long size;
+        try {
+            size = Long.parseLong(args[1]);
+            int i = 2;
+            long seed = 0;
+            if (args.length > 2 && !args[2].startsWith("--")) {
+                seed = Long.parseLong(args[2]);
+                i++;
+            }
+
+            generator = new SmartScriptGenerator(seed);
+            for (; i < args.length; i++) {
+                generator.applyOption(args[i]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            generator.generate(writer, size);
+        } catch (IOException e) {
+            System.err.println("Unable to write document: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Applies the given command line option of form <tt>--name=value</tt>.
+     *
+     * @param option option to be applied
+     * @throws IllegalArgumentException if the option is invalid
+     */
+    private void applyOption(String option) {
+        int eq = option.indexOf('=');
+        if (!option.startsWith("--") || eq == -1) {
+            throw new IllegalArgumentException(option);
+        }
+
+        String name = option.substring(2, eq);
+        String value = option.substring(eq + 1);
+        switch (name) {
+        case "depth":
+            setMaxDepth(Integer.parseInt(value));
+            break;
+        case "echo":
+            setMaxEchoLength(Integer.parseInt(value));
+            break;
+        case "escapes":
+            setEscapeDensity(Double.parseDouble(value));
+            break;
+        case "noise":
+            setWhitespaceNoise(Double.parseDouble(value));
+            break;
+        default:
+            throw new IllegalArgumentException(option);
+        }
+    }
+
+    /**
+     * Sets the maximum number of nested FOR loops.
+     *
+     * @param maxDepth maximum number of nested FOR loops
+     * @throws IllegalArgumentException if <tt>maxDepth</tt> is negative
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Sets the maximum number of elements in an ECHO tag.
+     *
+     * @param maxEchoLength maximum number of elements in an ECHO tag
+     * @throws IllegalArgumentException if <tt>maxEchoLength</tt> is less than 1
+     */
+    public void setMaxEchoLength(int maxEchoLength) {
+        if (maxEchoLength < 1) {
+            throw new IllegalArgumentException(
+                "Maximum echo length must not be less than 1: " + maxEchoLength);
+        }
+        this.maxEchoLength = maxEchoLength;
+    }
+
+    /**
+     * Sets the probability that a character of a text or a string is an escape
+     * sequence.
+     *
+     * @param escapeDensity probability of an escape sequence
+     * @throws IllegalArgumentException if the probability is not in [0, 1]
+     */
+    public void setEscapeDensity(double escapeDensity) {
+        this.escapeDensity = checkProbability(escapeDensity);
+    }
+
+    /**
+     * Sets the probability that the whitespace around the elements of a tag is
+     * a run of whitespace characters instead of a single space.
+     *
+     * @param whitespaceNoise probability of a whitespace run
+     * @throws IllegalArgumentException if the probability is not in [0, 1]
+     */
+    public void setWhitespaceNoise(double whitespaceNoise) {
+        this.whitespaceNoise = checkProbability(whitespaceNoise);
+    }
+
+    /**
+     * Returns a generated document of at least the given <tt>size</tt> in
+     * characters.
+     *
+     * @param size minimal size of the document
+     * @return a generated document
+     */
+    public String generate(long size) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            generate(sb, size);
+        } catch (IOException e) {
+            // never thrown by a string builder
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates a document of at least the given <tt>size</tt> in characters
+     * and writes it to the given output. The document is written as it is
+     * generated, so documents of any size may be generated.
+     *
+     * @param out output the document is written to
+     * @param size minimal size of the document
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void generate(Appendable out, long size) throws IOException {
+        this.random = new Random(seed);
+        this.out = out;
+        this.written = 0;
+
+        int depth = 0;
+        while (written < size) {
+            double r = random.nextDouble();
+            if (depth < maxDepth && r < FOR_PROBABILITY) {
+                writeFor(depth);
+                depth++;
+            } else if (depth > 0 && r < FOR_PROBABILITY + END_PROBABILITY) {
+                writeEnd();
+                depth--;
+            } else if (random.nextDouble() < TEXT_PROBABILITY) {
+                writeText();
+            } else {
+                writeEcho(depth);
+            }
+        }
+        for (; depth > 0; depth--) {
+            writeEnd();
+        }
+
+        this.random = null;
+        this.out = null;
+    }
+
+    /**
+     * Writes a text of random words, adding escape sequences before the words
+     * with the escape density.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeText() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + random.nextInt(MAX_TEXT_WORDS);
+        for (int i = 0; i < words; i++) {
+            if (random.nextDouble() < escapeDensity) {
+                sb.append(ESCAPE_CHAR).append(random.nextBoolean() ? ESCAPE_CHAR : '{');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            sb.append(random.nextInt(8) == 0 ? "\n" : " ");
+        }
+
+        // words are separated by whitespace, so they never open a tag
+        write(sb.toString());
+    }
+
+    /**
+     * Writes an ECHO tag with random elements.
+     *
+     * @param depth number of open FOR loops
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeEcho(int depth) throws IOException {
+        write(TAG_OPENING);
+        writeWhitespace(false);
+        write(ECHO);
+
+        int elements = 1 + random.nextInt(maxEchoLength);
+        for (int i = 0; i < elements; i++) {
+            writeWhitespace(true);
+            switch (random.nextInt(6)) {
+            case 0:
+                write(FUNCTION_MARK + FUNCTIONS[random.nextInt(FUNCTIONS.length)]);
+                break;
+            case 1:
+                write(String.valueOf(OPERATORS.charAt(random.nextInt(OPERATORS.length()))));
+                break;
+            default:
+                writeForElement(depth);
+                break;
+            }
+        }
+
+        writeWhitespace(false);
+        write(TAG_CLOSING);
+    }
+
+    /**
+     * Writes a FOR tag with a variable of the given depth and random start,
+     * end and optional step expressions.
+     *
+     * @param depth number of open FOR loops
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeFor(int depth) throws IOException {
+        write(TAG_OPENING);
+        writeWhitespace(false);
+        write(FOR);
+        writeWhitespace(true);
+        write(VARIABLES[depth % VARIABLES.length]);
+
+        int expressions = random.nextBoolean() ? 2 : 3;
+        for (int i = 0; i < expressions; i++) {
+            writeWhitespace(true);
+            writeForElement(depth);
+        }
+
+        writeWhitespace(true);
+        write(TAG_CLOSING);
+    }
+
+    /**
+     * Writes an END tag.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeEnd() throws IOException {
+        write(TAG_OPENING);
+        writeWhitespace(false);
+        write(END);
+        writeWhitespace(false);
+        write(TAG_CLOSING);
+    }
+
+    /**
+     * Writes a random element allowed in a FOR tag: a variable, an integer, a
+     * double or a string.
+     *
+     * @param depth number of open FOR loops
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeForElement(int depth) throws IOException {
+        switch (random.nextInt(4)) {
+        case 0:
+            write(VARIABLES[random.nextInt(Math.max(depth, 1)) % VARIABLES.length]);
+            break;
+        case 1:
+            write(Integer.toString(random.nextInt(2001) - 1000));
+            break;
+        case 2:
+            write(Double.toString(random.nextInt(100000) / 100.0));
+            break;
+        default:
+            writeString();
+            break;
+        }
+    }
+
+    /**
+     * Writes a string with random characters and escape sequences.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeString() throws IOException {
+        StringBuilder sb = new StringBuilder(QUOT_MARK);
+        int length = random.nextInt(MAX_STRING_LENGTH + 1);
+        for (int i = 0; i < length; i++) {
+            if (random.nextDouble() < escapeDensity) {
+                sb.append(STRING_ESCAPES[random.nextInt(STRING_ESCAPES.length)]);
+            } else {
+                sb.append(WORDS[random.nextInt(WORDS.length)].charAt(0));
+            }
+        }
+        sb.append(QUOT_MARK);
+        write(sb.toString());
+    }
+
+    /**
+     * Writes whitespace between tag elements. The whitespace is a run of
+     * random whitespace characters with the whitespace noise probability, and
+     * a single space or nothing otherwise.
+     *
+     * @param required true if at least one whitespace character is required
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeWhitespace(boolean required) throws IOException {
+        if (random.nextDouble() < whitespaceNoise) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(MAX_WHITESPACE_RUN);
+            for (int i = 0; i < length; i++) {
+                sb.append(WHITESPACES.charAt(random.nextInt(WHITESPACES.length())));
+            }
+            write(sb.toString());
+        } else if (required || random.nextBoolean()) {
+            write(" ");
+        }
+    }
+
+    /**
+     * Writes the given string to the output and counts its characters.
+     *
+     * @param s string to be written
+     * @throws IOException if an I/O error occurs
+     */
+    private void write(String s) throws IOException {
+        out.append(s);
+        written += s.length();
+    }
+
+    /**
+     * Returns the given probability if it is in range [0, 1].
+     *
+     * @param probability probability to be checked
+     * @return the given probability
+     * @throws IllegalArgumentException if the probability is not in [0, 1]
+     */
+    private static double checkProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability must be in [0, 1]: " + probability);
+        }
+        return probability;
+    }
+
+}
@@ -1,7 +1,19 @@
 package hr.fer.zemris.java.custom.scripting.lexer;
 
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAndMethods;
 import hr.fer.zemris.java.tecaj.hw3.prob1.LexerException;
@@ -12,18 +24,29 @@ import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAnd
  * a parser, which together analyze the syntax and extract tokens from the input
  * text.
  * <p>
- * SSLexer provides one constructor which accepts an input text to be tokenized.
- * The input text is analyzed and tokens are made depending on the token type.
- * It also provides a method for generating the next token and a method that
- * returns the last generated token.
+ * SSLexer provides a constructor which accepts an input text to be tokenized,
+ * and constructors which accept a {@linkplain Reader}, a
+ * {@linkplain ReadableByteChannel} or a {@linkplain ByteBuffer} the input text
+ * is read from. The input text
+ * is analyzed and tokens are made depending on the token type. It also provides
+ * a method for generating the next token and a method that returns the last
+ * generated token.
+ * <p>
+ * When reading from a stream or a byte buffer, the input text is read through a
+ * fixed-size buffer that is refilled as tokens are generated, so the memory
+ * used by this lexer is bounded by the size of the largest single text or tag
+ * and not by the size of the document. Bytes are decoded lazily, which makes it
+ * possible to lex a memory-mapped file without copying it onto the heap. The
+ * stream is not closed by this lexer.
  * <p>
  * SSLexer has two states, {@link SSLexerState#READING_TEXT READING_TEXT} and
  * {@link SSLexerState#READING_TAGS READING_TAGS}. The <tt>READING_TEXT</tt>
  * state reads text starting from where it last ended until the first occurrence
  * of the tag opening bracket sequence or the end of document. The
- * <tt>READING_TAGS</tt> state reads tags starting from from where it last ended
- * until the first occurrence of the tag closing bracket sequence. If there is
- * no tag closing bracket sequence or if a non-existent tag occurs, a
+ * <tt>READING_TAGS</tt> state reads the tag name and then the elements of the
+ * tag body one by one, each as a separate token, until the first occurrence of
+ * the tag closing bracket sequence. If there is no tag closing bracket
+ * sequence, if a non-existent tag occurs or if an element is invalid, a
  * {@linkplain LexerException} is thrown.
  * <p>
  * SSLexer generates tokens defined in the {@link SSTokenType} enumeration.
@@ -34,27 +57,73 @@ import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAnd
  */
 public class SSLexer {
 
+    /** Default size of the buffer used when reading from a stream. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
     /**
-     * A pattern for delimiting text from tags. This pattern's regular
-     * expression uses Negative Look-Behind to see if the tag opening bracket
-     * has been escaped. Described regular expression: <tt>(?&lt;!\\)\{\$</tt>
-     */
-    private static final Pattern TEXT_DELIMITER = Pattern.compile("(?<!\\\\)\\{\\$");
-
-    /**
-     * A pattern for delimiting tags from text. This pattern's regular
-     * expression is the following: <tt>\$\}</tt>
+     * Minimum size of the buffer used when reading from a stream, which is
+     * the length of the longest sequence the lexer looks ahead for.
      */
-    private static final Pattern TAG_DELIMITER = Pattern.compile("\\$\\}");
+    public static final int MIN_BUFFER_SIZE = Math.max(
+            Math.max(TAG_OPENING.length(), TAG_CLOSING.length()),
+            Math.max(FOR.length(), END.length()));
+
+    /** The first character of the tag opening bracket sequence. */
+    private static final char TAG_OPEN = TAG_OPENING.charAt(0);
+    /** The quotation mark character. */
+    private static final char QUOT = QUOT_MARK.charAt(0);
+    /** The function mark character. */
+    private static final char FUNCTION = FUNCTION_MARK.charAt(0);
+
+    /** Character class of ASCII letters. */
+    private static final byte LETTER = 1;
+    /** Character class of ASCII digits. */
+    private static final byte DIGIT = 2;
+    /** Character class of the underscore character. */
+    private static final byte UNDERSCORE = 4;
+    /** Character class of the operator symbols. */
+    private static final byte OPERATOR = 8;
+    /** Character classes of all ASCII characters, indexed by character. */
+    private static final byte[] CHAR_CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = LETTER;
+            CHAR_CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = DIGIT;
+        }
+        CHAR_CLASSES['_'] = UNDERSCORE;
+        for (int i = 0; i < OPERATORS.length(); i++) {
+            CHAR_CLASSES[OPERATORS.charAt(i)] = OPERATOR;
+        }
+    }
 
-    /** Input text for tokenization. */
+    /** Input text for tokenization, or the buffer it is read into. */
     private final char[] data;
+    /** Number of valid characters in the <tt>data</tt> array. */
+    private int limit;
+    /** Reader the input text is read from, or null. */
+    private final Reader reader;
+    /** Bytes the input text is decoded from, or null. */
+    private final ByteBuffer bytes;
+    /** Decoder for the bytes of the input text, or null. */
+    private final CharsetDecoder decoder;
+    /** Indicates if the decoder has decoded and flushed all of the bytes. */
+    private boolean decoderFlushed;
     /** Current token. */
     private SSToken token;
     /** Index of the first character to process. */
     private int currentIndex;
     /** Current state of Lexer. */
     private SSLexerState state;
+    /** Indicates if the lexer is reading the elements of a tag body. */
+    private boolean inTagBody;
+
+    /** Index in the data array where the value being scanned starts, or -1. */
+    private int runStart = -1;
+    /** Part of the value being scanned that was moved out of the data array. */
+    private final StringBuilder runBuilder = new StringBuilder();
 
     /**
      * Constructs an instance of SmartScriptLexer with the given input text to be
@@ -69,19 +138,146 @@ public class SSLexer {
         }
 
         data = text.toCharArray();
+        limit = data.length;
+        reader = null;
+        bytes = null;
+        decoder = null;
+        currentIndex = 0;
+        state = SSLexerState.READING_TEXT;
+        checkCurrentState();
+    }
+
+    /**
+     * Constructs an instance of SmartScriptLexer which reads the input text to
+     * be tokenized from the given <tt>reader</tt> through a buffer of the
+     * default size.
+     *
+     * @param reader reader the text for tokenization is read from
+     * @throws IllegalArgumentException if the reader is null
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    public SSLexer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs an instance of SmartScriptLexer which reads the input text to
+     * be tokenized from the given <tt>reader</tt> through a buffer of the
+     * specified size.
+     *
+     * @param reader reader the text for tokenization is read from
+     * @param bufferSize size of the buffer the text is read into
+     * @throws IllegalArgumentException if the reader is null or if the buffer
+     *         size is less than {@link #MIN_BUFFER_SIZE}
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    public SSLexer(Reader reader, int bufferSize) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader must not be null.");
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size is too small: " + bufferSize);
+        }
+
+        data = new char[bufferSize];
+        limit = 0;
+        this.reader = reader;
+        bytes = null;
+        decoder = null;
+        currentIndex = 0;
+        state = SSLexerState.READING_TEXT;
+        checkCurrentState();
+    }
+
+    /**
+     * Constructs an instance of SmartScriptLexer which reads the input text to
+     * be tokenized from the given <tt>channel</tt>, decoding the bytes with
+     * the specified <tt>charset</tt>. Malformed input is replaced with the
+     * charset's default replacement string.
+     *
+     * @param channel channel the text for tokenization is read from
+     * @param charset charset used for decoding the bytes
+     * @throws IllegalArgumentException if the channel or charset is null
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    public SSLexer(ReadableByteChannel channel, Charset charset) {
+        this(newReader(channel, charset));
+    }
+
+    /**
+     * Constructs an instance of SmartScriptLexer which decodes the input text
+     * to be tokenized from the remaining bytes of the given <tt>buffer</tt>
+     * using the specified <tt>charset</tt>. The bytes are decoded lazily into
+     * a buffer of the default size as tokens are generated, so the given
+     * buffer may be a memory-mapped file of any size. Malformed input is
+     * replaced with the charset's default replacement string.
+     * <p>
+     * The position of the given buffer is advanced as it is decoded.
+     *
+     * @param buffer buffer the text for tokenization is decoded from
+     * @param charset charset used for decoding the bytes
+     * @throws IllegalArgumentException if the buffer or charset is null
+     */
+    public SSLexer(ByteBuffer buffer, Charset charset) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer must not be null.");
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("Charset must not be null.");
+        }
+
+        data = new char[DEFAULT_BUFFER_SIZE];
+        limit = 0;
+        reader = null;
+        bytes = buffer;
+        decoder = newDecoder(charset);
         currentIndex = 0;
         state = SSLexerState.READING_TEXT;
         checkCurrentState();
     }
 
+    /**
+     * Returns a reader that decodes bytes from the given <tt>channel</tt>
+     * using the specified <tt>charset</tt>, replacing malformed input.
+     *
+     * @param channel channel to be read from
+     * @param charset charset used for decoding the bytes
+     * @return a reader over the given channel
+     * @throws IllegalArgumentException if the channel or charset is null
+     */
+    private static Reader newReader(ReadableByteChannel channel, Charset charset) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null.");
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("Charset must not be null.");
+        }
+
+        return Channels.newReader(channel, newDecoder(charset), -1);
+    }
+
+    /**
+     * Returns a new decoder for the given <tt>charset</tt> which replaces
+     * malformed input and unmappable characters, the same way the
+     * {@linkplain String} constructors do.
+     *
+     * @param charset charset of the decoder
+     * @return a new decoder for the given charset
+     */
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
     /**
      * Generates and returns the next token. Tokens are generated from the input
      * text and their type depends on the input text. If the input text is
      * exhausted or reading error occurs, a {@linkplain LexerException} is
      * thrown.
      * <p>
-     * A reading error may occur if there is no tag closing bracket sequence or
-     * if a non-existent tag occurs.
+     * A reading error may occur if there is no tag closing bracket sequence,
+     * if a non-existent tag occurs or if an element of a tag body is invalid.
      *
      * @return the next token generated from the input text
      * @throws LexerException if there is no next token or if reading error occurs
@@ -91,13 +287,15 @@ public class SSLexer {
             throw new LexerException("No next token after EOF.");
         }
 
-        if (isDataEnd()) {
+        if (inTagBody) {
+            token = getTagElement();
+        } else if (isDataEnd()) {
             token = new SSToken(SSTokenType.EOF, null);
         } else {
             if (state == SSLexerState.READING_TEXT) {
                 token = getText();
             } else {
-                token = getTag();
+                token = getTagName();
             }
         }
 
@@ -114,6 +312,50 @@ public class SSLexer {
         return token;
     }
 
+    /**
+     * Returns a sequential stream of the remaining tokens of this lexer, not
+     * including the <tt>EOF</tt> token. The tokens are generated lazily as the
+     * stream is consumed, so a short-circuiting operation does not read the
+     * rest of the input text. The text can not be split, since the state of
+     * the lexer at a position is known only after the text before it is
+     * tokenized, so a parallel stream only processes batches of tokens in
+     * parallel. This lexer must not be used while the stream is consumed.
+     *
+     * @return a stream of the remaining tokens of this lexer
+     * @throws LexerException
+     *             from the terminal operation of the stream if reading error
+     *             occurs
+     */
+    public Stream<SSToken> tokens() {
+        if (token != null && token.getType() == SSTokenType.EOF) {
+            return Stream.empty();
+        }
+
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<SSToken>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            /** True if the EOF token was generated. */
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super SSToken> action) {
+                if (action == null) {
+                    throw new NullPointerException("Action must not be null.");
+                }
+                if (finished) {
+                    return false;
+                }
+
+                SSToken next = nextToken();
+                if (next.getType() == SSTokenType.EOF) {
+                    finished = true;
+                    return false;
+                }
+                action.accept(next);
+                return true;
+            }
+        }, false);
+    }
+
     /**
      * Sets the current state of Lexer.
      *
@@ -137,19 +379,24 @@ public class SSLexer {
      * come with some whitespace formatting.
      * <p>
      * This method increases the <tt>currentIndex</tt> variable as it goes and
-     * ends on the first occurrence of the tag opening bracket sequence.
+     * ends on the first occurrence of the tag opening bracket sequence. The
+     * data array is scanned only once and the token value is created directly
+     * from the scanned range, so the cost of this method is proportional to
+     * the length of the text and not to the length of the remaining document.
      * <p>
      * After the lexical scanning for text is done, if it is not the end of the
      * whole document, this method sets the current state of Lexer to
      * {@link SSLexerState#READING_TAGS READING_TAGS} and skips the brackets.
      * <p>
-     * This method validates a string of text before creating a token out of it
-     * by checking if there are any invalid escape sequences. This means that
-     * the escape character may not be located at the very end of the input text
-     * with nothing to escape. It also means that the escape character may not
-     * be any character other than a tag opening bracket or the escape-character
-     * itself. If any of these criteria is not met, a {@linkplain LexerException}
-     * is thrown.
+     * This method validates a string of text while scanning it by checking if
+     * there are any invalid escape sequences. This means that the escape
+     * character may not be located at the very end of the input text with
+     * nothing to escape. It also means that the escape character may not be
+     * any character other than a tag opening bracket or the escape-character
+     * itself. If any of these criteria is not met, a
+     * {@linkplain LexerException} is thrown. Valid escape sequences <tt>\\</tt>
+     * and <tt>\{</tt> are replaced with <tt>\</tt> and <tt>{</tt>,
+     * respectively.
      *
      * @return text token starting from the <tt>currentIndex</tt> of the
      *         <tt>data</tt> array until the first occurrence of the tag opening
@@ -157,156 +404,370 @@ public class SSLexer {
      * @throws LexerException if the escape sequence is invalid
      */
     private SSToken getText() {
-        Scanner sc = new Scanner(new String(data).substring(currentIndex));
-        sc.useDelimiter(TEXT_DELIMITER);
+        runStart = currentIndex;
 
-        String next = sc.next();
-        sc.close();
+        while (!isDataEnd() && !matchesAt(TAG_OPENING)) {
+            if (data[currentIndex] == ESCAPE_CHAR) {
+                if (!ensureAvailable(2)) {
+                    throw new LexerException("Invalid escape ending.");
+                }
 
-        currentIndex += next.length();
-        next = validateText(next);
+                char nextChar = data[currentIndex+1];
+                if (!(nextChar == ESCAPE_CHAR || nextChar == TAG_OPEN)) {
+                    throw new LexerException("Invalid escape sequence: " + nextChar);
+                }
+
+                spillRun();
+                currentIndex++; // skip the escape character
+                runStart = currentIndex;
+            }
+            currentIndex++;
+        }
+
+        String text = endRun();
 
         if (!isDataEnd()) {
             currentIndex += TAG_OPENING.length(); // skip tag opening
             setState(SSLexerState.READING_TAGS);
         }
 
-        return new SSToken(SSTokenType.TEXT, next);
+        return new SSToken(SSTokenType.TEXT, text);
     }
 
     /**
-     * Validates a string of text before creating a token out of it. Validating
-     * consists of checking if there are any invalid escape sequences. This
-     * means that the escape character may not be located at the very end of the
-     * input text with nothing to escape. It also means that the escape
-     * character may not be any character other than a tag opening bracket or
-     * the escape-character itself. If any of these criteria is not met, a
+     * Returns the tag name token starting from the <tt>currentIndex</tt>,
+     * skipping whitespaces before the tag name. The tag name may be a
+     * <tt>FOR</tt> (case-insensitive) word, an <tt>=</tt> symbol or an
+     * <tt>END</tt> (case-insensitive) word. If the tag is empty, if it is
+     * never closed or if a non-existent tag occurs, a
      * {@linkplain LexerException} is thrown.
      * <p>
-     * After validating the escape sequences of the given text, this method
-     * replaces all occurrences of the double escape character and escape
-     * character + tag opening bracket and returns the new legal text.
+     * After a {@link SSTokenType#TAG_FOR FOR} or an
+     * {@link SSTokenType#TAG_ECHO ECHO} tag name, the lexer continues reading
+     * the elements of the tag body. The {@link SSTokenType#TAG_END END} tag
+     * does not have a body, so its closing brackets are skipped right away and
+     * the state is checked for what follows, same as after the tag body.
      *
-     * @param text text to be validated and disposed of escape characters
-     * @return text disposed of escape characters
-     * @throws LexerException if the escape sequence of text is invalid
+     * @return the tag name token starting from the <tt>currentIndex</tt>
+     * @throws LexerException
+     *             if the tag is empty, if it is never closed or if a
+     *             non-existent tag occurs
      */
-    private static String validateText(String text) {
-        char[] data = text.toCharArray();
-        final char TAG_OPEN = TAG_OPENING.charAt(0);
+    private SSToken getTagName() {
+        skipWhitespaces();
+        if (isDataEnd()) {
+            throw new LexerException("Tag is never closed.");
+        } else if (matchesAt(TAG_CLOSING)) {
+            throw new LexerException("Tag is empty.");
+        }
 
-        for (int i = 0; i < data.length; i++) {
-            if (data[i] == ESCAPE_CHAR) {
-                if (i == data.length-1) {
-                    throw new LexerException("Invalid escape ending.");
-                } else {
-                    char nextChar = data[i+1];
-                    if (!(nextChar == ESCAPE_CHAR || nextChar == TAG_OPEN)) {
-                        throw new LexerException("Invalid escape sequence: " + nextChar);
-                    } else {
-                        i++;
-                    }
-                }
+        if (matchesKeyword(FOR)) {
+            currentIndex += FOR.length();
+            inTagBody = true;
+            return new SSToken(SSTokenType.TAG_FOR, null);
+        } else if (matchesAt(ECHO)) {
+            currentIndex += ECHO.length();
+            inTagBody = true;
+            return new SSToken(SSTokenType.TAG_ECHO, null);
+        } else if (matchesKeyword(END)) {
+            currentIndex += END.length();
+            skipWhitespaces();
+            if (!matchesAt(TAG_CLOSING)) {
+                throw new LexerException("Tag " + END + " must not have a body.");
             }
+            closeTag();
+            return new SSToken(SSTokenType.TAG_END, null);
+        } else {
+            throw new LexerException("Unknown tag: " + getWord());
         }
-
-        /* If validation is successful, replace \\ with \ and \{ with { */
-        text = text.replace(""+ESCAPE_CHAR+ESCAPE_CHAR, ""+ESCAPE_CHAR);
-        text = text.replace(""+ESCAPE_CHAR+TAG_OPEN, ""+TAG_OPEN);
-        return text;
     }
 
     /**
-     * Returns tag token starting from the <tt>currentIndex</tt> of the
-     * <tt>data</tt> array until the first occurrence of the tag closing bracket
-     * sequence. If there is no tag closing bracket sequence or if a
-     * non-existent tag occurs, a {@linkplain LexerException} is thrown.
-     * <p>
-     * This method returns a tag token with surrounding whitespaces trimmed, if
-     * any, and all whitespaces in-between converted to a single space
-     * character.
+     * Returns the next token of a tag body starting from the
+     * <tt>currentIndex</tt>, skipping whitespaces before it. The token is
+     * either an element of the tag body or a {@link SSTokenType#TAG_CLOSE
+     * TAG_CLOSE} token if the tag closing bracket sequence is reached, in
+     * which case the brackets are skipped and the state is checked for what
+     * follows.
      * <p>
-     * This method increases the <tt>currentIndex</tt> variable as it goes and
-     * ends on the first occurrence of the tag closing bracket sequence.
+     * Elements are delimited by whitespaces, except for strings which may
+     * contain whitespaces and end with the first unescaped quotation mark.
+     *
+     * @return the next token of a tag body
+     * @throws LexerException
+     *             if the tag is never closed or if an invalid element occurs
+     */
+    private SSToken getTagElement() {
+        skipWhitespaces();
+        if (isDataEnd()) {
+            throw new LexerException("Tag is never closed.");
+        } else if (matchesAt(TAG_CLOSING)) {
+            closeTag();
+            return new SSToken(SSTokenType.TAG_CLOSE, null);
+        } else if (data[currentIndex] == QUOT) {
+            return getString();
+        } else {
+            return getElement(getWord());
+        }
+    }
+
+    /**
+     * Returns a {@link SSTokenType#STRING STRING} token starting from the
+     * quotation mark on the <tt>currentIndex</tt> and ending with the first
+     * unescaped quotation mark. The token value is the string as it is
+     * written, with the quotation marks and escape sequences.
      * <p>
-     * After the lexical scanning for tag is done, this method sets the current
-     * state of Lexer to {@link SSLexerState#READING_TEXT READING_TEXT} and
-     * skips the brackets closing brackets.
+     * The escape character may not be located at the very end of the input
+     * text with nothing to escape. It also may not be any character other than
+     * a quotation mark character, a newline character, a tabulator character,
+     * a carriage return character or the escape-character itself. If any of
+     * these criteria is not met or if the string is never closed, a
+     * {@linkplain LexerException} is thrown.
      *
-     * @return tag token starting from the <tt>currentIndex</tt> of the
-     *         <tt>data</tt> array until the first occurrence of the tag closing
-     *         bracket sequence
+     * @return a string token starting from the currentIndex
      * @throws LexerException
-     *             if there is no tag closing bracket sequence or if a
-     *             non-existent tag occurs
+     *             if the escape sequence is invalid or the string is never
+     *             closed
      */
-    private SSToken getTag() {
-        Scanner sc = new Scanner(new String(data).substring(currentIndex));
-        sc.useDelimiter(TAG_DELIMITER);
+    private SSToken getString() {
+        runStart = currentIndex;
+        currentIndex++; // skip the opening quotation mark
 
-        if (!sc.hasNext()) {
-            sc.close();
-            throw new LexerException("Tag is empty.");
+        while (true) {
+            if (isDataEnd()) {
+                throw new LexerException("String is never closed: " + endRun());
+            }
+
+            char c = data[currentIndex];
+            if (c == QUOT) {
+                currentIndex++;
+                break;
+            } else if (c == ESCAPE_CHAR) {
+                if (!ensureAvailable(2)) {
+                    throw new LexerException("Invalid string escape ending.");
+                }
+
+                char nextChar = data[currentIndex+1];
+                if (!(nextChar == ESCAPE_CHAR
+                    || nextChar == QUOT
+                    || nextChar == 'n'
+                    || nextChar == 'r'
+                    || nextChar == 't'
+                )) {
+                    throw new LexerException("Invalid escape sequence: " + nextChar);
+                }
+                currentIndex += 2;
+            } else {
+                currentIndex++;
+            }
         }
 
-        String next = sc.next();
-        sc.close();
+        return new SSToken(SSTokenType.STRING, endRun());
+    }
 
-        currentIndex += next.length();
-        if (isDataEnd()) {
-            throw new LexerException("Tag is never closed: " + next);
-        } else {
-            currentIndex += TAG_CLOSING.length(); // skip tag closing
-            checkCurrentState();
+    /**
+     * Returns a word starting from the <tt>currentIndex</tt> and ending on the
+     * first whitespace character, the tag closing bracket sequence or the end
+     * of the input text.
+     *
+     * @return a word starting from the currentIndex
+     */
+    private String getWord() {
+        runStart = currentIndex;
+        while (!isDataEnd()
+                && !Character.isWhitespace(data[currentIndex])
+                && !matchesAt(TAG_CLOSING)) {
+            currentIndex++;
         }
+        return endRun();
+    }
 
-        next = replaceWhitespacesKeepingQuotationMarks(next.trim());
+    /**
+     * Returns an element token created from the given <tt>word</tt>. The word
+     * is classified by the {@linkplain #CHAR_CLASSES character class} of its
+     * first character, without throwing and catching any exceptions:
+     * <ul>
+     * <li>a {@link SmartScriptConstantsAndMethods#FUNCTION_MARK function mark}
+     * starts a {@link SSTokenType#FUNCTION FUNCTION} with a valid name,
+     * <li>a letter starts a {@link SSTokenType#VARIABLE VARIABLE} with a
+     * valid name,
+     * <li>a single {@link SmartScriptConstantsAndMethods#OPERATORS operator}
+     * symbol is an {@link SSTokenType#OPERATOR OPERATOR},
+     * <li>anything else must be a valid number.
+     * </ul>
+     * If the word is not a valid element, a {@linkplain LexerException} is
+     * thrown.
+     *
+     * @param word word to be classified
+     * @return an element token created from the given word
+     * @throws LexerException if the word is not a valid element
+     */
+    static SSToken getElement(String word) {
+        char first = word.charAt(0);
 
-        if (next.toUpperCase().startsWith(FOR)) {
-            // dispose the FOR keyword
-            next = disposeOf(next, FOR);
-            return new SSToken(SSTokenType.TAG_FOR, next);
-        } else if (next.equalsIgnoreCase(END)) {
-            // dispose the END keyword
-            return new SSToken(SSTokenType.TAG_END, null);
-        } else if (next.startsWith(ECHO)) {
-            // dispose the ECHO keyword
-            next = disposeOf(next, ECHO);
-            return new SSToken(SSTokenType.TAG_ECHO, next);
+        if (first == FUNCTION) {
+            if (isNameValid(word, 1)) {
+                return new SSToken(SSTokenType.FUNCTION, word.substring(1));
+            }
+        } else if (isOfClass(first, LETTER)) {
+            if (isNameValid(word, 0)) {
+                return new SSToken(SSTokenType.VARIABLE, word);
+            }
+        } else if (word.length() == 1 && isOfClass(first, OPERATOR)) {
+            return new SSToken(SSTokenType.OPERATOR, word);
         } else {
-            throw new LexerException("Unknown tag: " + next);
+            SSToken number = parseNumber(word);
+            if (number != null) {
+                return number;
+            }
         }
+
+        throw new LexerException("Invalid element: " + word);
     }
 
     /**
-     * Disposes the given <tt>keyword</tt> from the given <tt>tag</tt> by
-     * removing it and then trimming left over whitespaces from the new tag.
+     * Returns a number token parsed from the given <tt>word</tt>, or
+     * <tt>null</tt> if the word is not a number. A number consists of an
+     * optional sign, digits with an optional decimal point and an optional
+     * exponent, and must contain at least one digit before the exponent.
+     * <p>
+     * The word is parsed as an {@link SSTokenType#CONSTANT_INTEGER integer} if
+     * it consists only of an optional sign and digits and fits into an
+     * <tt>int</tt>, and as a {@link SSTokenType#CONSTANT_DOUBLE double}
+     * otherwise. Integers are accumulated digit by digit and a word is only
+     * handed to {@linkplain Double#parseDouble(String)} once it is known to be
+     * a valid number, so no exception is ever thrown by this method.
      *
-     * @param tag tag to be cleared of the keyword
-     * @param keyword keyword to be removed from the tag
-     * @return the tag cleared of the <tt>keyword</tt>
+     * @param word word to be parsed
+     * @return a number token parsed from the word, or <tt>null</tt>
      */
-    private static String disposeOf(String tag, String keyword) {
-        return tag.substring(keyword.length()).trim();
+    private static SSToken parseNumber(String word) {
+        int length = word.length();
+        int i = 0;
+
+        char first = word.charAt(0);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+
+        // accumulate negatively, since |Integer.MIN_VALUE| > Integer.MAX_VALUE
+        int bound = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int value = 0;
+        boolean overflow = false;
+
+        int digitsStart = i;
+        for (; i < length && isOfClass(word.charAt(i), DIGIT); i++) {
+            int digit = word.charAt(i) - '0';
+            if (value < bound / 10 || value * 10 < bound + digit) {
+                overflow = true;
+            } else {
+                value = value * 10 - digit;
+            }
+        }
+        int digits = i - digitsStart;
+
+        if (i == length && digits > 0 && !overflow) {
+            return new SSToken(SSTokenType.CONSTANT_INTEGER, negative ? value : -value);
+        }
+
+        if (i < length && word.charAt(i) == '.') {
+            i++;
+            int fractionStart = i;
+            while (i < length && isOfClass(word.charAt(i), DIGIT)) {
+                i++;
+            }
+            digits += i - fractionStart;
+        }
+        if (digits == 0) {
+            return null;
+        }
+
+        if (i < length && (word.charAt(i) == 'e' || word.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (word.charAt(i) == '+' || word.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < length && isOfClass(word.charAt(i), DIGIT)) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return null;
+            }
+        }
+        if (i != length) {
+            return null;
+        }
+
+        return new SSToken(SSTokenType.CONSTANT_DOUBLE, Double.parseDouble(word));
+    }
+
+    /**
+     * Returns true if the given <tt>word</tt> is a valid variable or function
+     * name starting from the specified <tt>offset</tt>. Names must start with a
+     * letter and may contain 0 or more alphanumeric characters and/or
+     * underscore characters.
+     *
+     * @param word word containing the name to be validated
+     * @param offset index in the word where the name starts
+     * @return true if the word contains a valid name from the offset
+     */
+    private static boolean isNameValid(String word, int offset) {
+        int length = word.length();
+        if (offset == length || !isOfClass(word.charAt(offset), LETTER)) {
+            return false;
+        }
+
+        for (int i = offset + 1; i < length; i++) {
+            if (!isOfClass(word.charAt(i), LETTER | DIGIT | UNDERSCORE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the given character is an ASCII character that belongs to
+     * any of the character classes given as a bit mask.
+     *
+     * @param c character to be checked
+     * @param classes bit mask of character classes
+     * @return true if the character belongs to any of the given classes
+     */
+    private static boolean isOfClass(char c, int classes) {
+        return c < CHAR_CLASSES.length && (CHAR_CLASSES[c] & classes) != 0;
+    }
+
+    /**
+     * Skips the tag closing bracket sequence on the <tt>currentIndex</tt>,
+     * ends the tag and checks the state for what follows.
+     */
+    private void closeTag() {
+        currentIndex += TAG_CLOSING.length(); // skip tag closing
+        inTagBody = false;
+        checkCurrentState();
+    }
+
+    /**
+     * Skips all whitespace characters by moving the <tt>currentIndex</tt>
+     * variable to the next non-whitespace character.
+     */
+    private void skipWhitespaces() {
+        while (!isDataEnd() && Character.isWhitespace(data[currentIndex])) {
+            currentIndex++;
+        }
     }
 
     /**
      * Checks if the <tt>data</tt> on the <tt>currentIndex</tt> starts with
      * {@link SmartScriptConstantsAndMethods#TAG_OPENING TAG_OPENING}. If the stated
      * condition is true, the state is set to {@link SSLexerState#READING_TAGS
-     * READING_TAGS}, else the state is set to {@link SSLexerState#READING_TEXT
-     * READING_TEXT}. If there is no data index on the <tt>currentIndex</tt> and
-     * beyond, this method simply returns with nothing changed.
+     * READING_TAGS} and the tag opening is skipped, else the state is set to
+     * {@link SSLexerState#READING_TEXT READING_TEXT}.
      */
     private void checkCurrentState() {
-        String startingCharacters;
-        try {
-            startingCharacters = "" + data[currentIndex]  +  data[currentIndex+1];
-        } catch (IndexOutOfBoundsException e) {
-            return;
-        }
-
-        if (startingCharacters.equals(TAG_OPENING)) {
+        if (matchesAt(TAG_OPENING)) {
             currentIndex += TAG_OPENING.length(); // skip tag opening
             setState(SSLexerState.READING_TAGS);
         } else {
@@ -314,14 +775,164 @@ public class SSLexer {
         }
     }
 
+    /**
+     * Returns true if the input text contains the given <tt>sequence</tt>
+     * starting at the <tt>currentIndex</tt>. False otherwise, including the
+     * case when there are not enough characters left in the input text.
+     *
+     * @param sequence sequence of characters to be matched
+     * @return true if the input text contains the sequence at the current index
+     */
+    private boolean matchesAt(String sequence) {
+        if (!ensureAvailable(1) || data[currentIndex] != sequence.charAt(0)) {
+            return false;
+        }
+
+        int len = sequence.length();
+        if (!ensureAvailable(len)) {
+            return false;
+        }
+
+        for (int i = 1; i < len; i++) {
+            if (data[currentIndex+i] != sequence.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the input text contains the given <tt>keyword</tt>
+     * starting at the <tt>currentIndex</tt>, ignoring case. False otherwise.
+     *
+     * @param keyword keyword to be matched
+     * @return true if the input text contains the keyword at the current index
+     */
+    private boolean matchesKeyword(String keyword) {
+        int len = keyword.length();
+        if (!ensureAvailable(len)) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            if (Character.toUpperCase(data[currentIndex+i]) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the part of the value being scanned that is currently in the
+     * <tt>data</tt> array, from <tt>runStart</tt> up to the
+     * <tt>currentIndex</tt>, out into the run builder. The run then continues
+     * from the <tt>currentIndex</tt>.
+     */
+    private void spillRun() {
+        runBuilder.append(data, runStart, currentIndex-runStart);
+        runStart = currentIndex;
+    }
+
+    /**
+     * Ends the value being scanned at the <tt>currentIndex</tt> and returns it.
+     * If no part of the value was moved out of the <tt>data</tt> array, the
+     * value is created directly from its range in the array.
+     *
+     * @return the value scanned since the run was started
+     */
+    private String endRun() {
+        String value;
+        if (runBuilder.length() == 0) {
+            value = new String(data, runStart, currentIndex-runStart);
+        } else {
+            spillRun();
+            value = runBuilder.toString();
+            runBuilder.setLength(0);
+        }
+
+        runStart = -1;
+        return value;
+    }
+
+    /**
+     * Ensures that at least <tt>n</tt> characters starting from the
+     * <tt>currentIndex</tt> are available in the <tt>data</tt> array and
+     * returns true if they are. False is returned if the input text ends
+     * before that.
+     * <p>
+     * If the lexer is reading from a stream or a byte buffer, unprocessed
+     * characters are moved to the start of the buffer and the rest of it is
+     * refilled from the source. The part of the value being scanned that
+     * would be overwritten is moved out into the run builder first.
+     *
+     * @param n number of characters that are needed
+     * @return true if <tt>n</tt> characters are available
+     * @throws LexerException if an I/O error occurs while reading, or if the
+     *         buffer can not hold <tt>n</tt> characters
+     */
+    private boolean ensureAvailable(int n) {
+        if (limit - currentIndex >= n) {
+            return true;
+        } else if (reader == null && bytes == null) {
+            return false;
+        } else if (n > data.length) {
+            throw new LexerException("Buffer is too small to look ahead " + n + " characters.");
+        }
+
+        if (runStart != -1) {
+            spillRun();
+            runStart = 0;
+        }
+        limit -= currentIndex;
+        System.arraycopy(data, currentIndex, data, 0, limit);
+        currentIndex = 0;
+
+        try {
+            while (limit < n) {
+                int read = read();
+                if (read == -1) {
+                    return false;
+                }
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new LexerException("Unable to read input: " + e.getMessage(), e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads characters from the source of the input text into the free part
+     * of the <tt>data</tt> array, after the <tt>limit</tt>, and returns the
+     * number of characters read or -1 if the end of the source is reached.
+     *
+     * @return the number of characters read, or -1 if the source is exhausted
+     * @throws IOException if an I/O error occurs
+     */
+    private int read() throws IOException {
+        if (reader != null) {
+            return reader.read(data, limit, data.length-limit);
+        }
+
+        CharBuffer out = CharBuffer.wrap(data, limit, data.length-limit);
+        if (!decoderFlushed && decoder.decode(bytes, out, true).isUnderflow()) {
+            decoderFlushed = decoder.flush(out).isUnderflow();
+        }
+
+        int read = out.position() - limit;
+        return read == 0 && decoderFlushed ? -1 : read;
+    }
+
     /**
      * Returns true if the input text has been exhausted, or more formally if
-     * <tt>currentIndex == data.length</tt>. False otherwise.
+     * there are no characters left in the <tt>data</tt> array and in the
+     * source it is read from. False otherwise.
      *
      * @return true if the input text has been exhausted
      */
     private boolean isDataEnd() {
-        return currentIndex == data.length;
+        return !ensureAvailable(1);
     }
 
 }
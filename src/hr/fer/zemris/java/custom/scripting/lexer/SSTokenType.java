@@ -3,8 +3,15 @@ package hr.fer.zemris.java.custom.scripting.lexer;
 /**
  * This enumeration describes the type of a token which is used by the
  * {@link SSLexer}. A token may be <tt>TEXT</tt>, <tt>TAG_FOR</tt>,
- * <tt>TAG_END</tt> and <tt>TAG_ECHO</tt> which all contain a value, or
- * <tt>EOF</tt> that indicates the end of data and does not contain a value.
+ * <tt>TAG_END</tt>, <tt>TAG_ECHO</tt> or <tt>TAG_CLOSE</tt> which describe the
+ * structure of a document, one of the tag body element tokens
+ * <tt>VARIABLE</tt>, <tt>FUNCTION</tt>, <tt>CONSTANT_INTEGER</tt>,
+ * <tt>CONSTANT_DOUBLE</tt>, <tt>STRING</tt> and <tt>OPERATOR</tt> which all
+ * contain a value, or <tt>EOF</tt> that indicates the end of data and does
+ * not contain a value.
+ * <p>
+ * A <tt>TAG_FOR</tt> or a <tt>TAG_ECHO</tt> token is followed by the element
+ * tokens of the tag body and a <tt>TAG_CLOSE</tt> token.
  *
  * @author Mario Bobic
  * @see SSLexer
@@ -20,8 +27,9 @@ public enum SSTokenType {
 
     /**
      * Represents a token created from a tag that starts with a <tt>FOR</tt>
-     * (case-insensitive) word and contains 0 or more characters. The token is
-     * to be in raw format without the <tt>FOR</tt> keyword.
+     * (case-insensitive) word. The token value is <tt>null</tt> because the
+     * elements of the tag body are given as separate tokens, ending with a
+     * {@link #TAG_CLOSE} token.
      */
     TAG_FOR,
 
@@ -33,23 +41,57 @@ public enum SSTokenType {
     TAG_END,
 
     /**
-     * Represents a token created from a tag that starts with <tt>=</tt> symbol
-     * and contains 0 or more characters. The token is to be in raw format
-     * without the <tt>=</tt> symbol.
+     * Represents a token created from a tag that starts with <tt>=</tt>
+     * symbol. The token value is <tt>null</tt> because the elements of the tag
+     * body are given as separate tokens, ending with a {@link #TAG_CLOSE}
+     * token.
      */
     TAG_ECHO,
 
-//    VARIABLE,
-//
-//    FUNCTION,
-//
-//    CONSTANT_INTEGER,
-//
-//    CONSTANT_DOUBLE,
-//
-//    STRING,
-//
-//    OPERATOR,
+    /**
+     * Represents the tag closing bracket sequence that ends the body of a
+     * <tt>FOR</tt> or an <tt>ECHO</tt> tag. Does not contain a value.
+     */
+    TAG_CLOSE,
+
+    /**
+     * Represents a variable in a tag body. Variable names start with a letter
+     * and may contain 0 or more alphanumeric characters and/or underscore
+     * characters. The token value is the variable name.
+     */
+    VARIABLE,
+
+    /**
+     * Represents a function in a tag body. Function names are variable names
+     * preceded by the <tt>@</tt> symbol. The token value is the function name
+     * without the <tt>@</tt> symbol.
+     */
+    FUNCTION,
+
+    /**
+     * Represents an integer constant in a tag body. The token value is an
+     * {@linkplain Integer}.
+     */
+    CONSTANT_INTEGER,
+
+    /**
+     * Represents a decimal constant in a tag body, or an integer constant that
+     * is out of the integer range. The token value is a {@linkplain Double}.
+     */
+    CONSTANT_DOUBLE,
+
+    /**
+     * Represents a string in a tag body. The token value is the string as it
+     * is written in the tag, including the surrounding quotation marks and
+     * the escape sequences.
+     */
+    STRING,
+
+    /**
+     * Represents an operator symbol in a tag body. The token value is the
+     * operator symbol.
+     */
+    OPERATOR,
 
     /**
      * Indicates the end of data and does not contain a value.
@@ -1,6 +1,9 @@
 package hr.fer.zemris.java.custom.scripting.nodes;
 
+import java.util.NoSuchElementException;
+
 import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.ElementsGetter;
 
 /**
  * The base class for all nodes. All nodes can be parents and can have children.
@@ -13,6 +16,19 @@ import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
  */
 public class Node {
 
+    /** Elements getter of a node without children. */
+    private static final ElementsGetter NO_CHILDREN = new ElementsGetter() {
+        @Override
+        public boolean hasNextElement() {
+            return false;
+        }
+
+        @Override
+        public Object getNextElement() {
+            throw new NoSuchElementException("No more elements.");
+        }
+    };
+
     /** The backing collection of this node. */
     private ArrayIndexedCollection col;
 
@@ -66,6 +82,17 @@ public class Node {
         }
     }
 
+    /**
+     * Returns a new {@linkplain ElementsGetter} over the children of this
+     * node, which gets each child in constant time. If no child has been added
+     * to this node, the getter has no elements.
+     *
+     * @return a new elements getter over the children of this node
+     */
+    public ElementsGetter childNodesGetter() {
+        return col == null ? NO_CHILDREN : col.createElementsGetter();
+    }
+
     /**
      * Returns a string representation of the child nodes of the given
      * <tt>parent</tt> node by iterating through all the children of the node
@@ -78,9 +105,9 @@ public class Node {
     protected static String childNodesToString(Node parent) {
         StringBuilder sb = new StringBuilder();
 
-        int num = parent.numberOfChildren();
-        for (int i = 0; i < num; i++) {
-            Node child = parent.getChild(i);
+        ElementsGetter getter = parent.childNodesGetter();
+        while (getter.hasNextElement()) {
+            Node child = (Node) getter.getNextElement();
             sb.append(child);
         }
 
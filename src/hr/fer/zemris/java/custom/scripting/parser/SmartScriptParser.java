@@ -1,14 +1,19 @@
 package hr.fer.zemris.java.custom.scripting.parser;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 
 import hr.fer.zemris.java.custom.collections.*;
 import hr.fer.zemris.java.custom.scripting.lexer.*;
 import hr.fer.zemris.java.custom.scripting.nodes.*;
 import hr.fer.zemris.java.tecaj.hw3.prob1.LexerException;
 import hr.fer.zemris.java.custom.scripting.elems.*;
-import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAndMethods.*;
 
 /**
  * This class is used for parsing documents with a certain set of rules. It
@@ -35,16 +40,22 @@ import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAnd
  * opening bracket or the escape-character itself. If any of these criteria is
  * not met, a {@linkplain SmartScriptParserException} is thrown.
  * <p>
+ * Rules for tag body elements:<br>
+ * The SSLexer also splits the tag bodies into element tokens and validates
+ * them, so the parser never has to scan the tag text again. A tag body element
+ * may be a variable with a valid variable name, a valid string, a valid
+ * number, a valid function or a valid operator. If an element is none of
+ * these, a {@linkplain SmartScriptParserException} is thrown with an invalid
+ * element message.
+ * <p>
  * Rules for the FOR loop tag parsing:<br>
- * The elements are checked and validated from first to last, and by validating
- * it is considered that:
+ * The elements are checked from first to last, and it is considered that:
  * <ul>
  * <li>The first element is a variable with a valid variable name. If this check
  * is not passed, an exception is thrown with invalid name message.
- * <li>The rest of the elements are validated by checking if the element is a
- * variable with a valid variable name, a valid string or a valid number. If
- * none of the these checks are passed, an exception is thrown with an invalid
- * element message.
+ * <li>The rest of the elements are checked if the element is a variable, a
+ * string or a number. If none of the these checks are passed, an exception is
+ * thrown with an invalid element message.
  * <li>The FOR loop tag must have an END tag in order to function properly. If
  * there are more END tags than FOR loop tags, an exception is thrown.
  * </ul>
@@ -54,31 +65,12 @@ import static hr.fer.zemris.java.custom.scripting.parser.SmartScriptConstantsAnd
  * integer.
  * <p>
  * Rules for the ECHO tag parsing:<br>
- * The string elements are checked one by one. If either of these elements are
- * invalid, or in other words, if any of the given string elements cannot be
- * represented as an {@linkplain Element}, a
- * {@linkplain SmartScriptParserException} is thrown. The elements are checked
- * and validated from first to last, and by validating it is considered that all
- * of the elements are checked if the element is a variable with a valid
- * variable name, a valid string, a valid number, a valid function or a valid
- * operator. If none of the these checks are passed, an exception is thrown with
- * an invalid element message.
+ * The ECHO tag may contain any number of any valid elements.
  *
  * @author Mario Bobic
  */
 public class SmartScriptParser {
 
-    /**
-     * Pattern for compiling variable and function names. Variable and function
-     * names must start with a letter and may contain 0 or more alphanumeric
-     * characters and/or underscore characters.
-     */
-    private static final Pattern VALID_VARNAME =
-            Pattern.compile("[a-zA-Z]+[_0-9a-zA-Z]*");
-
-    /** Operators supported by this parser. */
-    private static final String OPERATORS = "+-*/^";
-
     /** Minimum number of elements in body of a FOR tag. */
     private static final int FOR_MIN_ELEMENTS = 3;
     /** Maximum number of elements in body of a FOR tag. */
@@ -96,15 +88,148 @@ public class SmartScriptParser {
      * body text and parses the document.
      *
      * @param text document body text
+     * @throws IllegalArgumentException if the text is null
      */
     public SmartScriptParser(String text) {
-        lexer = new SSLexer(text);
+        this(new SSLexer(text));
+    }
+
+    /**
+     * Constructs an instance of a SmartScriptParser which reads the document
+     * body text from the given <tt>reader</tt> and parses the document. The
+     * document is read incrementally through a buffer of the specified size
+     * as it is parsed, so it is never held in memory as a whole. The reader is
+     * not closed by this parser.
+     *
+     * @param reader reader the document body text is read from
+     * @param bufferSize size of the buffer the document is read into, for
+     *        example {@link SSLexer#DEFAULT_BUFFER_SIZE}
+     * @throws IllegalArgumentException if the reader is null or if the buffer
+     *         size is too small
+     * @throws SmartScriptParserException if a parsing or reading error occurs
+     */
+    public SmartScriptParser(Reader reader, int bufferSize) {
+        this(newLexer(reader, bufferSize));
+    }
+
+    /**
+     * Constructs an instance of a SmartScriptParser which reads the document
+     * body text from the given <tt>channel</tt>, decoding it with the
+     * specified <tt>charset</tt>, and parses the document. The document is
+     * read incrementally as it is parsed, so it is never held in memory as a
+     * whole. The channel is not closed by this parser.
+     *
+     * @param channel channel the document body text is read from
+     * @param charset charset used for decoding the document
+     * @throws IllegalArgumentException if the channel or charset is null
+     * @throws SmartScriptParserException if a parsing or reading error occurs
+     */
+    public SmartScriptParser(ReadableByteChannel channel, Charset charset) {
+        this(newLexer(channel, charset));
+    }
+
+    /**
+     * Constructs an instance of a SmartScriptParser which reads the document
+     * body text from the file denoted by the given <tt>path</tt>, decoding it
+     * with the specified <tt>charset</tt>, and parses the document.
+     * <p>
+     * The file is memory-mapped and its bytes are decoded lazily as the
+     * document is parsed, so the file content is never copied onto the heap
+     * as a whole and repeated parses of the same file share the operating
+     * system's page cache. Files larger than {@linkplain Integer#MAX_VALUE}
+     * bytes can not be mapped and should be parsed from a channel instead.
+     *
+     * @param path path to the file containing the document body text
+     * @param charset charset used for decoding the document
+     * @throws IllegalArgumentException if the path or charset is null
+     * @throws IOException if the file can not be opened or mapped
+     * @throws SmartScriptParserException if a parsing error occurs
+     */
+    public SmartScriptParser(Path path, Charset charset) throws IOException {
+        this(newLexer(path, charset));
+    }
+
+    /**
+     * Constructs an instance of a SmartScriptParser which uses the given
+     * <tt>lexer</tt> for tokenizing the document body and parses the document.
+     *
+     * @param lexer lexer for tokenizing the document body
+     */
+    private SmartScriptParser(SSLexer lexer) {
+        this.lexer = lexer;
         document = new DocumentNode();
         stack = new ObjectStack();
 
         parseDoc();
     }
 
+    /**
+     * Creates a lexer that reads from the given <tt>reader</tt>. A reading
+     * error that occurs while the lexer is being created is rethrown as a
+     * {@linkplain SmartScriptParserException}.
+     *
+     * @param reader reader the document body text is read from
+     * @param bufferSize size of the buffer the document is read into
+     * @return a lexer reading from the given reader
+     * @throws IllegalArgumentException if the reader is null or if the buffer
+     *         size is too small
+     * @throws SmartScriptParserException if a reading error occurs
+     */
+    private static SSLexer newLexer(Reader reader, int bufferSize) {
+        try {
+            return new SSLexer(reader, bufferSize);
+        } catch (LexerException e) {
+            throw new SmartScriptParserException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a lexer that reads from the given <tt>channel</tt>. A reading
+     * error that occurs while the lexer is being created is rethrown as a
+     * {@linkplain SmartScriptParserException}.
+     *
+     * @param channel channel the document body text is read from
+     * @param charset charset used for decoding the document
+     * @return a lexer reading from the given channel
+     * @throws IllegalArgumentException if the channel or charset is null
+     * @throws SmartScriptParserException if a reading error occurs
+     */
+    private static SSLexer newLexer(ReadableByteChannel channel, Charset charset) {
+        try {
+            return new SSLexer(channel, charset);
+        } catch (LexerException e) {
+            throw new SmartScriptParserException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a lexer that decodes the memory-mapped file denoted by the given
+     * <tt>path</tt>. The mapping stays valid after the file channel used for
+     * creating it is closed.
+     *
+     * @param path path to the file containing the document body text
+     * @param charset charset used for decoding the document
+     * @return a lexer reading from the mapped file
+     * @throws IllegalArgumentException if the path or charset is null
+     * @throws IOException if the file can not be opened or mapped
+     */
+    private static SSLexer newLexer(Path path, Charset charset) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path must not be null.");
+        }
+
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped: " + path);
+            }
+            bytes = channel.map(MapMode.READ_ONLY, 0, size);
+        }
+
+        return new SSLexer(bytes, charset);
+    }
+
     /**
      * Returns the document node of this parser.
      *
@@ -137,13 +262,7 @@ public class SmartScriptParser {
         stack.push(document);
 
         while (true) {
-            SSToken token;
-            try {
-                token = lexer.nextToken();
-            } catch (LexerException e) {
-                throw new SmartScriptParserException(e.getMessage());
-            }
-
+            SSToken token = nextToken();
             SSTokenType tokenType = token.getType();
 
             if (tokenType == SSTokenType.TEXT) {
@@ -158,8 +277,10 @@ public class SmartScriptParser {
                     throw new SmartScriptParserException(
                         "Number of END tags is greater than the number of FOR tags.");
                 }
+            } else if (tokenType == SSTokenType.EOF) {
+                break;
             } else {
-                break; // else it is EOF
+                throw new SmartScriptParserException("Unexpected token: " + tokenType);
             }
         }
 
@@ -169,6 +290,22 @@ public class SmartScriptParser {
         }
     }
 
+    /**
+     * Returns the next token generated by the lexer. If an exception is thrown
+     * while calling the {@linkplain SSLexer#nextToken} method, it is caught and
+     * rethrown as a {@linkplain SmartScriptParserException}.
+     *
+     * @return the next token generated by the lexer
+     * @throws SmartScriptParserException if the lexer fails to generate a token
+     */
+    private SSToken nextToken() {
+        try {
+            return lexer.nextToken();
+        } catch (LexerException e) {
+            throw new SmartScriptParserException(e.getMessage());
+        }
+    }
+
     /**
      * Creates a text node with the given <tt>token</tt>. The given token is
      * expected to be a valid {@link SSTokenType#TEXT TEXT} token. The inner
@@ -189,43 +326,50 @@ public class SmartScriptParser {
     }
 
     /**
-     * Creates a for-loop node with the given <tt>token</tt>. Token is expected
-     * to have a string value. This string value is split into an array of
-     * elements and they are validated one by one. The number of elements of
-     * this array must not be under 3 and must not exceed 4. If either of these
-     * elements are invalid, a {@linkplain SmartScriptParserException} is
-     * thrown. The elements are checked and validated from first to last, and by
-     * validating it is considered that:
+     * Creates a for-loop node from the given <tt>token</tt> and the element
+     * tokens that follow it, up to the {@link SSTokenType#TAG_CLOSE TAG_CLOSE}
+     * token. The number of elements must not be under 3 and must not exceed 4.
+     * The elements are checked from first to last, and it is considered that:
      * <ul>
-     * <li>The first element is a variable with a valid variable name. If this
-     * check is not passed, an exception is thrown with invalid name message.
-     * <li>The rest of the elements are validated by checking if the element is
-     * a variable with a valid variable name, a valid string or a valid number.
-     * If none of the these checks are passed, an exception is thrown with an
-     * invalid element message.
+     * <li>The first element is a variable. If this check is not passed, an
+     * exception is thrown with invalid name message.
+     * <li>The rest of the elements are checked if the element is a variable, a
+     * string or a number. If none of the these checks are passed, an exception
+     * is thrown with an invalid element message.
      * </ul>
      * Note that a valid number element may be an
      * {@linkplain ElementConstantInteger} if the number is a valid integer, or
      * an {@linkplain ElementConstantDouble} if the number cannot be parsed as
      * an integer.
      * <p>
-     * The newly created text node is added as a child node to the last stacked
+     * The newly created for-loop node is added as a child node to the last stacked
      * node and is pushed onto the stack as a new parent for future nodes.
      *
      * @param token token to be put into a {@linkplain ForLoopNode}
+     * @throws SmartScriptParserException if the FOR tag body is invalid
      */
     protected void createForNode(SSToken token) {
-        String forBody = (String) token.getValue();
-        String[] forElements = splitKeepingQuotationMarks(forBody);
+        Element[] elements = new Element[FOR_MAX_ELEMENTS];
+        int count = 0;
+
+        for (SSToken next = nextToken(); next.getType() != SSTokenType.TAG_CLOSE; next = nextToken()) {
+            if (count == FOR_MAX_ELEMENTS) {
+                throw new SmartScriptParserException(String.format(
+                    "Must have %d or %d elements in FOR body.",
+                    FOR_MIN_ELEMENTS, FOR_MAX_ELEMENTS
+                ));
+            }
+            elements[count] = getForElement(next, count);
+            count++;
+        }
 
-        if (forElements.length < FOR_MIN_ELEMENTS|| forElements.length > FOR_MAX_ELEMENTS) {
+        if (count < FOR_MIN_ELEMENTS) {
             throw new SmartScriptParserException(String.format(
-                "Must have %d or %d elements in FOR body: %s",
-                FOR_MIN_ELEMENTS, FOR_MAX_ELEMENTS, forBody
+                "Must have %d or %d elements in FOR body.",
+                FOR_MIN_ELEMENTS, FOR_MAX_ELEMENTS
             ));
         }
 
-        Element[] elements = getForElements(forElements);
         ForLoopNode node =
             new ForLoopNode((ElementVariable) elements[0], elements[1], elements[2], elements[3]);
 
@@ -236,330 +380,85 @@ public class SmartScriptParser {
     }
 
     /**
-     * Returns an array of {@link Element Elements} in the body of a FOR tag.
-     * The <tt>forElements</tt> array is expected to be have at least
-     * {@link SmartScriptParser#FOR_MIN_ELEMENTS FOR_MIN_ELEMENTS} and checks
-     * all of the given string elements one by one. If either of these elements
-     * are invalid, a {@linkplain SmartScriptParserException} is thrown. The
-     * elements are checked and validated from first to last, and by validating
-     * it is considered that:
-     * <ul>
-     * <li>The first element is a variable with a valid variable name. If this
-     * check is not passed, an exception is thrown with invalid name message.
-     * <li>The rest of the elements are validated by checking if the element is
-     * a variable with a valid variable name, a valid string or a valid number.
-     * If none of the these checks are passed, an exception is thrown with an
-     * invalid element message.
-     * </ul>
-     * Note that a valid number element may be an
-     * {@linkplain ElementConstantInteger} if the number is a valid integer, or
-     * an {@linkplain ElementConstantDouble} if the number cannot be parsed as
-     * an integer.
+     * Returns an element of a FOR tag body created from the given
+     * <tt>token</tt>, which is at the specified <tt>index</tt> in the body.
+     * The element at index 0 must be a variable, while the rest of the elements
+     * must be a variable, a string or a number.
      *
-     * @param forElements an array of strings in the body of a FOR tag
-     * @return an array of string elements in the body of a FOR tag
-     * @throws SmartScriptParserException if any given element is invalid
+     * @param token token of a FOR tag body element
+     * @param index index of the element in the FOR tag body
+     * @return an element created from the given token
+     * @throws SmartScriptParserException if the element is not allowed
      */
-    private static Element[] getForElements(String[] forElements) {
-        Element[] elements = new Element[FOR_MAX_ELEMENTS];
-
-        String variable = forElements[0];
-        if (!isVariableNameValid(variable)) {
-            throw new SmartScriptParserException("Invalid name: " + variable);
-        }
-        elements[0] = new ElementVariable(variable);
+    private static Element getForElement(SSToken token, int index) {
+        Element element = createElement(token);
 
-        String start = forElements[1];
-        elements[1] = getForElementFrom(start);
-
-        String end = forElements[2];
-        elements[2] = getForElementFrom(end);
-
-        if (forElements.length == FOR_MAX_ELEMENTS) {
-            String step = forElements[3];
-            elements[3] = getForElementFrom(step);
-        } else {
-            elements[3] = null;
+        if (index == 0) {
+            if (!(element instanceof ElementVariable)) {
+                throw new SmartScriptParserException("Invalid name: " + element.asText());
+            }
+        } else if (element instanceof ElementFunction || element instanceof ElementOperator) {
+            throw new SmartScriptParserException("Invalid element: " + element.asText());
         }
 
-        return elements;
-    }
-
-    /**
-     * Returns an appropriate element from the given <tt>candidate</tt> adjusted
-     * for the FOR loop legal body elements. The candidate is tested for various
-     * elements in this order:
-     * <ol>
-     * <li>Is the candidate a valid variable name? If it is, an
-     * {@linkplain ElementVariable} is returned with its name set to
-     * <tt>candidate</tt>
-     * <li>Is the candidate a valid string? If it is, an
-     * {@linkplain ElementString} is returned with its value set to
-     * <tt>candidate</tt>
-     * <li>Is the candidate a valid number? If it is, an {@linkplain Element} is
-     * returned which may be an {@linkplain ElementConstantInteger} if the
-     * <tt>candidate</tt> is a valid integer, or an
-     * {@linkplain ElementConstantDouble} if the <tt>candidate</tt> cannot be
-     * parsed as an integer.
-     * </ol>
-     * If none of these tests pass, a {@linkplain SmartScriptParserException} is
-     * thrown.
-     *
-     * @param candidate candidate to be retrieved as an element
-     * @return an appropriate element from the given <tt>candidate</tt>
-     * @throws SmartScriptParserException if none of the above tests pass
-     */
-    private static Element getForElementFrom(String candidate) {
-        if (isVariableNameValid(candidate)) {
-            return new ElementVariable(candidate);
-        } else if (isStringValid(candidate)) {
-            return new ElementString(candidate);
-        } else if (isNumberValid(candidate)) {
-            return parseNumberElement(candidate);
-        } else {
-            throw new SmartScriptParserException("Invalid element: " + candidate);
-        }
+        return element;
     }
 
     /**
-     * Returns a number element parsed from <tt>s</tt> parameter. A number
-     * element may be an {@linkplain ElementConstantInteger} or an
-     * {@linkplain ElementConstantDouble}. This method parses the string
-     * argument either as a signed decimal integer or a signed decimal double.
-     * <p>
-     * In order to parse an integer number, the characters in the string must
-     * all be decimal digits, except that the first character may be an ASCII
-     * minus sign <tt>'-'</tt> to indicate a negative value or an ASCII plus
-     * sign <tt>'+'</tt> to indicate a positive value. Integer parsing is done
-     * by the {@link Integer#parseInt} method.
+     * Creates an echo node from the given <tt>token</tt> and the element
+     * tokens that follow it, up to the {@link SSTokenType#TAG_CLOSE TAG_CLOSE}
+     * token. An ECHO tag may contain any number of any valid elements.
      * <p>
-     * If the integer parsing does not succeed, the string is tried to be parsed
-     * as a double. Double parsing is done by the {@link Double#parseDouble}
-     * method.
-     * <p>
-     * If none of the parsing methods succeed, a
-     * {@linkplain SmartScriptParserException} is thrown.
-     *
-     * @param s number to be parsed into an integer or a double
-     * @return a number element parsed as an integer or a double
-     * @throws SmartScriptParserException if all number parsing methods fail
-     */
-    private static Element parseNumberElement(String s) {
-        try {
-            int value = Integer.parseInt(s);
-            return new ElementConstantInteger(value);
-        } catch (NumberFormatException e1) {
-            try {
-                double value = Double.parseDouble(s);
-                return new ElementConstantDouble(value);
-            } catch (NumberFormatException e2) {
-                throw new SmartScriptParserException("Cannot parse number: " + s);
-            }
-        }
-    }
-
-    /**
-     * Creates an echo node with the given <tt>token</tt>. Token is expected to
-     * have a string value. This string value is split into an array of elements
-     * and they are validated one by one.
+     * The newly created echo node is added as a child node to the last stacked
+     * node.
      *
      * @param token token to be put into a {@linkplain EchoNode}
+     * @throws SmartScriptParserException if the ECHO tag body is invalid
      */
     protected void createEchoNode(SSToken token) {
-        String echoBody = (String) token.getValue();
-        String[] echoElements = splitKeepingQuotationMarks(echoBody);
-
-        Element[] elements = getEchoElements(echoElements);
-        EchoNode node = new EchoNode(elements);
-
-        Node lastStackedNode = (Node) stack.peek();
-        lastStackedNode.addChildNode(node);
-    }
-
-    /**
-     * Returns an array of {@link Element Elements} in the body of an ECHO tag.
-     * The <tt>echoElements</tt> array may have any number of arguments. This
-     * method checks all of the given string elements one by one. If either of
-     * these elements are invalid, or in other words, if any of the given string
-     * elements cannot be represented as an {@linkplain Element}, a
-     * {@linkplain SmartScriptParserException} is thrown. The elements are
-     * checked and validated from first to last, and by validating it is
-     * considered that all of the elements are validated by checking if the
-     * element is a variable with a valid variable name, a valid string, a valid
-     * number, a valid function or a valid operator. If none of the these checks
-     * are passed, an exception is thrown with an invalid element message.
-     * <p>
-     * Note that a valid number element may be an
-     * {@linkplain ElementConstantInteger} if the number is a valid integer, or
-     * an {@linkplain ElementConstantDouble} if the number cannot be parsed as
-     * an integer.
-     *
-     * @param echoElements an array of strings in the body of an ECHO tag
-     * @return an array of string elements in the body of a ECHO tag
-     * @throws SmartScriptParserException if any given element is invalid
-     */
-    private static Element[] getEchoElements(String[] echoElements) {
-        Element[] elements = new Element[echoElements.length];
-
-        for (int i = 0; i < echoElements.length; i++) {
-            elements[i] = getEchoElementFrom(echoElements[i]);
-        }
+        ArrayIndexedCollection col = new ArrayIndexedCollection();
 
-        return elements;
-    }
-
-    /**
-     * Returns an appropriate element from the given <tt>candidate</tt> adjusted
-     * for the ECHO legal body elements. This method calls the
-     * {@linkplain SmartScriptParser#getForElementFrom} method to check if
-     * candidate is any of its legal elements. The candidate is tested for
-     * various elements in this order, with respect to the method that is
-     * called:
-     * <ol>
-     * <li>Is the candidate a valid variable name? If it is, an
-     * {@linkplain ElementVariable} is returned with its name set to
-     * <tt>candidate</tt>
-     * <li>Is the candidate a valid string? If it is, an
-     * {@linkplain ElementString} is returned with its value set to
-     * <tt>candidate</tt>
-     * <li>Is the candidate a valid number? If it is, an {@linkplain Element} is
-     * returned which may be an {@linkplain ElementConstantInteger} if the
-     * <tt>candidate</tt> is a valid integer, or an
-     * {@linkplain ElementConstantDouble} if the <tt>candidate</tt> cannot be
-     * parsed as an integer.
-     * <li>Is the candidate a valid function name? If it is, an
-     * {@linkplain ElementFunction} is returned with its name set to
-     * <tt>candidate</tt>
-     * <li>Is the candidate a valid operator symbol? If it is, an
-     * {@linkplain ElementOperator} is returned with its symbol set to
-     * <tt>candidate</tt>
-     * </ol>
-     * If none of these tests pass, a {@linkplain SmartScriptParserException} is
-     * thrown.
-     *
-     * @param candidate candidate to be retrieved as an element
-     * @return an appropriate element from the given <tt>candidate</tt>
-     * @throws SmartScriptParserException if none of the above tests pass
-     */
-    private static Element getEchoElementFrom(String candidate) {
-        try {
-            return getForElementFrom(candidate);
-        } catch (SmartScriptParserException e) {
-            if (isFunctionNameValid(candidate)) {
-                return new ElementFunction(candidate);
-            } else if (isOperatorValid(candidate)) {
-                return new ElementOperator(candidate);
-            } else {
-                throw new SmartScriptParserException("Invalid element: " + candidate);
-            }
+        for (SSToken next = nextToken(); next.getType() != SSTokenType.TAG_CLOSE; next = nextToken()) {
+            col.add(createElement(next));
         }
-    }
-
-    /**
-     * Returns true if the given <tt>name</tt> is a valid variable name.
-     * Variable names must start with a letter and may contain 0 or more
-     * alphanumeric characters and/or underscore characters.
-     *
-     * @param name variable name to be validated
-     * @return true if <tt>name</tt> is a valid variable name
-     */
-    private static boolean isVariableNameValid(String name) {
-        Matcher m = VALID_VARNAME.matcher(name);
-        return m.matches();
-    }
-
-    /**
-     * Returns true if the given <tt>name</tt> is a valid function name.
-     * Function names must have the <tt>'@'</tt> character at the beginning and
-     * must start with a letter and may contain 0 or more alphanumeric
-     * characters and/or underscore characters.
-     *
-     * @param name function name to be validated
-     * @return true if <tt>name</tt> is a valid function name
-     */
-    private static boolean isFunctionNameValid(String name) {
-        return name.startsWith(FUNCTION_MARK)
-                && isVariableNameValid(name.substring(1));
-    }
 
-    /**
-     * Returns true if the given <tt>string</tt> is a valid string. The string
-     * is first checked if it starts with and ends with quotation mark symbols.
-     * The string is also validated that the escape character may not be located
-     * at the very end of the string with nothing to escape. It also validates
-     * that the escape character may not be any character other than a quotation
-     * mark character, a newline character, a tabulator character, a carriage
-     * return character or the escape-character itself. If the string is bounded
-     * with quotation mark symbols and any of the stated criteria is not met,
-     * this method throws a {@linkplain SmartScriptParserException} with the
-     * invalid escape sequence detail message.
-     *
-     * @param string string to be validated
-     * @return true if <tt>string</tt> is a valid string
-     * @throws SmartScriptParserException if validity checks of a string fail
-     */
-    private static boolean isStringValid(String string) {
-        if (!(string.startsWith(QUOT_MARK) && string.endsWith(QUOT_MARK))) {
-            return false;
-        }
-
-        String withoutQuots = string.substring(1, string.length()-1);
-        char[] data = withoutQuots.toCharArray();
-
-        for (int i = 0; i < data.length; i++) {
-            if (data[i] == ESCAPE_CHAR) {
-                if (i == data.length-1) {
-                    throw new SmartScriptParserException(
-                            "Invalid string escape ending.");
-                } else {
-                    char nextChar = data[i+1];
-                    if ( !(nextChar == ESCAPE_CHAR
-                        || nextChar == QUOT_MARK.charAt(0)
-                        || nextChar == 'n'
-                        || nextChar == 'r'
-                        || nextChar == 't'
-                    )) {
-                        throw new SmartScriptParserException(
-                                "Invalid escape sequence: " + nextChar);
-                    } else {
-                        i++;
-                    }
-                }
-            }
+        Element[] elements = new Element[col.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = (Element) col.get(i);
         }
+        EchoNode node = new EchoNode(elements);
 
-        return true;
+        Node lastStackedNode = (Node) stack.peek();
+        lastStackedNode.addChildNode(node);
     }
 
     /**
-     * Returns true if the given <tt>number</tt> can be parsed either first into
-     * an integer or a double number. False otherwise.
-     * <p>This method literally tries to parse the number and returns the result
-     * based on the parsing result - if an exception was thrown and caught,
-     * false is returned.
+     * Returns an {@linkplain Element} created from the given tag body element
+     * <tt>token</tt>. The type of the element is determined by the token type.
      *
-     * @param number number to be validated
-     * @return true if <tt>number</tt> is a valid integer or double
+     * @param token token of a tag body element
+     * @return an element created from the given token
+     * @throws SmartScriptParserException if the token is not a tag body element
      */
-    private static boolean isNumberValid(String number) {
-        try {
-            parseNumberElement(number);
-            return true;
-        } catch (SmartScriptParserException e) {
-            return false;
+    private static Element createElement(SSToken token) {
+        Object value = token.getValue();
+
+        switch (token.getType()) {
+        case VARIABLE:
+            return new ElementVariable((String) value);
+        case FUNCTION:
+            return new ElementFunction((String) value);
+        case CONSTANT_INTEGER:
+            return new ElementConstantInteger((Integer) value);
+        case CONSTANT_DOUBLE:
+            return new ElementConstantDouble((Double) value);
+        case STRING:
+            return new ElementString((String) value);
+        case OPERATOR:
+            return new ElementOperator((String) value);
+        default:
+            throw new SmartScriptParserException("Unexpected token in tag body: " + token.getType());
         }
     }
 
-    /**
-     * Returns true if the given <tt>symbol</tt> is a valid operator symbol. An
-     * operator symbol must be one of the symbols given from the
-     * {@link SmartScriptParser#OPERATORS OPERATORS} character sequence.
-     *
-     * @param symbol operator symbol to be validated
-     * @return true if <tt>symbol</tt> is a valid operator symbol
-     */
-    private static boolean isOperatorValid(String symbol) {
-        return symbol.length() == 1 && OPERATORS.contains(symbol);
-    }
-
 }
@@ -0,0 +1,320 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+
+/**
+ * A cache of parsed templates. Templates are read from files and parsed by the
+ * {@linkplain SmartScriptParser} only when they are not cached or when their
+ * files have changed since they were parsed.
+ * <p>
+ * Templates are keyed by their absolute, normalized path. A cached template is
+ * valid as long as the last modified time and the size of its file stay the
+ * same, which is checked on every {@linkplain #get(Path) get}.
+ * <p>
+ * The cache holds at most the specified number of templates with at most the
+ * specified number of estimated bytes. The size of a parsed template is
+ * estimated as twice the size of its file, since the text of a template is
+ * kept in its nodes as UTF-16 characters. When either of the limits is
+ * exceeded, the least recently used templates are evicted. The template that
+ * was just parsed is never evicted, even if it alone exceeds the limits.
+ * <p>
+ * This cache is safe for concurrent use. If several threads ask for the same
+ * template which is not cached, the template is parsed only once, by the first
+ * thread, while the other threads wait for its result. Parsed templates are
+ * shared between threads and must not be modified.
+ *
+ * @author Mario Bobic
+ * @see SmartScriptParser
+ */
+public class TemplateCache {
+
+    /** Ratio of the estimated size of a template to the size of its file. */
+    private static final int BYTES_PER_FILE_BYTE = 2;
+
+    /** Maximum number of cached templates. */
+    private final int maxEntries;
+    /** Maximum number of estimated bytes of cached templates. */
+    private final long maxBytes;
+    /** Charset of the template files. */
+    private final Charset charset;
+
+    /** Cached templates, in the order from least to most recently used. */
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Estimated bytes of cached templates. */
+    private long bytes;
+    /** Number of requests for templates that were cached. */
+    private long hits;
+    /** Number of requests for templates that were not cached. */
+    private long misses;
+    /** Number of evicted templates. */
+    private long evictions;
+    /** Number of parsed templates. */
+    private long parses;
+
+    /**
+     * Constructs an instance of TemplateCache with the specified limits that
+     * reads the template files in UTF-8.
+     *
+     * @param maxEntries maximum number of cached templates
+     * @param maxBytes maximum number of estimated bytes of cached templates
+     * @throws IllegalArgumentException if a limit is less than 1
+     */
+    public TemplateCache(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Constructs an instance of TemplateCache with the specified limits that
+     * reads the template files in the specified charset.
+     *
+     * @param maxEntries maximum number of cached templates
+     * @param maxBytes maximum number of estimated bytes of cached templates
+     * @param charset charset of the template files
+     * @throws IllegalArgumentException if a limit is less than 1 or if
+     *         <tt>charset</tt> is <tt>null</tt>
+     */
+    public TemplateCache(int maxEntries, long maxBytes, Charset charset) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException(
+                "Limits must not be less than 1: " + maxEntries + ", " + maxBytes);
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("Charset must not be null.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.charset = charset;
+    }
+
+    /**
+     * Returns the parsed template from the file with the given <tt>path</tt>.
+     * The template is taken from the cache if it is cached and its file has
+     * not changed since. Otherwise the template is parsed and cached.
+     *
+     * @param path path of the template file
+     * @return the document node of the parsed template
+     * @throws IOException if the template file can not be read, or if the
+     *         thread is interrupted while waiting for another thread to parse
+     *         the template
+     * @throws SmartScriptParserException if the template can not be parsed
+     */
+    public DocumentNode get(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+
+        Entry entry;
+        boolean parse = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isValid(attributes)) {
+                hits++;
+            } else {
+                misses++;
+                if (entry != null) {
+                    remove(key);
+                }
+                entry = new Entry(key, attributes);
+                entries.put(key, entry);
+                bytes += entry.estimatedBytes;
+                evict();
+                parse = true;
+            }
+        }
+
+        if (parse) {
+            entry.task.run();
+        }
+
+        try {
+            return entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for template: " + key);
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    remove(key);
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new SmartScriptParserException(cause);
+            }
+        }
+    }
+
+    /**
+     * Removes the template from the file with the given <tt>path</tt> from the
+     * cache, if it is cached.
+     *
+     * @param path path of the template file
+     */
+    public synchronized void invalidate(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        if (entries.containsKey(key)) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Removes all templates from the cache. The counters are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of cached templates.
+     *
+     * @return the number of cached templates
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated bytes of the cached templates.
+     *
+     * @return the estimated bytes of the cached templates
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of requests for templates that were cached.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests for templates that were not cached or
+     * whose files have changed.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of times a template was parsed. Concurrent requests
+     * for a template that is not cached wait for a single parse, so this
+     * number does not exceed the number of {@link #getMisses() misses}.
+     *
+     * @return the number of parsed templates
+     */
+    public synchronized long getParses() {
+        return parses;
+    }
+
+    /**
+     * Returns the number of templates evicted because the cache limits were
+     * exceeded.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Evicts the least recently used templates until the cache limits are met
+     * or only the most recently used template is left.
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && entries.size() > 1) {
+            Entry eldest = it.next();
+            it.remove();
+            bytes -= eldest.estimatedBytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the template with the given <tt>key</tt> from the cache.
+     *
+     * @param key key of the template
+     */
+    private void remove(Path key) {
+        bytes -= entries.remove(key).estimatedBytes;
+    }
+
+    /**
+     * A cached template. The template is parsed by a task which is run by the
+     * thread that created the entry.
+     *
+     * @author Mario Bobic
+     */
+    private class Entry {
+        /** Last modified time of the template file when it was parsed. */
+        private final FileTime lastModified;
+        /** Size of the template file when it was parsed. */
+        private final long size;
+        /** Estimated bytes of the parsed template. */
+        private final long estimatedBytes;
+        /** Task parsing the template. */
+        private final FutureTask<DocumentNode> task;
+
+        /**
+         * Constructs an instance of Entry for the template file with the given
+         * <tt>path</tt> and <tt>attributes</tt>.
+         *
+         * @param path path of the template file
+         * @param attributes attributes of the template file
+         */
+        public Entry(final Path path, BasicFileAttributes attributes) {
+            this.lastModified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.estimatedBytes = BYTES_PER_FILE_BYTE * size;
+            this.task = new FutureTask<>(new Callable<DocumentNode>() {
+                @Override
+                public DocumentNode call() throws IOException {
+                    synchronized (TemplateCache.this) {
+                        parses++;
+                    }
+                    return new SmartScriptParser(path, charset).getDocumentNode();
+                }
+            });
+        }
+
+        /**
+         * Returns true if the template file still has the given
+         * <tt>attributes</tt>.
+         *
+         * @param attributes current attributes of the template file
+         * @return true if this entry is valid for the given attributes
+         */
+        public boolean isValid(BasicFileAttributes attributes) {
+            return lastModified.equals(attributes.lastModifiedTime())
+                    && size == attributes.size();
+        }
+    }
+
+}
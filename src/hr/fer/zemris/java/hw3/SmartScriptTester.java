@@ -1,8 +1,10 @@
 package hr.fer.zemris.java.hw3;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import hr.fer.zemris.java.custom.scripting.lexer.SSTokenType;
@@ -15,11 +17,23 @@ import hr.fer.zemris.java.custom.scripting.parser.*;
  * the path from the command line to nodes in a tree and then it recreates the
  * original textual body from that tree. The body is printed out onto the
  * standard output.
+ * <p>
+ * If the {@value #COMPARE_OPTION} option is given after the path, the
+ * document is instead parsed repeatedly, both from a string read onto the
+ * heap and from a memory-mapped file, and the average time and the number of
+ * bytes allocated per parse are printed out for each of these two ways.
  *
  * @author Mario Bobic
  */
 public class SmartScriptTester {
 
+    /** Command line option for comparing the ways of reading a document. */
+    private static final String COMPARE_OPTION = "--compare";
+    /** Number of parses done before measuring, in the comparison mode. */
+    private static final int WARMUP_ITERATIONS = 20;
+    /** Number of parses that are measured, in the comparison mode. */
+    private static final int MEASURED_ITERATIONS = 50;
+
     /**
      * Program entry point.
      *
@@ -30,25 +44,20 @@ public class SmartScriptTester {
     /* Also, for this parser I have prepared a series of JUnit 4 tests.
      * These can be found in the tests/prob2 source folder. */
     public static void main(String[] args) {
-        if (args.length != 1) {
+        boolean compare = args.length == 2 && args[1].equals(COMPARE_OPTION);
+        if (args.length != 1 && !compare) {
             System.err.println("Expected one argument: path to file");
+            System.err.println("Optionally followed by: " + COMPARE_OPTION);
             System.exit(1);
         }
 
-        String docBody = null;
+        Path path = Paths.get(args[0]);
+        SmartScriptParser parser = null;
         try {
-            docBody = new String(
-                    Files.readAllBytes(Paths.get(args[0])),
-                    StandardCharsets.UTF_8
-            );
+            parser = new SmartScriptParser(path, StandardCharsets.UTF_8);
         } catch (IOException e) {
             System.err.println("Invalid path to text document.");
             System.exit(2);
-        }
-
-        SmartScriptParser parser = null;
-        try {
-            parser = new SmartScriptParser(docBody);
         } catch (SmartScriptParserException e) {
             System.err.println("Unable to parse document!");
             System.err.println(e.getMessage());
@@ -59,6 +68,16 @@ public class SmartScriptTester {
             System.exit(-1);
         }
 
+        if (compare) {
+            try {
+                compareReading(path);
+            } catch (IOException e) {
+                System.err.println("Unable to read text document.");
+                System.exit(2);
+            }
+            return;
+        }
+
         DocumentNode document = parser.getDocumentNode();
         String originalDocumentBody = null;
         try {
@@ -99,4 +118,93 @@ public class SmartScriptTester {
         return document.toString();
     }
 
+    /**
+     * Parses the document denoted by the given <tt>path</tt> repeatedly, first
+     * by reading all of its bytes into a string on the heap and then by
+     * memory-mapping the file, and prints out the average time and the number
+     * of bytes allocated per parse for both of these ways.
+     *
+     * @param path path to the document
+     * @throws IOException if an I/O error occurs
+     */
+    private static void compareReading(final Path path) throws IOException {
+        measure("Heap copy", new Parse() {
+            @Override
+            public void parse() throws IOException {
+                String docBody = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+                new SmartScriptParser(docBody);
+            }
+        });
+
+        measure("Memory map", new Parse() {
+            @Override
+            public void parse() throws IOException {
+                new SmartScriptParser(path, StandardCharsets.UTF_8);
+            }
+        });
+    }
+
+    /**
+     * Runs the given <tt>parse</tt> a number of times to warm up and then
+     * measures the average time and the number of bytes allocated by the
+     * current thread per parse. The results are printed out onto the standard
+     * output, labeled with the given <tt>name</tt>. The allocated bytes are
+     * printed out only if the virtual machine supports measuring them.
+     *
+     * @param name name of the measured way of parsing
+     * @param parse the parse to be measured
+     * @throws IOException if an I/O error occurs
+     */
+    private static void measure(String name, Parse parse) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parse.parse();
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parse.parse();
+        }
+        long time = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-10s %10.3f ms per parse", name, time / 1e6 / MEASURED_ITERATIONS);
+        if (allocatedBefore >= 0) {
+            System.out.printf(", %d bytes allocated per parse", allocated / MEASURED_ITERATIONS);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Returns the total number of bytes allocated by the current thread, or -1
+     * if the virtual machine does not support measuring it.
+     *
+     * @return the number of bytes allocated by the current thread, or -1
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A single parse of a document, used in the comparison mode.
+     *
+     * @author Mario Bobic
+     */
+    private interface Parse {
+
+        /**
+         * Parses the document.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void parse() throws IOException;
+    }
+
 }
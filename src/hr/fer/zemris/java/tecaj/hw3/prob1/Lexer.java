@@ -1,36 +1,168 @@
 package hr.fer.zemris.java.tecaj.hw3.prob1;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Lexer is a program that performs lexical analysis. Lexer is combined with a
  * parser, which together analyze the syntax and extract tokens from the input
  * text.
  * <p>
- * Lexer provides one constructor which accepts an input text to be tokenized.
- * The input text is analyzed and tokens are made depending on the token type.
- * It also provides a method for generating the next token and a method that
- * returns the last generated token.
+ * Lexer provides a constructor which accepts an input text to be tokenized,
+ * and constructors which accept a {@linkplain Reader} or a
+ * {@linkplain ReadableByteChannel} the input text is read from. The input text
+ * is analyzed and tokens are made depending on the token type. It also
+ * provides a method for generating the next token and a method that returns
+ * the last generated token.
+ * <p>
+ * When reading from a stream, the input text is read through a fixed-size
+ * buffer that is refilled as tokens are generated, so tokens are produced
+ * before the whole text is read and the memory used by this lexer is bounded
+ * by the size of the longest token. The text is trimmed the same way as a text
+ * given as a string. The stream is not closed by this lexer.
  * <p>
  * Lexer has two states, {@link LexerState#BASIC basic} and
  * {@link LexerState#EXTENDED extended}. The basic state is the default Lexer
  * state and allows escape characters for words and delimits regularly on
  * whitespaces. The extended state of Lexer does not allow escape characters,
  * whitespaces or the letter-digit transition to delimit the tokens.
+ * <p>
+ * Tokens may also be generated as a {@linkplain TokenView}, which is one
+ * mutable view refilled with every token by {@link #nextTokenView()}. Words
+ * and symbols in a view are not copied from the input text and numbers are not
+ * boxed, so tokenizing with views produces no garbage per token.
+ * <p>
+ * Tokens may also be consumed as a lazy {@linkplain Stream}, either the
+ * remaining tokens of a lexer by {@link #tokens()} or all tokens of a text by
+ * {@link #stream(String)}, which can be split for a parallel stream.
  *
  * @author Mario Bobic
  * @see TokenType
  * @see LexerState
+ * @see TokenView
  */
 public class Lexer {
 
+    /** Default size of the buffer used when reading from a stream. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
     /** An escape character for escaping numbers into words. */
-    private static final Character ESCAPE_CHAR = '\\';
+    static final char ESCAPE_CHAR = '\\';
     /** A character for toggling the Lexer state. */
-    private static final Character EXTEND_CHAR = '#';
+    static final char EXTEND_CHAR = '#';
+
+    /** Character class of letters. */
+    private static final int LETTER = 0;
+    /** Character class of digits. */
+    private static final int DIGIT = 1;
+    /** Character class of the escape character. */
+    private static final int ESCAPE = 2;
+    /** Character class of the extending character. */
+    private static final int EXTEND = 3;
+    /** Character class of whitespace characters. */
+    private static final int SPACE = 4;
+    /** Character class of all other characters. */
+    private static final int OTHER = 5;
+    /** Character class of the end of the input text. */
+    private static final int END = 6;
+    /** Number of bits of the character class in a transition index. */
+    private static final int CLASS_BITS = 3;
+    /** Character classes of all ASCII characters, indexed by character. */
+    private static final byte[] CHAR_CLASSES = new byte[128];
 
-    /** Input text for tokenization. */
-    private final char[] data;
-    /** Current token. */
+    static {
+        for (char c = 0; c < CHAR_CLASSES.length; c++) {
+            CHAR_CLASSES[c] = (byte) classify(c);
+        }
+    }
+
+    /** Scanning state at the start of a token. */
+    private static final byte START = 0;
+    /** Scanning state inside a word. */
+    private static final byte IN_WORD = 1;
+    /** Scanning state after an escape character in a word. */
+    private static final byte IN_ESCAPE = 2;
+    /** Scanning state inside a number. */
+    private static final byte IN_NUMBER = 3;
+    /** Scanning state inside a word in the extended Lexer state. */
+    private static final byte IN_EXTENDED_WORD = 4;
+    /** Accepts a word, not including the current character. */
+    private static final byte ACCEPT_WORD = 5;
+    /** Accepts a number, not including the current character. */
+    private static final byte ACCEPT_NUMBER = 6;
+    /** Accepts the current character as a symbol. */
+    private static final byte ACCEPT_SYMBOL = 7;
+    /** Rejects an escape character at the end of the input text. */
+    private static final byte REJECT_ESCAPE_ENDING = 8;
+    /** Rejects an escape of a character other than a digit or an escape. */
+    private static final byte REJECT_ESCAPE_SEQUENCE = 9;
+
+    /**
+     * Transitions of the {@link LexerState#BASIC basic} state, indexed by
+     * <tt>scanState &lt;&lt; CLASS_BITS | charClass</tt>. States from
+     * {@link #ACCEPT_WORD} onwards end the token.
+     */
+    private static final byte[] BASIC_TRANSITIONS = flatten(new byte[][] {
+        // columns: LETTER, DIGIT, ESCAPE, EXTEND, SPACE, OTHER, END
+        /* START */ {IN_WORD, IN_NUMBER, IN_ESCAPE,
+                ACCEPT_SYMBOL, ACCEPT_SYMBOL, ACCEPT_SYMBOL, ACCEPT_SYMBOL},
+        /* IN_WORD */ {IN_WORD, ACCEPT_WORD, IN_ESCAPE,
+                ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD},
+        /* IN_ESCAPE */ {REJECT_ESCAPE_SEQUENCE, IN_WORD, IN_WORD,
+                REJECT_ESCAPE_SEQUENCE, REJECT_ESCAPE_SEQUENCE, REJECT_ESCAPE_SEQUENCE, REJECT_ESCAPE_ENDING},
+        /* IN_NUMBER */ {ACCEPT_NUMBER, IN_NUMBER, ACCEPT_NUMBER,
+                ACCEPT_NUMBER, ACCEPT_NUMBER, ACCEPT_NUMBER, ACCEPT_NUMBER},
+        /* IN_EXTENDED_WORD, unreachable */ {ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD,
+                ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD}
+    });
+
+    /**
+     * Transitions of the {@link LexerState#EXTENDED extended} state, indexed
+     * by <tt>scanState &lt;&lt; CLASS_BITS | charClass</tt>. States from
+     * {@link #ACCEPT_WORD} onwards end the token.
+     */
+    private static final byte[] EXTENDED_TRANSITIONS = flatten(new byte[][] {
+        // columns: LETTER, DIGIT, ESCAPE, EXTEND, SPACE, OTHER, END
+        /* START */ {IN_EXTENDED_WORD, IN_EXTENDED_WORD, IN_EXTENDED_WORD,
+                ACCEPT_SYMBOL, ACCEPT_SYMBOL, IN_EXTENDED_WORD, ACCEPT_SYMBOL},
+        /* IN_WORD, unreachable */ {ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD,
+                ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD},
+        /* IN_ESCAPE, unreachable */ {ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD,
+                ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD},
+        /* IN_NUMBER, unreachable */ {ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD,
+                ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD, ACCEPT_WORD},
+        /* IN_EXTENDED_WORD */ {IN_EXTENDED_WORD, IN_EXTENDED_WORD, IN_EXTENDED_WORD,
+                ACCEPT_WORD, ACCEPT_WORD, IN_EXTENDED_WORD, ACCEPT_WORD}
+    });
+
+    /** Input text for tokenization, or the buffer it is read into. */
+    private char[] data;
+    /** Number of valid characters in the <tt>data</tt> array. */
+    private int limit;
+    /**
+     * Index after the last character to process. When reading from a stream,
+     * characters up to the <tt>limit</tt> that would be trimmed if the stream
+     * ended after them are not processed until more of the stream is read.
+     */
+    private int endIndex;
+    /** Reader the input text is read from, or null. */
+    private final Reader reader;
+    /** Indicates if all of the input text is in the <tt>data</tt> array. */
+    private boolean exhausted;
+    /** Offset of the <tt>data</tt> array in the input text. */
+    private int base;
+    /** Current token, or <tt>null</tt> if not yet made from the view. */
     private Token token;
+    /** View of the current token. */
+    private final TokenView view = new TokenView();
+    /** Buffer for the text of words with escape sequences. */
+    private char[] buffer = new char[16];
     /** Index of the first character to process. */
     private int currentIndex;
     /** Current state of Lexer. */
@@ -48,15 +180,114 @@ public class Lexer {
             throw new IllegalArgumentException("Text must not be null.");
         }
 
-        data = text.trim().toCharArray();
-        currentIndex = 0;
+        data = text.toCharArray();
+        // same as trimming the text, but keeps the offsets of the tokens
+        int start = 0;
+        int end = data.length;
+        while (start < end && data[start] <= ' ') start++;
+        while (start < end && data[end-1] <= ' ') end--;
+
+        currentIndex = start;
+        endIndex = end;
+        limit = data.length;
+        reader = null;
+        exhausted = true;
+        state = LexerState.BASIC;
+    }
+
+    /**
+     * Constructs an instance of Lexer which reads the input text to be
+     * tokenized from the given <tt>reader</tt> through a buffer of the
+     * specified size, such as the {@link #DEFAULT_BUFFER_SIZE}. The buffer
+     * grows only if a single token does not fit into it.
+     *
+     * @param reader reader the text for tokenization is read from
+     * @param bufferSize initial size of the buffer the text is read into
+     * @throws IllegalArgumentException if the reader is null or if the buffer
+     *         size is not positive
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    public Lexer(Reader reader, int bufferSize) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader must not be null.");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size is too small: " + bufferSize);
+        }
+
+        data = new char[bufferSize];
+        this.reader = reader;
         state = LexerState.BASIC;
+        skipLeadingSpaces();
+    }
+
+    /**
+     * Constructs an instance of Lexer which reads the input text to be
+     * tokenized from the given <tt>channel</tt> through a buffer of the
+     * default size, decoding the bytes with the specified <tt>charset</tt>.
+     * Malformed input is replaced with the charset's default replacement
+     * string.
+     *
+     * @param channel channel the text for tokenization is read from
+     * @param charset charset used for decoding the bytes
+     * @throws IllegalArgumentException if the channel or charset is null
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    public Lexer(ReadableByteChannel channel, Charset charset) {
+        this(newReader(channel, charset), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs an instance of Lexer that tokenizes the characters of the
+     * given array from <tt>start</tt> to <tt>end</tt>, starting in the given
+     * state. The characters are not trimmed and not copied, so the offsets of
+     * the tokens refer to the array.
+     *
+     * @param data array holding the text for tokenization
+     * @param start index of the first character to tokenize
+     * @param end index after the last character to tokenize
+     * @param state initial state of Lexer
+     */
+    Lexer(char[] data, int start, int end, LexerState state) {
+        this.data = data;
+        this.currentIndex = start;
+        this.endIndex = end;
+        this.limit = end;
+        this.reader = null;
+        this.exhausted = true;
+        this.state = state;
+    }
+
+    /**
+     * Returns a reader that decodes bytes from the given <tt>channel</tt>
+     * using the specified <tt>charset</tt>, replacing malformed input and
+     * unmappable characters the same way the {@linkplain String} constructors
+     * do.
+     *
+     * @param channel channel to be read from
+     * @param charset charset used for decoding the bytes
+     * @return a reader over the given channel
+     * @throws IllegalArgumentException if the channel or charset is null
+     */
+    private static Reader newReader(ReadableByteChannel channel, Charset charset) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null.");
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("Charset must not be null.");
+        }
+
+        return Channels.newReader(channel, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
     }
 
     /**
      * Generates and returns the next token. Tokens are generated from the input
      * text and their type depends on the input text. If the input text is
-     * exhausted, a {@linkplain LexerException} is thrown.
+     * exhausted, an {@link TokenType#EOF EOF} token is returned. This method
+     * throws {@linkplain LexerException} if an attempt is made to generate a
+     * token after the EOF token.
      *
      * @return the next token generated from the input text
      * @throws LexerException
@@ -64,49 +295,40 @@ public class Lexer {
      *             sequence is given
      */
     public Token nextToken() {
-        if (token != null && token.getType() == TokenType.EOF) {
-            throw new LexerException("No next token after EOF.");
-        }
-
-        if (isDataEnd()) {
-            token = new Token(TokenType.EOF, null);
-        } else {
-            Character ch = data[currentIndex];
-
-            if (state == LexerState.EXTENDED) {
-                String extendedWord = getExtendedWord();
-                if (extendedWord.isEmpty()) {
-                    token = new Token(TokenType.SYMBOL, EXTEND_CHAR);
-                    currentIndex++;
-                } else {
-                    token = new Token(TokenType.WORD, extendedWord);
-                }
-            } else if (Character.isLetter(ch) || ch.equals(ESCAPE_CHAR)) {
-                String word = getWord();
-                token = new Token(TokenType.WORD, word);
-            } else if (Character.isDigit(ch)) {
-                Long number = getNumber();
-                token = new Token(TokenType.NUMBER, number);
-            } else {
-                Character symbol = getSymbol();
-                token = new Token(TokenType.SYMBOL, symbol);
-                if (symbol.equals(EXTEND_CHAR)) {
-                    setState(LexerState.EXTENDED);
-                }
-            }
-            skipSpaces();
-        }
-
+        scan();
+        token = view.toToken();
         return token;
     }
 
+    /**
+     * Generates the next token into the view of this Lexer and returns the
+     * view. The view is the same object for every token and is refilled by
+     * the next call to this method or to {@link #nextToken()}, so it must not
+     * be kept. This method throws {@linkplain LexerException} if an attempt is
+     * made to generate a token after the EOF token.
+     *
+     * @return the view of the next token generated from the input text
+     * @throws LexerException
+     *             if there is no next token to generate or if an invalid escape
+     *             sequence is given
+     */
+    public TokenView nextTokenView() {
+        scan();
+        token = null;
+        return view;
+    }
+
     /**
      * Returns the last generated token. This method may be called multiple
-     * times because it does not generate the next token.
+     * times because it does not generate the next token. If the last token was
+     * generated into the view, the token is made from the view.
      *
      * @return the last generated token
      */
     public Token getToken() {
+        if (token == null && view.getType() != null) {
+            token = view.toToken();
+        }
         return token;
     }
 
@@ -125,138 +347,375 @@ public class Lexer {
     }
 
     /**
-     * Returns a {@link TokenType#WORD word} starting from the
-     * <tt>currentIndex</tt> and ending on the first whitespace character,
-     * number or any other non-letter symbol that is not escaped. This method
-     * increases the currentIndex variable as it goes. This method may throw a
-     * {@linkplain LexerException} if the escape sequence is invalid. This means
-     * that the escape character may not be located at the very end of the input
-     * text with nothing to escape. It also means that the escape character may
-     * not be any character other than a digit or the escape-character itself.
+     * Returns a sequential stream of the remaining tokens of this Lexer, not
+     * including the <tt>EOF</tt> token. The tokens are generated lazily as the
+     * stream is consumed, and every <tt>#</tt> symbol toggles the state of
+     * this Lexer. The stream can not be split, so a parallel stream is not
+     * faster. This Lexer must not be used while the stream is consumed.
      *
-     * @return a word starting from the currentIndex
-     * @throws LexerException if the escape sequence is invalid
+     * @return a stream of the remaining tokens of this Lexer
+     * @throws LexerException
+     *             from the terminal operation of the stream if an invalid
+     *             escape sequence is given or if a number is too big
      */
-    private String getWord() {
-        StringBuilder sb = new StringBuilder();
-        boolean wasEscaped = false;
+    public Stream<Token> tokens() {
+        if (view.getType() == TokenType.EOF) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(new TokenSpliterator(this, state == LexerState.EXTENDED), false);
+    }
+
+    /**
+     * Returns a sequential stream of all tokens of the given text, not
+     * including the <tt>EOF</tt> token, as generated by a Lexer that toggles
+     * its state on every <tt>#</tt> symbol. The tokens are generated lazily as
+     * the stream is consumed, so a short-circuiting operation does not
+     * tokenize the rest of the text.
+     * <p>
+     * The stream can be split at whitespace characters, so if it is made
+     * {@linkplain Stream#parallel() parallel}, parts of the text are tokenized
+     * in parallel. If the text can not be tokenized, a parallel stream may
+     * throw an exception from a later part of the text than a sequential
+     * stream would.
+     *
+     * @param text text for tokenization
+     * @return a stream of all tokens of the text
+     * @throws IllegalArgumentException if the input text is null
+     * @throws LexerException
+     *             from the terminal operation of the stream if an invalid
+     *             escape sequence is given or if a number is too big
+     */
+    public static Stream<Token> stream(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text must not be null.");
+        }
 
+        char[] data = text.toCharArray();
+        // same as trimming the text, as the constructor does
+        int start = 0;
+        int end = data.length;
+        while (start < end && data[start] <= ' ') start++;
+        while (start < end && data[end-1] <= ' ') end--;
+
+        return StreamSupport.stream(new TokenSpliterator(data, start, end, false), false);
+    }
+
+    /**
+     * Generates the next token into the view. The token is scanned by a state
+     * machine which looks up the transitions of the current Lexer state by the
+     * {@linkplain #classOf(char) class} of each character, until it reaches a
+     * state that accepts or rejects the token. While scanning, the digits of a
+     * number are accumulated into its value and the characters of a word with
+     * escape sequences are unescaped into the buffer. The text of any other
+     * token is a part of the input text.
+     *
+     * @throws LexerException
+     *             if there is no next token to generate, if an invalid escape
+     *             sequence is given or if a number is too big
+     */
+    private void scan() {
+        if (view.getType() == TokenType.EOF) {
+            throw new LexerException("No next token after EOF.");
+        }
+
+        // spaces after the previous token are skipped here and not right
+        // after it, since reading more of a stream moves the text of the token
+        if (view.getType() != null) {
+            skipSpaces();
+        }
+        if (isDataEnd()) {
+            view.set(TokenType.EOF, base + currentIndex, 0, data, currentIndex, 0, 0);
+            return;
+        }
+
+        byte[] transitions = state == LexerState.BASIC ? BASIC_TRANSITIONS : EXTENDED_TRANSITIONS;
+        char[] data = this.data;
+        int end = endIndex;
+        int start = currentIndex;
+        int index = start;
+        // length of the unescaped text in the buffer, or -1 if not buffered
+        int bufferLength = -1;
+        long number = 0;
+        boolean tooBig = false;
+
+        char ch;
+        int next;
+        int scanState = START;
         while (true) {
-            Character letter = data[currentIndex];
+            int charClass;
+            if (index < end) {
+                ch = data[index];
+                charClass = ch < CHAR_CLASSES.length ? CHAR_CLASSES[ch] : classify(ch);
+            } else if (!exhausted) {
+                // the token goes on past the buffer, currentIndex is its start
+                int shift = refill();
+                start -= shift;
+                index -= shift;
+                data = this.data;
+                end = endIndex;
+                continue;
+            } else {
+                ch = 0;
+                charClass = END;
+            }
 
-            if (letter.equals(ESCAPE_CHAR) && !wasEscaped) {
-                currentIndex++;
-                if (isDataEnd()) {
-                    throw new LexerException("Invalid escape ending.");
-                } else {
-                    wasEscaped = true;
-                    continue;
-                }
+            next = transitions[scanState << CLASS_BITS | charClass];
+            if (next >= ACCEPT_WORD) {
+                break;
             }
 
-            if (!wasEscaped) {
-                if (!Character.isLetter(letter)) {
-                    break;
+            if (next == IN_NUMBER) {
+                int digit = ch < CHAR_CLASSES.length ? ch - '0' : Character.digit(ch, 10);
+                if (number > (Long.MAX_VALUE - digit) / 10) {
+                    tooBig = true;
+                } else {
+                    number = number * 10 + digit;
                 }
-            } else {
-                wasEscaped = false;
-                if (!Character.isDigit(letter) && !letter.equals(ESCAPE_CHAR)) {
-                    throw new LexerException("Invalid escape sequence: " + letter);
+            } else if (next == IN_ESCAPE) {
+                if (bufferLength < 0) {
+                    bufferLength = index - start;
+                    ensureBuffer(bufferLength);
+                    System.arraycopy(data, start, buffer, 0, bufferLength);
                 }
+            } else if (bufferLength >= 0) {
+                ensureBuffer(bufferLength + 1);
+                buffer[bufferLength++] = ch;
             }
+            index++;
+            scanState = next;
+        }
+        currentIndex = index;
 
-            sb.append(data[currentIndex]);
+        int length = index - start;
+        switch (next) {
+        case ACCEPT_WORD:
+            if (bufferLength < 0) {
+                view.set(TokenType.WORD, base + start, length, data, start, length, 0);
+            } else {
+                view.set(TokenType.WORD, base + start, length, buffer, 0, bufferLength, 0);
+            }
+            break;
+        case ACCEPT_NUMBER:
+            if (tooBig) {
+                throw new LexerException("Number is too big: " + new String(data, start, length));
+            }
+            view.set(TokenType.NUMBER, base + start, length, data, start, length, number);
+            break;
+        case ACCEPT_SYMBOL:
+            view.set(TokenType.SYMBOL, base + start, 1, data, start, 1, 0);
             currentIndex++;
-
-            if (isDataEnd()) break;
+            if (ch == EXTEND_CHAR && state == LexerState.BASIC) {
+                setState(LexerState.EXTENDED);
+            }
+            break;
+        case REJECT_ESCAPE_ENDING:
+            throw new LexerException("Invalid escape ending.");
+        default:
+            throw new LexerException("Invalid escape sequence: " + ch);
         }
-
-        return sb.toString();
     }
 
     /**
-     * Returns a {@link TokenType#NUMBER number} starting from the
-     * <tt>currentIndex</tt> and ending on the first whitespace character,
-     * letter or any other non-number symbol. This method increases the
-     * currentIndex variable as it goes. This method may throw a
-     * {@linkplain LexerException} if and only if the number is out of range.
-     * A number may be out of range if it goes beyond {@linkplain Long#MAX_VALUE}.
+     * Skips the characters at the start of a stream that would be trimmed
+     * from a text given as a string.
      *
-     * @return a number starting from the currentIndex
-     * @throws LexerException if the number is out of range
+     * @throws LexerException if an I/O error occurs while reading
      */
-    private Long getNumber() {
-        StringBuilder sb = new StringBuilder();
+    private void skipLeadingSpaces() {
+        while (true) {
+            while (currentIndex < limit && data[currentIndex] <= ' ') {
+                currentIndex++;
+            }
+            if (currentIndex < limit || exhausted) {
+                break;
+            }
+            endIndex = currentIndex;
+            refill();
+        }
+        endIndex = Math.max(endIndex, currentIndex);
+    }
 
-        while (Character.isDigit(data[currentIndex])) {
-            sb.append(data[currentIndex]);
-            currentIndex++;
+    /**
+     * Reads more of the input text from the reader. Characters before the
+     * <tt>currentIndex</tt> are processed, so the rest is moved to the start
+     * of the buffer first, and the buffer is grown if the rest fills it. The
+     * <tt>endIndex</tt> is then moved after the last character that would not
+     * be trimmed if the stream ended there.
+     *
+     * @return the number of characters the buffer was shifted by
+     * @throws LexerException if an I/O error occurs while reading
+     */
+    private int refill() {
+        int shift = currentIndex;
+        limit -= shift;
+        System.arraycopy(data, shift, data, 0, limit);
+        endIndex -= shift;
+        currentIndex = 0;
+        base += shift;
 
-            if (isDataEnd()) break;
+        if (limit == data.length) {
+            char[] newData = new char[2 * data.length];
+            System.arraycopy(data, 0, newData, 0, limit);
+            data = newData;
         }
 
-        Long number;
         try {
-            number = Long.parseLong(sb.toString());
-        } catch (NumberFormatException e) {
-            throw new LexerException("Number is too big: " + sb);
+            int read = reader.read(data, limit, data.length - limit);
+            if (read == -1) {
+                exhausted = true;
+            } else {
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new LexerException("Unable to read input: " + e.getMessage(), e);
         }
 
-        return number;
+        int end = limit;
+        while (end > endIndex && data[end-1] <= ' ') {
+            end--;
+        }
+        endIndex = end;
+        return shift;
     }
 
     /**
-     * Returns a {@link TokenType#SYMBOL symbol} starting from the
-     * <tt>currentIndex</tt> and ending on <tt>currentIndex+1</tt>.
-     * This method increases the currentIndex variable as it goes.
+     * Makes sure the buffer can hold at least <tt>capacity</tt> characters,
+     * keeping its content.
      *
-     * @return a symbol starting from the currentIndex
+     * @param capacity the required capacity of the buffer
      */
-    private Character getSymbol() {
-        return data[currentIndex++];
+    private void ensureBuffer(int capacity) {
+        if (capacity > buffer.length) {
+            char[] newBuffer = new char[Math.max(capacity, 2 * buffer.length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+            buffer = newBuffer;
+        }
     }
 
     /**
-     * Returns a {@link TokenType#WORD word} starting from the
-     * <tt>currentIndex</tt> and ending on the first whitespace character,
-     * {@link Lexer#EXTEND_CHAR extending character} or when it reaches the end
-     * of the input text. This method increases the currentIndex variable as it
-     * goes. This method ignores escape sequences as they are not important to
-     * the extended Lexer state.
+     * Skips all whitespace characters by moving the <tt>currentIndex</tt>
+     * variable to the next non-whitespace character.
+     */
+    private void skipSpaces() {
+        while (!isDataEnd() && classOf(data[currentIndex]) == SPACE) {
+            currentIndex++;
+        }
+    }
+
+    /**
+     * Returns the class of the given character, which is looked up in the
+     * {@linkplain #CHAR_CLASSES table} for ASCII characters.
      *
-     * @return a word starting from the currentIndex
+     * @param c character to be classified
+     * @return the class of the character
      */
-    private String getExtendedWord() {
-        StringBuilder sb = new StringBuilder();
+    private static int classOf(char c) {
+        return c < CHAR_CLASSES.length ? CHAR_CLASSES[c] : classify(c);
+    }
 
-        while (!isDataEnd()
-                && !EXTEND_CHAR.equals(data[currentIndex])
-                && !Character.isWhitespace(data[currentIndex])) {
-            sb.append(data[currentIndex]);
-            currentIndex++;
+    /**
+     * Returns true if the given character is a whitespace character, which
+     * delimits the tokens in both Lexer states.
+     *
+     * @param c character to be checked
+     * @return true if the character is a whitespace character
+     */
+    static boolean isSpace(char c) {
+        return classOf(c) == SPACE;
+    }
+
+    /**
+     * Returns the index of the first whitespace character of the given array
+     * from <tt>from</tt> to <tt>end</tt> which does not follow an escape
+     * character, or <tt>end</tt> if there is none. No token spans such a
+     * character in either Lexer state, so the text may be split there and the
+     * parts tokenized separately.
+     *
+     * @param data array holding the text
+     * @param from index of the first character to check, which is not the
+     *        first character of the text
+     * @param end index after the last character to check
+     * @return index of the first character the text may be split at
+     */
+    static int splitIndex(char[] data, int from, int end) {
+        while (from < end && !(isSpace(data[from]) && data[from-1] != ESCAPE_CHAR)) {
+            from++;
         }
+        return from;
+    }
 
-        return sb.toString();
+    /**
+     * Returns the number of <tt>#</tt> characters of the given array from
+     * <tt>start</tt> to <tt>end</tt>. Every such character is a symbol which
+     * toggles the Lexer state, so the parity of the number tells the state
+     * after the text.
+     *
+     * @param data array holding the text
+     * @param start index of the first character to count
+     * @param end index after the last character to count
+     * @return the number of <tt>#</tt> characters
+     */
+    static int countExtendChars(char[] data, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (data[i] == EXTEND_CHAR) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
-     * Skips all whitespace characters by moving the <tt>currentIndex</tt>
-     * variable to the next non-whitespace character.
+     * Flattens the given transition table with a row for each scanning state
+     * and a column for each character class into a single array.
+     *
+     * @param table transition table to be flattened
+     * @return the flattened transition table
      */
-    private void skipSpaces() {
-        int i;
-        for (i = currentIndex; !isDataEnd() && Character.isWhitespace(data[i]); i++);
-        currentIndex = i;
+    private static byte[] flatten(byte[][] table) {
+        byte[] transitions = new byte[table.length << CLASS_BITS];
+        for (int i = 0; i < table.length; i++) {
+            System.arraycopy(table[i], 0, transitions, i << CLASS_BITS, table[i].length);
+        }
+        return transitions;
+    }
+
+    /**
+     * Classifies the given character using the methods of the
+     * {@linkplain Character} class.
+     *
+     * @param c character to be classified
+     * @return the class of the character
+     */
+    private static int classify(char c) {
+        if (c == ESCAPE_CHAR) {
+            return ESCAPE;
+        } else if (c == EXTEND_CHAR) {
+            return EXTEND;
+        } else if (Character.isLetter(c)) {
+            return LETTER;
+        } else if (Character.isDigit(c)) {
+            return DIGIT;
+        } else if (Character.isWhitespace(c)) {
+            return SPACE;
+        } else {
+            return OTHER;
+        }
     }
 
     /**
      * Returns true if the input text has been exhausted, or more formally if
-     * <tt>currentIndex == data.length</tt>. False otherwise.
+     * <tt>currentIndex == endIndex</tt> and there is nothing left to read.
+     * False otherwise.
      *
      * @return true if the input text has been exhausted
+     * @throws LexerException if an I/O error occurs while reading
      */
     private boolean isDataEnd() {
-        return currentIndex == data.length;
+        while (currentIndex == endIndex && !exhausted) {
+            refill();
+        }
+        return currentIndex == endIndex;
     }
 
 }
@@ -0,0 +1,641 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A batch of tokens stored as parallel primitive arrays instead of as
+ * {@linkplain Token} objects. The token at index <tt>i</tt> is described by
+ * its type code, its start offset and length in the input text and its value,
+ * which are the <tt>i</tt>-th elements of the {@linkplain #getTypeCodes() type
+ * codes}, {@linkplain #getStarts() starts}, {@linkplain #getLengths() lengths}
+ * and {@linkplain #getValues() values} arrays. The arrays grow together, to
+ * twice their capacity when filled.
+ * <p>
+ * The type code of a token is the {@linkplain TokenType#ordinal() ordinal} of
+ * its type. The value of a number is the number itself and the value of a
+ * symbol is its character. The text of all words, without escape characters,
+ * is copied into a single growable {@linkplain #getTextBuffer() text buffer},
+ * and the value of a word holds the offset of its text in the buffer in the
+ * upper 32 bits and the length of its text in the lower 32 bits.
+ * <p>
+ * A whole input text is tokenized into a batch by {@link #tokenize(String)}.
+ * Consumers may read the tokens through the getters of this class, or process
+ * the backing arrays directly, which is more cache-friendly than walking
+ * through a list of tokens.
+ *
+ * @author Mario Bobic
+ * @see Lexer
+ */
+public class TokenBatch {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Estimated number of input characters per token. */
+    private static final int CHARS_PER_TOKEN = 4;
+    /** Token types, indexed by the type code. */
+    private static final TokenType[] TYPES = TokenType.values();
+    /** Type code of words. */
+    private static final byte WORD_CODE = (byte) TokenType.WORD.ordinal();
+    /** Minimum number of characters in a chunk tokenized in parallel. */
+    private static final int MIN_CHUNK_LENGTH = 1 << 16;
+    /** Number of chunks per thread of the pool, for load balancing. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /** Number of tokens in this batch. */
+    private int size;
+    /** Type codes of the tokens. */
+    private byte[] types;
+    /** Offsets of the tokens in the input text. */
+    private int[] starts;
+    /** Lengths of the tokens in the input text. */
+    private int[] lengths;
+    /** Values of the tokens. */
+    private long[] values;
+    /** Text of the words. */
+    private char[] text;
+    /** Number of characters in the text buffer. */
+    private int textSize;
+
+    /**
+     * Constructs an empty instance of TokenBatch with the default capacity of
+     * 16 tokens.
+     */
+    public TokenBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty instance of TokenBatch with the capacity set to
+     * <tt>initialCapacity</tt> tokens.
+     *
+     * @param initialCapacity initial capacity of this batch
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is less than 1
+     */
+    public TokenBatch(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must not be less than 1.");
+        }
+        types = new byte[initialCapacity];
+        starts = new int[initialCapacity];
+        lengths = new int[initialCapacity];
+        values = new long[initialCapacity];
+        text = new char[initialCapacity];
+    }
+
+    /**
+     * Tokenizes the whole input text into a new batch. The
+     * {@linkplain TokenType#EOF EOF} token is not added to the batch.
+     * <p>
+     * The lexer starts in the {@link LexerState#BASIC basic} state and every
+     * <tt>#</tt> symbol toggles the state between the basic and the
+     * {@link LexerState#EXTENDED extended} state.
+     *
+     * @param text text for tokenization
+     * @return a batch with all tokens of the text
+     * @throws IllegalArgumentException if the input text is null
+     * @throws LexerException if the text can not be tokenized
+     */
+    public static TokenBatch tokenize(String text) {
+        Lexer lexer = new Lexer(text);
+        TokenBatch batch = new TokenBatch(Math.max(DEFAULT_CAPACITY, text.length() / CHARS_PER_TOKEN));
+        tokenize(lexer, false, batch);
+        return batch;
+    }
+
+    /**
+     * Tokenizes the whole input text into a new batch in parallel, on the
+     * {@linkplain ForkJoinPool#commonPool() common pool}. The tokens are the
+     * same as the ones returned by {@link #tokenize(String)}.
+     *
+     * @param text text for tokenization
+     * @return a batch with all tokens of the text
+     * @throws IllegalArgumentException if the input text is null
+     * @throws LexerException if the text can not be tokenized
+     * @see #tokenizeParallel(String, ForkJoinPool)
+     */
+    public static TokenBatch tokenizeParallel(String text) {
+        return tokenizeParallel(text, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tokenizes the whole input text into a new batch in parallel, on the
+     * given <tt>pool</tt>. The tokens are the same as the ones returned by
+     * {@link #tokenize(String)}, and if the text can not be tokenized, the
+     * same exception is thrown.
+     * <p>
+     * The text is split into chunks at whitespace characters which do not
+     * follow an escape character, since whitespace delimits the tokens in
+     * both Lexer states. Every <tt>#</tt> character is a symbol which toggles
+     * the Lexer state, so the state at the start of a chunk is determined by
+     * the number of <tt>#</tt> characters before it. These are counted for
+     * all chunks in parallel first, and then the chunks are tokenized in
+     * parallel and merged in order. Texts too short to be split are tokenized
+     * by the calling thread.
+     *
+     * @param text text for tokenization
+     * @param pool pool that tokenizes the chunks
+     * @return a batch with all tokens of the text
+     * @throws IllegalArgumentException if the input text or the pool is null
+     * @throws LexerException if the text can not be tokenized
+     */
+    public static TokenBatch tokenizeParallel(String text, ForkJoinPool pool) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text must not be null.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null.");
+        }
+
+        char[] data = text.toCharArray();
+        // same as trimming the text, as the Lexer does
+        int start = 0;
+        int end = data.length;
+        while (start < end && data[start] <= ' ') start++;
+        while (start < end && data[end-1] <= ' ') end--;
+
+        long maxChunks = (long) pool.getParallelism() * CHUNKS_PER_THREAD;
+        int chunkCount = (int) Math.min(maxChunks, (end - start) / MIN_CHUNK_LENGTH);
+        if (chunkCount <= 1) {
+            TokenBatch batch = new TokenBatch(Math.max(DEFAULT_CAPACITY, (end - start) / CHARS_PER_TOKEN));
+            tokenize(new Lexer(data, start, end, LexerState.BASIC), false, batch);
+            return batch;
+        }
+
+        final List<Chunk> chunks = split(data, start, end, chunkCount);
+        List<RecursiveAction> counts = new ArrayList<>();
+        for (final Chunk chunk : chunks) {
+            counts.add(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    chunk.countExtendChars();
+                }
+            });
+        }
+        runAll(pool, counts);
+
+        boolean extended = false;
+        List<RecursiveAction> tokenizations = new ArrayList<>();
+        for (final Chunk chunk : chunks) {
+            chunk.extended = extended;
+            extended ^= chunk.extendChars % 2 == 1;
+            tokenizations.add(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    chunk.tokenize();
+                }
+            });
+        }
+        runAll(pool, tokenizations);
+
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.exception != null) {
+                // the first exception in the order of the text
+                throw chunk.exception;
+            }
+            size += chunk.batch.size;
+        }
+        TokenBatch batch = new TokenBatch(Math.max(DEFAULT_CAPACITY, size));
+        for (Chunk chunk : chunks) {
+            batch.addAll(chunk.batch);
+        }
+        return batch;
+    }
+
+    /**
+     * Tokenizes everything the given <tt>lexer</tt> generates into the given
+     * <tt>batch</tt>, toggling the Lexer state on every <tt>#</tt> symbol.
+     *
+     * @param lexer lexer generating the tokens
+     * @param extended true if the lexer is in the extended state
+     * @param batch batch the tokens are added to
+     * @throws LexerException if the text can not be tokenized
+     */
+    private static void tokenize(Lexer lexer, boolean extended, TokenBatch batch) {
+        for (TokenView view = lexer.nextTokenView(); view.getType() != TokenType.EOF; view = lexer.nextTokenView()) {
+            batch.add(view);
+            if (view.getType() == TokenType.SYMBOL && view.getSymbol() == Lexer.EXTEND_CHAR) {
+                extended = !extended;
+                lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+            }
+        }
+    }
+
+    /**
+     * Splits the characters of the given array from <tt>start</tt> to
+     * <tt>end</tt> into about <tt>chunkCount</tt> chunks of similar length.
+     * Each chunk but the last ends at a whitespace character which does not
+     * follow an escape character, and each chunk but the first starts at the
+     * first non-whitespace character after the previous chunk.
+     *
+     * @param data array holding the text
+     * @param start index of the first character of the text
+     * @param end index after the last character of the text
+     * @param chunkCount desired number of chunks
+     * @return the chunks, in order
+     */
+    private static List<Chunk> split(char[] data, int start, int end, int chunkCount) {
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkLength = (end - start) / chunkCount;
+
+        int from = start;
+        while (from < end) {
+            int to = Lexer.splitIndex(data, Math.min(end, from + chunkLength), end);
+            chunks.add(new Chunk(data, from, to));
+
+            from = to;
+            while (from < end && Lexer.isSpace(data[from])) {
+                from++;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs all given <tt>tasks</tt> on the given <tt>pool</tt> and waits for
+     * them to complete.
+     *
+     * @param pool pool that runs the tasks
+     * @param tasks tasks to be run
+     */
+    private static void runAll(ForkJoinPool pool, final List<RecursiveAction> tasks) {
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Adds the token of the given view to the end of this batch.
+     *
+     * @param view view of the token to be added
+     */
+    void add(TokenView view) {
+        ensureCapacity(size + 1);
+
+        TokenType type = view.getType();
+        long value;
+        switch (type) {
+        case WORD: {
+            int textLength = view.getText().length();
+            ensureTextCapacity(textSize + textLength);
+            view.getChars(text, textSize);
+            value = (long) textSize << 32 | textLength;
+            textSize += textLength;
+            break;
+        }
+        case NUMBER:
+            value = view.getNumber();
+            break;
+        case SYMBOL:
+            value = view.getSymbol();
+            break;
+        default:
+            value = 0;
+            break;
+        }
+
+        types[size] = (byte) type.ordinal();
+        starts[size] = view.getStart();
+        lengths[size] = view.getLength();
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Adds all tokens of the given batch to the end of this batch.
+     *
+     * @param other batch whose tokens are added
+     */
+    void addAll(TokenBatch other) {
+        ensureCapacity(size + other.size);
+        ensureTextCapacity(textSize + other.textSize);
+
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        System.arraycopy(other.text, 0, text, textSize, other.textSize);
+
+        // the text of the added words is moved by the size of the text buffer
+        long shift = (long) textSize << 32;
+        int newSize = size + other.size;
+        for (int i = size; i < newSize; i++) {
+            if (types[i] == WORD_CODE) {
+                values[i] += shift;
+            }
+        }
+
+        size = newSize;
+        textSize += other.textSize;
+    }
+
+    /**
+     * Returns the number of tokens in this batch.
+     *
+     * @return the number of tokens in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of the token at the given <tt>index</tt>.
+     *
+     * @param index index of the token
+     * @return the type of the token
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public TokenType getType(int index) {
+        checkIndex(index);
+        return TYPES[types[index]];
+    }
+
+    /**
+     * Returns the offset in the input text of the token at the given
+     * <tt>index</tt>.
+     *
+     * @param index index of the token
+     * @return the offset of the token in the input text
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * Returns the length in the input text of the token at the given
+     * <tt>index</tt>, including the escape characters of a word.
+     *
+     * @param index index of the token
+     * @return the length of the token in the input text
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getLength(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    /**
+     * Returns the value of the number token at the given <tt>index</tt>.
+     *
+     * @param index index of the token
+     * @return the value of the number token
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalStateException if the token is not a number
+     */
+    public long getNumber(int index) {
+        checkType(index, TokenType.NUMBER);
+        return values[index];
+    }
+
+    /**
+     * Returns the symbol of the symbol token at the given <tt>index</tt>.
+     *
+     * @param index index of the token
+     * @return the symbol of the symbol token
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalStateException if the token is not a symbol
+     */
+    public char getSymbol(int index) {
+        checkType(index, TokenType.SYMBOL);
+        return (char) values[index];
+    }
+
+    /**
+     * Returns the text of the word token at the given <tt>index</tt>, without
+     * its escape characters.
+     *
+     * @param index index of the token
+     * @return the text of the word token
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalStateException if the token is not a word
+     */
+    public String getWord(int index) {
+        checkType(index, TokenType.WORD);
+        return new String(text, getTextOffset(values[index]), getTextLength(values[index]));
+    }
+
+    /**
+     * Returns a new {@linkplain Token} equal to the token at the given
+     * <tt>index</tt>.
+     *
+     * @param index index of the token
+     * @return a new token equal to the token at the index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Token getToken(int index) {
+        TokenType type = getType(index);
+        switch (type) {
+        case WORD:
+            return new Token(type, getWord(index));
+        case NUMBER:
+            return new Token(type, Long.valueOf(values[index]));
+        case SYMBOL:
+            return new Token(type, Character.valueOf((char) values[index]));
+        default:
+            return new Token(type, null);
+        }
+    }
+
+    /**
+     * Returns the backing array of the type codes, which is valid for the
+     * first {@linkplain #size()} elements. The array is not copied and is
+     * replaced when this batch grows.
+     *
+     * @return the backing array of the type codes
+     */
+    public byte[] getTypeCodes() {
+        return types;
+    }
+
+    /**
+     * Returns the backing array of the token offsets, which is valid for the
+     * first {@linkplain #size()} elements. The array is not copied and is
+     * replaced when this batch grows.
+     *
+     * @return the backing array of the token offsets
+     */
+    public int[] getStarts() {
+        return starts;
+    }
+
+    /**
+     * Returns the backing array of the token lengths, which is valid for the
+     * first {@linkplain #size()} elements. The array is not copied and is
+     * replaced when this batch grows.
+     *
+     * @return the backing array of the token lengths
+     */
+    public int[] getLengths() {
+        return lengths;
+    }
+
+    /**
+     * Returns the backing array of the token values, which is valid for the
+     * first {@linkplain #size()} elements. The array is not copied and is
+     * replaced when this batch grows.
+     *
+     * @return the backing array of the token values
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the backing text buffer holding the text of all words. The
+     * buffer is not copied and is replaced when this batch grows.
+     *
+     * @return the backing text buffer
+     */
+    public char[] getTextBuffer() {
+        return text;
+    }
+
+    /**
+     * Returns the offset in the {@linkplain #getTextBuffer() text buffer} of
+     * the text of a word with the given <tt>value</tt>.
+     *
+     * @param value value of a word token
+     * @return the offset of the text of the word
+     */
+    public static int getTextOffset(long value) {
+        return (int) (value >>> 32);
+    }
+
+    /**
+     * Returns the length of the text of a word with the given <tt>value</tt>.
+     *
+     * @param value value of a word token
+     * @return the length of the text of the word
+     */
+    public static int getTextLength(long value) {
+        return (int) value;
+    }
+
+    /**
+     * Ensures that the arrays can hold at least <tt>minCapacity</tt> tokens.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > types.length) {
+            int newCapacity = Math.max(2*types.length, minCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            starts = Arrays.copyOf(starts, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * Ensures that the text buffer can hold at least <tt>minCapacity</tt>
+     * characters.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void ensureTextCapacity(int minCapacity) {
+        if (minCapacity > text.length) {
+            text = Arrays.copyOf(text, Math.max(2*text.length, minCapacity));
+        }
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     *
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Checks if the token at the given <tt>index</tt> is of the given type.
+     *
+     * @param index index of the token
+     * @param type expected type of the token
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalStateException if the token is of another type
+     */
+    private void checkType(int index, TokenType type) {
+        checkIndex(index);
+        if (types[index] != type.ordinal()) {
+            throw new IllegalStateException("Token at " + index + " is not a " + type + ".");
+        }
+    }
+
+    /**
+     * A chunk of the text which is tokenized in parallel with other chunks.
+     *
+     * @author Mario Bobic
+     */
+    private static class Chunk {
+        /** Array holding the text. */
+        private final char[] data;
+        /** Index of the first character of the chunk. */
+        private final int start;
+        /** Index after the last character of the chunk. */
+        private final int end;
+        /** Number of <tt>#</tt> characters in the chunk. */
+        private int extendChars;
+        /** True if the Lexer is in the extended state at the chunk start. */
+        private boolean extended;
+        /** Tokens of the chunk. */
+        private TokenBatch batch;
+        /** Exception thrown while tokenizing the chunk, or <tt>null</tt>. */
+        private RuntimeException exception;
+
+        /**
+         * Constructs an instance of Chunk with the characters of the given
+         * array from <tt>start</tt> to <tt>end</tt>.
+         *
+         * @param data array holding the text
+         * @param start index of the first character of the chunk
+         * @param end index after the last character of the chunk
+         */
+        public Chunk(char[] data, int start, int end) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Counts the <tt>#</tt> characters in this chunk.
+         */
+        public void countExtendChars() {
+            extendChars = Lexer.countExtendChars(data, start, end);
+        }
+
+        /**
+         * Tokenizes this chunk into its batch. An exception thrown while
+         * tokenizing is kept, to be thrown in the order of the chunks.
+         */
+        public void tokenize() {
+            LexerState state = extended ? LexerState.EXTENDED : LexerState.BASIC;
+            batch = new TokenBatch(Math.max(DEFAULT_CAPACITY, (end - start) / CHARS_PER_TOKEN));
+            try {
+                TokenBatch.tokenize(new Lexer(data, start, end, state), extended, batch);
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+        }
+    }
+
+}
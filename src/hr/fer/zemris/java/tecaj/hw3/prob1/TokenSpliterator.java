@@ -0,0 +1,130 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the tokens of a {@linkplain Lexer}, which generates the
+ * tokens lazily as they are traversed. The <tt>EOF</tt> token is not included
+ * and every <tt>#</tt> symbol toggles the Lexer state.
+ * <p>
+ * A spliterator over a text in an array can be split before its traversal is
+ * started. The text is split in the middle, at a whitespace character which
+ * does not follow an escape character, and the Lexer state at the start of the
+ * second part is determined by the number of <tt>#</tt> characters in the
+ * first part. A spliterator over an existing lexer can not be split.
+ *
+ * @author Mario Bobic
+ * @see Lexer#tokens()
+ * @see Lexer#stream(String)
+ */
+class TokenSpliterator implements Spliterator<Token> {
+
+    /** Length of the shortest text that is split. */
+    private static final int MIN_SPLIT_LENGTH = 1 << 12;
+    /** Estimated average number of characters per token. */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /** Array holding the text, or <tt>null</tt> if it can not be split. */
+    private char[] data;
+    /** Index of the first character of the text. */
+    private int start;
+    /** Index after the last character of the text. */
+    private final int end;
+    /** Lexer generating the tokens, or <tt>null</tt> if not yet started. */
+    private Lexer lexer;
+    /** True if the lexer is in the extended state. */
+    private boolean extended;
+    /** True if the EOF token was generated. */
+    private boolean finished;
+
+    /**
+     * Constructs an instance of TokenSpliterator over the characters of the
+     * given array from <tt>start</tt> to <tt>end</tt>, which are tokenized
+     * starting in the given state.
+     *
+     * @param data array holding the text
+     * @param start index of the first character of the text
+     * @param end index after the last character of the text
+     * @param extended true if the text starts in the extended state
+     */
+    TokenSpliterator(char[] data, int start, int end, boolean extended) {
+        this.data = data;
+        this.start = start;
+        this.end = end;
+        this.extended = extended;
+    }
+
+    /**
+     * Constructs an instance of TokenSpliterator over the remaining tokens of
+     * the given <tt>lexer</tt>, which can not be split.
+     *
+     * @param lexer lexer generating the tokens
+     * @param extended true if the lexer is in the extended state
+     */
+    TokenSpliterator(Lexer lexer, boolean extended) {
+        this.lexer = lexer;
+        this.start = 0;
+        this.end = -1;
+        this.extended = extended;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Token> action) {
+        if (action == null) {
+            throw new NullPointerException("Action must not be null.");
+        }
+        if (finished) {
+            return false;
+        }
+        if (lexer == null) {
+            lexer = new Lexer(data, start, end, extended ? LexerState.EXTENDED : LexerState.BASIC);
+            data = null;
+        }
+
+        Token token = lexer.nextToken();
+        if (token.getType() == TokenType.EOF) {
+            finished = true;
+            return false;
+        }
+        if (token.getType() == TokenType.SYMBOL && token.getValue().equals(Lexer.EXTEND_CHAR)) {
+            extended = !extended;
+            lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+        }
+
+        action.accept(token);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Token> trySplit() {
+        if (data == null || end - start < MIN_SPLIT_LENGTH) {
+            return null;
+        }
+
+        int mid = Lexer.splitIndex(data, start + (end - start) / 2, end);
+        int next = mid;
+        while (next < end && Lexer.isSpace(data[next])) {
+            next++;
+        }
+        if (next == end) {
+            return null;
+        }
+
+        TokenSpliterator prefix = new TokenSpliterator(data, start, mid, extended);
+        extended ^= Lexer.countExtendChars(data, start, mid) % 2 == 1;
+        start = next;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end < 0 ? Long.MAX_VALUE : (end - start) / CHARS_PER_TOKEN;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+}
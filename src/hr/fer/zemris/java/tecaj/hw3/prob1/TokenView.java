@@ -0,0 +1,202 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+/**
+ * A mutable view of the current token of a {@linkplain Lexer}. Unlike the
+ * {@linkplain Token}, which is created for every token, a lexer has only one
+ * view which it refills with each call to {@link Lexer#nextTokenView()}, so
+ * tokenizing with views produces no garbage per token.
+ * <p>
+ * The view exposes the type of the token, its position in the input text and
+ * its value. The text of the token is a character sequence over the input
+ * text, or over a buffer of the lexer if a word contains escape sequences, and
+ * the value of a number is kept as a primitive <tt>long</tt>.
+ * <p>
+ * Since the view is refilled by the next call to the lexer, it must not be
+ * kept. A {@linkplain Token} that can be kept is returned by
+ * {@link #toToken()}.
+ *
+ * @author Mario Bobic
+ * @see Lexer#nextTokenView()
+ */
+public class TokenView {
+
+    /** Type of the token. */
+    private TokenType type;
+    /** Offset of the token in the input text. */
+    private int start;
+    /** Length of the token in the input text. */
+    private int length;
+    /** Text of the token. */
+    private final Text text = new Text();
+    /** Value of the number token. */
+    private long number;
+
+    /**
+     * Constructs an instance of TokenView. Only a lexer constructs views.
+     */
+    TokenView() {
+    }
+
+    /**
+     * Sets this view to the token with the given attributes.
+     *
+     * @param type type of the token
+     * @param start offset of the token in the input text
+     * @param length length of the token in the input text
+     * @param array array holding the text of the token
+     * @param offset offset of the text in the array
+     * @param textLength length of the text
+     * @param number value of the number token
+     */
+    void set(TokenType type, int start, int length,
+            char[] array, int offset, int textLength, long number) {
+        this.type = type;
+        this.start = start;
+        this.length = length;
+        this.text.array = array;
+        this.text.offset = offset;
+        this.text.length = textLength;
+        this.number = number;
+    }
+
+    /**
+     * Returns the type of this token.
+     *
+     * @return the type of this token
+     */
+    public TokenType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the offset of this token in the input text.
+     *
+     * @return the offset of this token in the input text
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the length of this token in the input text, including the
+     * escape characters of a word.
+     *
+     * @return the length of this token in the input text
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the text of this token: the characters of a word without its
+     * escape characters, the digits of a number, the symbol or an empty
+     * sequence for <tt>EOF</tt>. The returned sequence is a part of this view
+     * and changes with it.
+     *
+     * @return the text of this token
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Returns the value of this token if it is a {@link TokenType#NUMBER
+     * number}, or <tt>0</tt> otherwise.
+     *
+     * @return the value of the number token
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the symbol of this token if it is a {@link TokenType#SYMBOL
+     * symbol}.
+     *
+     * @return the symbol of this token
+     * @throws IllegalStateException if this token is not a symbol
+     */
+    public char getSymbol() {
+        if (type != TokenType.SYMBOL) {
+            throw new IllegalStateException("Token is not a symbol: " + type);
+        }
+        return text.charAt(0);
+    }
+
+    /**
+     * Copies the text of this token into the given array, starting at the
+     * given index.
+     *
+     * @param dst the destination array
+     * @param dstBegin index of the first copied character in the array
+     */
+    void getChars(char[] dst, int dstBegin) {
+        System.arraycopy(text.array, text.offset, dst, dstBegin, text.length);
+    }
+
+    /**
+     * Returns a new {@linkplain Token} with the type and the value of this
+     * token.
+     *
+     * @return a new token equal to this token
+     */
+    public Token toToken() {
+        switch (type) {
+        case WORD:
+            return new Token(type, text.toString());
+        case NUMBER:
+            return new Token(type, Long.valueOf(number));
+        case SYMBOL:
+            return new Token(type, Character.valueOf(text.charAt(0)));
+        default:
+            return new Token(type, null);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + text;
+    }
+
+    /**
+     * Text of a token, which is a part of a character array.
+     *
+     * @author Mario Bobic
+     */
+    private static class Text implements CharSequence {
+        /** Array holding the text. */
+        private char[] array;
+        /** Offset of the text in the array. */
+        private int offset;
+        /** Length of the text. */
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+            }
+            return array[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException(
+                        "Start: " + start + ", end: " + end + ", length: " + length);
+            }
+            return new String(array, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return length == 0 ? "" : new String(array, offset, length);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.array;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class ArrayIndexedCollectionTest {
+
+    @Test
+    public void testInsertAllInMiddle() {
+        ArrayIndexedCollection col = array(1, 2, 5);
+        col.insertAll(array(3, 4), 2);
+
+        assertArrayEquals(new Object[] {1, 2, 3, 4, 5}, col.toArray());
+    }
+
+    @Test
+    public void testInsertAllIntoItself() {
+        ArrayIndexedCollection col = array(1, 2, 3, 4);
+        col.insertAll(col, 2);
+
+        assertArrayEquals(new Object[] {1, 2, 1, 2, 3, 4, 3, 4}, col.toArray());
+        assertEquals(8, col.size());
+    }
+
+    @Test
+    public void testInsertAllAtSize() {
+        ArrayIndexedCollection col = array(1, 2);
+        col.insertAll(array(3, 4), col.size());
+
+        assertArrayEquals(new Object[] {1, 2, 3, 4}, col.toArray());
+    }
+
+    @Test
+    public void testInsertAllIntoEmpty() {
+        ArrayIndexedCollection col = new ArrayIndexedCollection(1);
+        col.insertAll(array(1, 2, 3), 0);
+
+        assertArrayEquals(new Object[] {1, 2, 3}, col.toArray());
+    }
+
+    @Test
+    public void testInsertAllFromLinkedList() {
+        LinkedListIndexedCollection list = new LinkedListIndexedCollection();
+        list.add(2);
+        list.add(3);
+        ArrayIndexedCollection col = array(1, 4);
+        col.insertAll(list, 1);
+
+        assertArrayEquals(new Object[] {1, 2, 3, 4}, col.toArray());
+    }
+
+    @Test
+    public void testInsertAllEmptyCollection() {
+        ArrayIndexedCollection col = array(1, 2);
+        col.insertAll(new ArrayIndexedCollection(), 1);
+
+        assertArrayEquals(new Object[] {1, 2}, col.toArray());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertAllAfterEnd() {
+        ArrayIndexedCollection col = array(1, 2);
+        // must throw!
+        col.insertAll(array(3), 3);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertAllBeforeStart() {
+        // must throw!
+        array(1).insertAll(array(2), -1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInsertAllNull() {
+        // must throw!
+        array(1).insertAll(null, 0);
+    }
+
+    @Test
+    public void testAddAll() {
+        ArrayIndexedCollection col = array(1);
+        col.addAll(array(2, 3));
+        col.addAll(col);
+
+        assertArrayEquals(new Object[] {1, 2, 3, 1, 2, 3}, col.toArray());
+    }
+
+    @Test
+    public void testRemoveRange() {
+        ArrayIndexedCollection col = array(1, 2, 3, 4, 5);
+        col.removeRange(1, 3);
+
+        assertArrayEquals(new Object[] {1, 4, 5}, col.toArray());
+        col.removeRange(0, col.size());
+        assertEquals(0, col.size());
+    }
+
+    @Test
+    public void testRemoveEmptyRange() {
+        ArrayIndexedCollection col = array(1, 2, 3);
+        ElementsGetter getter = col.createElementsGetter();
+        col.removeRange(1, 1);
+        col.removeRange(3, 3);
+
+        assertArrayEquals(new Object[] {1, 2, 3}, col.toArray());
+        // an empty range leaves the collection unmodified
+        assertEquals(1, getter.getNextElement());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testRemoveRangeAfterEnd() {
+        // must throw!
+        array(1, 2).removeRange(1, 3);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testRemoveReversedRange() {
+        // must throw!
+        array(1, 2, 3).removeRange(2, 1);
+    }
+
+}
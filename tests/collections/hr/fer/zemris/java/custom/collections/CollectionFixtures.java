@@ -0,0 +1,81 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * Collections shared by the collection tests.
+ *
+ * @author Mario Bobic
+ */
+final class CollectionFixtures {
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private CollectionFixtures() {
+    }
+
+    /**
+     * Returns an array collection holding the given values in order.
+     *
+     * @param values values of the collection
+     * @return an array collection of the values
+     */
+    static ArrayIndexedCollection array(Object... values) {
+        ArrayIndexedCollection array = new ArrayIndexedCollection();
+        for (Object value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    /**
+     * Returns a linked list collection holding the given values in order.
+     *
+     * @param values values of the collection
+     * @return a linked list collection of the values
+     */
+    static LinkedListIndexedCollection list(Object... values) {
+        LinkedListIndexedCollection list = new LinkedListIndexedCollection();
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Returns an array collection and a linked list collection, each holding
+     * the given values in order.
+     *
+     * @param values values of the collections
+     * @return both kinds of indexed collections of the values
+     */
+    static Collection[] collections(Object... values) {
+        return new Collection[] {array(values), list(values)};
+    }
+
+    /**
+     * Returns the integers from <tt>0</tt> up to, but not including, the given
+     * <tt>size</tt>, to be passed to the other fixture methods.
+     *
+     * @param size number of integers
+     * @return the integers in ascending order
+     */
+    static Object[] range(int size) {
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Integer.valueOf(i);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the name of the collection class, used to tell which of the
+     * collections failed an assertion.
+     *
+     * @param col collection whose name is returned
+     * @return simple name of the collection class
+     */
+    static String name(Collection col) {
+        return col.getClass().getSimpleName();
+    }
+
+}
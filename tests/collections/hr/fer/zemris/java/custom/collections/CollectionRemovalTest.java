@@ -0,0 +1,230 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.array;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.list;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.name;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class CollectionRemovalTest {
+
+    private static final Tester EVEN = new Tester() {
+        @Override
+        public boolean test(Object value) {
+            return (Integer) value % 2 == 0;
+        }
+    };
+
+    private static final Tester ALL = new Tester() {
+        @Override
+        public boolean test(Object value) {
+            return true;
+        }
+    };
+
+    private static final Tester NONE = new Tester() {
+        @Override
+        public boolean test(Object value) {
+            return false;
+        }
+    };
+
+    @Test
+    public void testRemoveIfKeepsOrder() {
+        for (Collection col : collections(1, 2, 3, 4, 5, 6, 7)) {
+            assertTrue(col.removeIf(EVEN));
+            assertArrayEquals(name(col), new Object[] {1, 3, 5, 7}, col.toArray());
+            assertEquals(name(col), 4, col.size());
+        }
+    }
+
+    @Test
+    public void testRemoveIfEveryElement() {
+        for (Collection col : collections(1, 2, 3)) {
+            assertTrue(col.removeIf(ALL));
+            assertEquals(name(col), 0, col.size());
+            assertTrue(name(col), col.isEmpty());
+
+            col.add(4);
+            assertArrayEquals(name(col), new Object[] {4}, col.toArray());
+        }
+    }
+
+    @Test
+    public void testRemoveIfNoElement() {
+        for (Collection col : collections(1, 2, 3)) {
+            assertFalse(col.removeIf(NONE));
+            assertArrayEquals(name(col), new Object[] {1, 2, 3}, col.toArray());
+        }
+    }
+
+    @Test
+    public void testRemoveIfOnEmpty() {
+        for (Collection col : collections()) {
+            assertFalse(col.removeIf(ALL));
+            assertEquals(name(col), 0, col.size());
+        }
+    }
+
+    @Test
+    public void testRemoveIfFailsOpenGetters() {
+        for (Collection col : new Collection[] {array(1, 2, 3), list(1, 2, 3)}) {
+            ElementsGetter getter = col.createElementsGetter();
+            col.removeIf(NONE);
+            assertEquals(name(col), 1, getter.getNextElement());
+
+            col.removeIf(EVEN);
+            try {
+                getter.getNextElement();
+                fail(name(col) + ": expected ConcurrentModificationException.");
+            } catch (ConcurrentModificationException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveIfThrowingTester() {
+        ArrayIndexedCollection col = array(1, 2, 3, 4, 5);
+        try {
+            col.removeIf(new Tester() {
+                @Override
+                public boolean test(Object value) {
+                    if ((Integer) value == 4) {
+                        throw new IllegalStateException();
+                    }
+                    return (Integer) value == 2;
+                }
+            });
+            fail("Expected IllegalStateException.");
+        } catch (IllegalStateException e) {
+            // elements removed up to then stay removed
+            assertArrayEquals(new Object[] {1, 3, 4, 5}, col.toArray());
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        for (Collection col : collections(1, 2, 3, 2, 4)) {
+            assertTrue(col.removeAll(array(2, 4, 9)));
+            assertArrayEquals(name(col), new Object[] {1, 3}, col.toArray());
+            assertFalse(col.removeAll(array(9)));
+            assertEquals(name(col), 2, col.size());
+        }
+    }
+
+    @Test
+    public void testRemoveAllItself() {
+        for (Collection col : collections(1, 2, 3)) {
+            assertTrue(col.removeAll(col));
+            assertEquals(name(col), 0, col.size());
+            assertFalse(col.removeAll(col));
+        }
+    }
+
+    @Test
+    public void testRetainAll() {
+        for (Collection col : collections(1, 2, 3, 2, 4)) {
+            assertTrue(col.retainAll(list(2, 4, 9)));
+            assertArrayEquals(name(col), new Object[] {2, 2, 4}, col.toArray());
+            assertFalse(col.retainAll(array(2, 4)));
+            assertTrue(col.retainAll(new ArrayIndexedCollection()));
+            assertEquals(name(col), 0, col.size());
+        }
+    }
+
+    @Test
+    public void testRetainAllItself() {
+        for (Collection col : collections(1, 2, 3)) {
+            assertFalse(col.retainAll(col));
+            assertArrayEquals(name(col), new Object[] {1, 2, 3}, col.toArray());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRemoveIfNullTester() {
+        // must throw!
+        list(1).removeIf(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRemoveAllNull() {
+        // must throw!
+        array(1).removeAll(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRetainAllNull() {
+        // must throw!
+        array(1).retainAll(null);
+    }
+
+    /**
+     * Returns an array collection, a linked list and a collection which uses
+     * the removal methods of the base class, each holding the given values.
+     */
+    private static Collection[] collections(Object... values) {
+        Collection[] indexed = CollectionFixtures.collections(values);
+        Collection[] all = Arrays.copyOf(indexed, indexed.length + 1);
+        all[indexed.length] = new BaseCollection(array(values));
+        return all;
+    }
+
+    /**
+     * A collection which only overrides the basic methods, so that the
+     * removal methods of the {@linkplain Collection} class are used.
+     */
+    private static class BaseCollection extends Collection {
+        private final ArrayIndexedCollection elements;
+
+        public BaseCollection(ArrayIndexedCollection elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+
+        @Override
+        public void add(Object value) {
+            elements.add(value);
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return elements.contains(value);
+        }
+
+        @Override
+        public boolean remove(Object value) {
+            return elements.remove(value);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return elements.toArray();
+        }
+
+        @Override
+        public void forEach(Processor processor) {
+            elements.forEach(processor);
+        }
+
+        @Override
+        public void clear() {
+            elements.clear();
+        }
+    }
+
+}
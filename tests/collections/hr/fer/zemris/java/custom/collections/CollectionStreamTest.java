@@ -0,0 +1,183 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.array;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.collections;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.list;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.name;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class CollectionStreamTest {
+
+    /** Longer than several batches of the linked list spliterator. */
+    private static final int SIZE = 10000;
+
+    private static final int SIZED_CHARACTERISTICS =
+            Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+
+    @Test
+    public void testCharacteristics() {
+        for (Collection col : collections(range(SIZE))) {
+            Spliterator<Object> spliterator = col.spliterator();
+            assertTrue(name(col), spliterator.hasCharacteristics(SIZED_CHARACTERISTICS));
+            assertEquals(name(col), SIZE, spliterator.estimateSize());
+            assertEquals(name(col), SIZE, spliterator.getExactSizeIfKnown());
+
+            Spliterator<Object> prefix = spliterator.trySplit();
+            assertNotNull(name(col), prefix);
+            assertTrue(name(col), prefix.hasCharacteristics(SIZED_CHARACTERISTICS));
+            assertEquals(name(col), SIZE, prefix.estimateSize() + spliterator.estimateSize());
+        }
+    }
+
+    @Test
+    public void testArraySplitsInHalves() {
+        Spliterator<Object> spliterator = array(range(SIZE)).spliterator();
+        Spliterator<Object> prefix = spliterator.trySplit();
+
+        assertEquals(SIZE / 2, prefix.estimateSize());
+        assertEquals(SIZE / 2, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testSplitPartsKeepOrder() {
+        for (Collection col : collections(range(SIZE))) {
+            Spliterator<Object> suffix = col.spliterator();
+            Spliterator<Object> prefix = suffix.trySplit();
+            final List<Object> values = new ArrayList<>();
+            Consumer<Object> adder = new Consumer<Object>() {
+                @Override
+                public void accept(Object value) {
+                    values.add(value);
+                }
+            };
+
+            while (prefix.tryAdvance(adder)) {
+                // keep advancing
+            }
+            suffix.forEachRemaining(adder);
+            assertEquals(name(col), Arrays.asList(range(SIZE)), values);
+        }
+    }
+
+    @Test
+    public void testSingleElementDoesNotSplit() {
+        for (Collection col : collections(range(1))) {
+            assertNull(name(col), col.spliterator().trySplit());
+        }
+    }
+
+    @Test
+    public void testSequentialStream() {
+        for (Collection col : collections(range(SIZE))) {
+            assertEquals(name(col), Arrays.asList(range(SIZE)), col.stream().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testParallelStreamKeepsOrder() {
+        for (Collection col : collections(range(SIZE))) {
+            assertTrue(name(col), col.parallelStream().isParallel());
+            assertEquals(name(col), Arrays.asList(range(SIZE)), col.parallelStream().collect(Collectors.toList()));
+            assertEquals(name(col), SIZE, col.parallelStream().count());
+        }
+    }
+
+    @Test
+    public void testEmptyStream() {
+        for (Collection col : collections(range(0))) {
+            assertEquals(name(col), 0, col.spliterator().estimateSize());
+            assertFalse(name(col), col.stream().findFirst().isPresent());
+        }
+    }
+
+    @Test
+    public void testBindsOnFirstUse() {
+        for (Collection col : collections(range(2))) {
+            Spliterator<Object> spliterator = col.spliterator();
+            col.add(Integer.valueOf(2));
+            assertEquals(name(col), 3, spliterator.estimateSize());
+        }
+    }
+
+    @Test
+    public void testFailsFastDuringTraversal() {
+        for (final Collection col : collections(range(SIZE))) {
+            try {
+                col.stream().forEach(new Consumer<Object>() {
+                    @Override
+                    public void accept(Object value) {
+                        if ((Integer) value == 10) {
+                            col.add(Integer.valueOf(-1));
+                        }
+                    }
+                });
+                fail(name(col) + ": expected ConcurrentModificationException.");
+            } catch (ConcurrentModificationException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testFailsFastDuringTryAdvance() {
+        for (final Collection col : collections(range(SIZE))) {
+            Spliterator<Object> spliterator = col.spliterator();
+            Consumer<Object> remover = new Consumer<Object>() {
+                @Override
+                public void accept(Object value) {
+                    col.remove(value);
+                }
+            };
+            try {
+                spliterator.tryAdvance(remover);
+                fail(name(col) + ": expected ConcurrentModificationException.");
+            } catch (ConcurrentModificationException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testBaseCollectionStream() {
+        final ArrayIndexedCollection elements = array(range(SIZE));
+        Collection col = new Collection() {
+            @Override
+            public int size() {
+                return elements.size();
+            }
+
+            @Override
+            public void forEach(Processor processor) {
+                elements.forEach(processor);
+            }
+        };
+
+        assertTrue(col.spliterator().hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED));
+        assertEquals(Arrays.asList(range(SIZE)), col.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testNullAction() {
+        // must throw!
+        list(1).spliterator().tryAdvance(null);
+    }
+
+}
@@ -0,0 +1,134 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class DoubleArrayIndexedCollectionTest {
+
+    @Test
+    public void testAddGetAndGrow() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(1);
+        for (int i = 0; i < 100; i++) {
+            col.add(i);
+        }
+
+        assertEquals(100, col.size());
+        assertEquals(0.0, col.get(0), 0);
+        assertEquals(99.0, col.get(99), 0);
+        assertFalse(col.isEmpty());
+    }
+
+    @Test
+    public void testInsertAtBothBounds() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(new double[] {2.0, 3.0});
+        col.insert(1.0, 0);
+        // size is a legal position, as documented
+        col.insert(4.0, col.size());
+
+        assertArrayEquals(new double[] {1.0, 2.0, 3.0, 4.0}, col.toArray(), 0);
+    }
+
+    @Test
+    public void testInsertIntoEmpty() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection();
+        col.insert(7.0, 0);
+
+        assertArrayEquals(new double[] {7.0}, col.toArray(), 0);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertBeforeStart() {
+        // must throw!
+        new DoubleArrayIndexedCollection().insert(1.0, -1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertAfterEnd() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(new double[] {1.0});
+        // must throw!
+        col.insert(2.0, 2);
+    }
+
+    @Test
+    public void testSetRemoveAndIndexOf() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(
+                new double[] {1.0, 2.0, 3.0, 2.0});
+
+        assertEquals(2.0, col.set(1, 5.0), 0);
+        assertEquals(3, col.indexOf(2.0));
+        assertEquals(-1, col.indexOf(9.0));
+        assertTrue(col.contains(5.0));
+
+        assertEquals(1.0, col.remove(0), 0);
+        assertArrayEquals(new double[] {5.0, 3.0, 2.0}, col.toArray(), 0);
+
+        col.clear();
+        assertTrue(col.isEmpty());
+        assertEquals(0, col.toArray().length);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetAtSize() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(new double[] {1.0});
+        // must throw!
+        col.get(1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testRemoveFromEmpty() {
+        // must throw!
+        new DoubleArrayIndexedCollection().remove(0);
+    }
+
+    @Test
+    public void testObjectCollectionRoundTrip() {
+        ArrayIndexedCollection objects = new ArrayIndexedCollection();
+        objects.add(Integer.valueOf(1));
+        objects.add(Long.valueOf(2));
+        objects.add(Double.valueOf(3));
+
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(objects);
+        assertArrayEquals(new double[] {1.0, 2.0, 3.0}, col.toArray(), 0);
+
+        ArrayIndexedCollection boxed = col.toCollection();
+        assertEquals(3, boxed.size());
+        assertEquals(Double.valueOf(3.0), boxed.get(2));
+    }
+
+    @Test
+    public void testForEachInOrder() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(new double[] {3.0, 1.0, 2.0});
+        final StringBuilder sb = new StringBuilder();
+        col.forEach(new DoubleProcessor() {
+            @Override
+            public void process(double value) {
+                sb.append(value).append(' ');
+            }
+        });
+
+        assertEquals("3.0 1.0 2.0 ", sb.toString());
+    }
+
+    @Test
+    public void testIndexOfNaNAndSignedZero() {
+        DoubleArrayIndexedCollection col = new DoubleArrayIndexedCollection(
+                new double[] {1.0, Double.NaN, 0.0, -0.0});
+
+        // values are compared as by Double.equals
+        assertEquals(1, col.indexOf(Double.NaN));
+        assertTrue(col.contains(Double.NaN));
+        assertEquals(2, col.indexOf(0.0));
+        assertEquals(3, col.indexOf(-0.0));
+
+        col.remove(3);
+        assertEquals(-1, col.indexOf(-0.0));
+        assertEquals(2, col.indexOf(0.0));
+    }
+
+}
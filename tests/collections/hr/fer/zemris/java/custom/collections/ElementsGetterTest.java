@@ -0,0 +1,163 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.array;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.collections;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.list;
+import static hr.fer.zemris.java.custom.collections.CollectionFixtures.name;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class ElementsGetterTest {
+
+    @Test
+    public void testGetsElementsInOrder() {
+        for (Collection col : collections("a", "b", "c")) {
+            ElementsGetter getter = col.createElementsGetter();
+            StringBuilder sb = new StringBuilder();
+            while (getter.hasNextElement()) {
+                sb.append(getter.getNextElement());
+            }
+            assertEquals(name(col), "abc", sb.toString());
+        }
+    }
+
+    @Test
+    public void testHasNextElementDoesNotAdvance() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            assertTrue(getter.hasNextElement());
+            assertTrue(getter.hasNextElement());
+            assertEquals(name(col), "a", getter.getNextElement());
+            assertEquals(name(col), "b", getter.getNextElement());
+            assertFalse(getter.hasNextElement());
+        }
+    }
+
+    @Test
+    public void testNoSuchElementPastEnd() {
+        for (Collection col : collections("a")) {
+            ElementsGetter getter = col.createElementsGetter();
+            getter.getNextElement();
+            try {
+                getter.getNextElement();
+                fail(name(col) + ": expected NoSuchElementException.");
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testNoSuchElementOnEmpty() {
+        for (Collection col : collections()) {
+            ElementsGetter getter = col.createElementsGetter();
+            assertFalse(getter.hasNextElement());
+            try {
+                getter.getNextElement();
+                fail(name(col) + ": expected NoSuchElementException.");
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testIndependentGetters() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter first = col.createElementsGetter();
+            ElementsGetter second = col.createElementsGetter();
+            first.getNextElement();
+            assertEquals(name(col), "b", first.getNextElement());
+            assertEquals(name(col), "a", second.getNextElement());
+        }
+    }
+
+    @Test
+    public void testFailsFastAfterAdd() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            getter.getNextElement();
+            col.add("c");
+            assertFailsFast(col, getter);
+        }
+    }
+
+    @Test
+    public void testFailsFastAfterRemove() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            col.remove("b");
+            assertFailsFast(col, getter);
+        }
+    }
+
+    @Test
+    public void testFailsFastAfterClear() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            col.clear();
+            assertFailsFast(col, getter);
+        }
+    }
+
+    @Test
+    public void testFailsFastAfterInsert() {
+        ArrayIndexedCollection array = array("a", "b");
+        ElementsGetter getter = array.createElementsGetter();
+        array.insert("c", 0);
+        assertFailsFast(array, getter);
+
+        LinkedListIndexedCollection list = list("a", "b");
+        getter = list.createElementsGetter();
+        list.insert("c", 1);
+        assertFailsFast(list, getter);
+    }
+
+    @Test
+    public void testFailsFastAfterRemoveByIndex() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            if (col instanceof ArrayIndexedCollection) {
+                ((ArrayIndexedCollection) col).remove(0);
+            } else {
+                ((LinkedListIndexedCollection) col).remove(0);
+            }
+            assertFailsFast(col, getter);
+        }
+    }
+
+    @Test
+    public void testFailedLookupsDoNotFail() {
+        for (Collection col : collections("a", "b")) {
+            ElementsGetter getter = col.createElementsGetter();
+            assertFalse(col.remove("x"));
+            assertTrue(col.contains("b"));
+            assertEquals(name(col), "a", getter.getNextElement());
+        }
+    }
+
+    private static void assertFailsFast(Collection col, ElementsGetter getter) {
+        try {
+            getter.hasNextElement();
+            fail(name(col) + ": expected ConcurrentModificationException.");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        try {
+            getter.getNextElement();
+            fail(name(col) + ": expected ConcurrentModificationException.");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class IntArrayIndexedCollectionTest {
+
+    @Test
+    public void testAddGetAndGrow() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(1);
+        for (int i = 0; i < 100; i++) {
+            col.add(i);
+        }
+
+        assertEquals(100, col.size());
+        assertEquals(0, col.get(0));
+        assertEquals(99, col.get(99));
+        assertFalse(col.isEmpty());
+    }
+
+    @Test
+    public void testInsertAtBothBounds() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(new int[] {2, 3});
+        col.insert(1, 0);
+        // size is a legal position, as documented
+        col.insert(4, col.size());
+
+        assertArrayEquals(new int[] {1, 2, 3, 4}, col.toArray());
+    }
+
+    @Test
+    public void testInsertIntoEmpty() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection();
+        col.insert(7, 0);
+
+        assertArrayEquals(new int[] {7}, col.toArray());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertBeforeStart() {
+        // must throw!
+        new IntArrayIndexedCollection().insert(1, -1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertAfterEnd() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(new int[] {1});
+        // must throw!
+        col.insert(2, 2);
+    }
+
+    @Test
+    public void testSetRemoveAndIndexOf() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(
+                new int[] {1, 2, 3, 2});
+
+        assertEquals(2, col.set(1, 5));
+        assertEquals(3, col.indexOf(2));
+        assertEquals(-1, col.indexOf(9));
+        assertTrue(col.contains(5));
+
+        assertEquals(1, col.remove(0));
+        assertArrayEquals(new int[] {5, 3, 2}, col.toArray());
+
+        col.clear();
+        assertTrue(col.isEmpty());
+        assertEquals(0, col.toArray().length);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetAtSize() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(new int[] {1});
+        // must throw!
+        col.get(1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testRemoveFromEmpty() {
+        // must throw!
+        new IntArrayIndexedCollection().remove(0);
+    }
+
+    @Test
+    public void testObjectCollectionRoundTrip() {
+        ArrayIndexedCollection objects = new ArrayIndexedCollection();
+        objects.add(Integer.valueOf(1));
+        objects.add(Long.valueOf(2));
+        objects.add(Double.valueOf(3));
+
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(objects);
+        assertArrayEquals(new int[] {1, 2, 3}, col.toArray());
+
+        ArrayIndexedCollection boxed = col.toCollection();
+        assertEquals(3, boxed.size());
+        assertEquals(Integer.valueOf(3), boxed.get(2));
+    }
+
+    @Test
+    public void testForEachInOrder() {
+        IntArrayIndexedCollection col = new IntArrayIndexedCollection(new int[] {3, 1, 2});
+        final StringBuilder sb = new StringBuilder();
+        col.forEach(new IntProcessor() {
+            @Override
+            public void process(int value) {
+                sb.append(value).append(' ');
+            }
+        });
+
+        assertEquals("3 1 2 ", sb.toString());
+    }
+
+}
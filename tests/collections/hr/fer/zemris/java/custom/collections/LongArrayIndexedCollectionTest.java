@@ -0,0 +1,118 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class LongArrayIndexedCollectionTest {
+
+    @Test
+    public void testAddGetAndGrow() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(1);
+        for (int i = 0; i < 100; i++) {
+            col.add(i);
+        }
+
+        assertEquals(100, col.size());
+        assertEquals(0L, col.get(0));
+        assertEquals(99L, col.get(99));
+        assertFalse(col.isEmpty());
+    }
+
+    @Test
+    public void testInsertAtBothBounds() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(new long[] {2L, 3L});
+        col.insert(1L, 0);
+        // size is a legal position, as documented
+        col.insert(4L, col.size());
+
+        assertArrayEquals(new long[] {1L, 2L, 3L, 4L}, col.toArray());
+    }
+
+    @Test
+    public void testInsertIntoEmpty() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection();
+        col.insert(7L, 0);
+
+        assertArrayEquals(new long[] {7L}, col.toArray());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertBeforeStart() {
+        // must throw!
+        new LongArrayIndexedCollection().insert(1L, -1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInsertAfterEnd() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(new long[] {1L});
+        // must throw!
+        col.insert(2L, 2);
+    }
+
+    @Test
+    public void testSetRemoveAndIndexOf() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(
+                new long[] {1L, 2L, 3L, 2L});
+
+        assertEquals(2L, col.set(1, 5L));
+        assertEquals(3, col.indexOf(2L));
+        assertEquals(-1, col.indexOf(9L));
+        assertTrue(col.contains(5L));
+
+        assertEquals(1L, col.remove(0));
+        assertArrayEquals(new long[] {5L, 3L, 2L}, col.toArray());
+
+        col.clear();
+        assertTrue(col.isEmpty());
+        assertEquals(0, col.toArray().length);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetAtSize() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(new long[] {1L});
+        // must throw!
+        col.get(1);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testRemoveFromEmpty() {
+        // must throw!
+        new LongArrayIndexedCollection().remove(0);
+    }
+
+    @Test
+    public void testObjectCollectionRoundTrip() {
+        ArrayIndexedCollection objects = new ArrayIndexedCollection();
+        objects.add(Integer.valueOf(1));
+        objects.add(Long.valueOf(2));
+        objects.add(Double.valueOf(3));
+
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(objects);
+        assertArrayEquals(new long[] {1L, 2L, 3L}, col.toArray());
+
+        ArrayIndexedCollection boxed = col.toCollection();
+        assertEquals(3, boxed.size());
+        assertEquals(Long.valueOf(3L), boxed.get(2));
+    }
+
+    @Test
+    public void testForEachInOrder() {
+        LongArrayIndexedCollection col = new LongArrayIndexedCollection(new long[] {3L, 1L, 2L});
+        final StringBuilder sb = new StringBuilder();
+        col.forEach(new LongProcessor() {
+            @Override
+            public void process(long value) {
+                sb.append(value).append(' ');
+            }
+        });
+
+        assertEquals("3 1 2 ", sb.toString());
+    }
+
+}
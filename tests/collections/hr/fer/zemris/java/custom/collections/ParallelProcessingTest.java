@@ -0,0 +1,167 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+@SuppressWarnings("javadoc")
+public class ParallelProcessingTest {
+
+    private static final int SIZE = 3 * ParallelProcessing.DEFAULT_THRESHOLD + 17;
+
+    /** Pool with more threads than the test machine may have cores. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    /** Appends an element to a partial string. */
+    private static final Combiner APPEND = new Combiner() {
+        @Override
+        public Object combine(Object first, Object second) {
+            return first + "," + second;
+        }
+    };
+
+    /** Concatenates two partial strings. */
+    private static final Combiner CONCAT = new Combiner() {
+        @Override
+        public Object combine(Object first, Object second) {
+            return (String) first + second;
+        }
+    };
+
+    private ArrayIndexedCollection array;
+    private LinkedListIndexedCollection list;
+    private String expected;
+
+    @Before
+    public void setUp() {
+        array = new ArrayIndexedCollection();
+        list = new LinkedListIndexedCollection();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < SIZE; i++) {
+            array.add(Integer.valueOf(i));
+            list.add(Integer.valueOf(i));
+            sb.append(',').append(i);
+        }
+        expected = sb.toString();
+    }
+
+    @Test
+    public void testReduceKeepsOrder() {
+        assertEquals(expected, array.parallelReduce("", APPEND, CONCAT));
+        assertEquals(expected, list.parallelReduce("", APPEND, CONCAT));
+    }
+
+    @Test
+    public void testReduceKeepsOrderWithSmallThreshold() {
+        for (int threshold : new int[] {1, 7, SIZE, SIZE + 1}) {
+            assertEquals(expected, array.parallelReduce("", APPEND, CONCAT, POOL, threshold));
+            assertEquals(expected, list.parallelReduce("", APPEND, CONCAT, POOL, threshold));
+        }
+    }
+
+    @Test
+    public void testReduceEmpty() {
+        Object identity = "";
+        assertSame(identity, new ArrayIndexedCollection().parallelReduce(identity, APPEND, CONCAT));
+        assertSame(identity, new LinkedListIndexedCollection().parallelReduce(identity, APPEND, CONCAT));
+    }
+
+    @Test
+    public void testForEachProcessesEachElementOnce() {
+        for (Collection col : new Collection[] {array, list}) {
+            final AtomicIntegerArray counts = new AtomicIntegerArray(SIZE);
+            Processor processor = new Processor() {
+                @Override
+                public void process(Object value) {
+                    counts.incrementAndGet((Integer) value);
+                }
+            };
+            if (col == array) {
+                array.parallelForEach(processor, POOL, 5);
+            } else {
+                list.parallelForEach(processor, POOL, 5);
+            }
+
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals(col.getClass().getSimpleName() + " " + i, 1, counts.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testForEachFailsFast() {
+        Processor adding = new Processor() {
+            @Override
+            public void process(Object value) {
+                if ((Integer) value == 0) {
+                    list.add(Integer.valueOf(-1));
+                    array.add(Integer.valueOf(-1));
+                }
+            }
+        };
+
+        try {
+            array.parallelForEach(adding, POOL, 1000);
+            fail("Expected ConcurrentModificationException.");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        try {
+            list.parallelForEach(adding, POOL, 1000);
+            fail("Expected ConcurrentModificationException.");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testForEachNullProcessor() {
+        // must throw!
+        array.parallelForEach(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testForEachNullPool() {
+        // must throw!
+        list.parallelForEach(new Processor(), null, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testForEachZeroThreshold() {
+        // must throw!
+        array.parallelForEach(new Processor(), POOL, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReduceNullAccumulator() {
+        // must throw!
+        array.parallelReduce("", null, CONCAT);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReduceNullCombiner() {
+        // must throw!
+        list.parallelReduce("", APPEND, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReduceNullPool() {
+        // must throw!
+        array.parallelReduce("", APPEND, CONCAT, null, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReduceZeroThreshold() {
+        // must throw!
+        list.parallelReduce("", APPEND, CONCAT, POOL, 0);
+    }
+
+}
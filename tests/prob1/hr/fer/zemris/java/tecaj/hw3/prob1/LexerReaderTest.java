@@ -0,0 +1,140 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LexerReaderTest {
+
+    private static final String[] INPUTS = {
+        "",
+        "   \r\n\t  ",
+        "  Ovo je 123ica, ab57.\r\n Kraj  ",
+        "ab\\1\\\\cd 4213 \\1\\2\\3 x-1",
+        "a #b\\1 2# c #d e",
+        "\u0001a b\u0001 \u0003",
+        " word 12 ",
+        "1234567890123456789 word",
+        "abc\\",
+        "abc\\ ",
+        "abc\\a",
+        "12 99999999999999999999 ab"
+    };
+
+    @Test
+    public void testSameTokensAsString() {
+        for (String input : INPUTS) {
+            String expected = tokenize(new Lexer(input));
+            for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+                assertEquals("Buffer size " + bufferSize + ": " + input,
+                        expected, tokenize(new Lexer(new OneCharReader(input), bufferSize)));
+            }
+            assertEquals(expected, tokenize(new Lexer(new StringReader(input), Lexer.DEFAULT_BUFFER_SIZE)));
+        }
+    }
+
+    @Test
+    public void testOffsetsAcrossBuffers() {
+        Lexer lexer = new Lexer(new StringReader("  first second 12345 third"), 4);
+
+        assertEquals(2, lexer.nextTokenView().getStart());
+        assertEquals(8, lexer.nextTokenView().getStart());
+        TokenView view = lexer.nextTokenView();
+        assertEquals(15, view.getStart());
+        assertEquals(12345, view.getNumber());
+        view = lexer.nextTokenView();
+        assertEquals(21, view.getStart());
+        assertEquals("third", view.getText().toString());
+    }
+
+    @Test
+    public void testChannel() {
+        String input = "čćž 12 \\3š";
+        Lexer lexer = new Lexer(Channels.newChannel(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8);
+
+        assertEquals(tokenize(new Lexer(input)), tokenize(lexer));
+    }
+
+    @Test
+    public void testReadError() {
+        Reader reader = new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("Broken.");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try {
+            new Lexer(reader, Lexer.DEFAULT_BUFFER_SIZE).nextToken();
+            fail("Expected LexerException.");
+        } catch (LexerException e) {
+            assertEquals(IOException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullReader() {
+        // must throw!
+        new Lexer(null, Lexer.DEFAULT_BUFFER_SIZE);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroBufferSize() {
+        // must throw!
+        new Lexer(new StringReader("a"), 0);
+    }
+
+    /**
+     * Returns all tokens of the lexer with their offsets, toggling the state
+     * on every extending symbol, or the message of the exception.
+     */
+    private static String tokenize(Lexer lexer) {
+        StringBuilder sb = new StringBuilder();
+        boolean extended = false;
+        try {
+            while (true) {
+                TokenView view = lexer.nextTokenView();
+                sb.append(view.getStart()).append(' ').append(view).append('\n');
+                if (view.getType() == TokenType.EOF) {
+                    break;
+                }
+                if (view.getType() == TokenType.SYMBOL && view.getSymbol() == '#') {
+                    extended = !extended;
+                    lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+                }
+            }
+        } catch (LexerException e) {
+            sb.append(e.getMessage());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A reader that reads at most one character at a time.
+     */
+    private static class OneCharReader extends StringReader {
+        public OneCharReader(String s) {
+            super(s);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 1));
+        }
+    }
+
+}
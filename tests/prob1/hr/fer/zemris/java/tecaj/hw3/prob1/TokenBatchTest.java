@@ -0,0 +1,127 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TokenBatchTest {
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, TokenBatch.tokenize("  \r\n\t ").size());
+    }
+
+    @Test
+    public void testSameTokensAsLexer() {
+        String text = "Janko 3# Ivana26\\a 463abc#zzz \\1\\\\x 12 -";
+        TokenBatch batch = TokenBatch.tokenize(text);
+
+        Lexer lexer = new Lexer(text);
+        boolean extended = false;
+        int index = 0;
+        for (Token token = lexer.nextToken(); token.getType() != TokenType.EOF; token = lexer.nextToken()) {
+            Token batchToken = batch.getToken(index++);
+            assertEquals(token.getType(), batchToken.getType());
+            assertEquals(token.getValue(), batchToken.getValue());
+
+            if (token.getType() == TokenType.SYMBOL && token.getValue().equals('#')) {
+                extended = !extended;
+                lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+            }
+        }
+        assertEquals(index, batch.size());
+    }
+
+    @Test
+    public void testArrays() {
+        TokenBatch batch = TokenBatch.tokenize("ab\\1 42 ?");
+
+        assertEquals(TokenType.WORD.ordinal(), batch.getTypeCodes()[0]);
+        assertEquals(0, batch.getStarts()[0]);
+        assertEquals(4, batch.getLengths()[0]);
+        long value = batch.getValues()[0];
+        assertEquals("ab1", new String(batch.getTextBuffer(),
+                TokenBatch.getTextOffset(value), TokenBatch.getTextLength(value)));
+
+        assertEquals(TokenType.NUMBER.ordinal(), batch.getTypeCodes()[1]);
+        assertEquals(5, batch.getStarts()[1]);
+        assertEquals(42, batch.getValues()[1]);
+
+        assertEquals('?', batch.getSymbol(2));
+        assertEquals(8, batch.getStart(2));
+    }
+
+    @Test
+    public void testGrowth() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("word").append(i).append(' ');
+        }
+        TokenBatch batch = TokenBatch.tokenize(sb.toString());
+
+        assertEquals(2000, batch.size());
+        assertEquals("word", batch.getWord(1998));
+        assertEquals(999, batch.getNumber(1999));
+    }
+
+    @Test
+    public void testParallelSameAsSequential() {
+        String text = generateText(1 << 20);
+        TokenBatch sequential = TokenBatch.tokenize(text);
+        TokenBatch parallel = TokenBatch.tokenizeParallel(text, new ForkJoinPool(4));
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.getStart(i), parallel.getStart(i));
+            assertEquals(sequential.getLength(i), parallel.getLength(i));
+            assertEquals(sequential.getToken(i).getValue(), parallel.getToken(i).getValue());
+        }
+    }
+
+    @Test
+    public void testParallelThrowsFirstException() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1 << 20) {
+            sb.append("ab 12 \\1 ");
+        }
+        String text = sb.toString();
+        int middle = text.indexOf(' ', text.length() / 2);
+        // the first of two errors, both in the basic state
+        text = text.substring(0, middle) + " 99999999999999999999 " + text.substring(middle) + " \\a";
+
+        try {
+            TokenBatch.tokenizeParallel(text, new ForkJoinPool(4));
+            fail("Exception was expected.");
+        } catch (LexerException e) {
+            assertEquals("Number is too big: 99999999999999999999", e.getMessage());
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testWrongType() {
+        TokenBatch.tokenize("word").getNumber(0);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        TokenBatch.tokenize("word").getType(1);
+    }
+
+    private static String generateText(int length) {
+        Random random = new Random(length);
+        String[] parts = {"word", "ab\\1\\\\cd", "123", "-?.", "#", "x\\9", "a1b2", "\\\\"};
+
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(parts[random.nextInt(parts.length)]);
+            sb.append(random.nextBoolean() ? " " : "\n\t");
+        }
+        return sb.toString();
+    }
+
+}
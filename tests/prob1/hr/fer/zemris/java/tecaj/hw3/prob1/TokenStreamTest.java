@@ -0,0 +1,107 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TokenStreamTest {
+
+    private static final Function<Token, Object> VALUE = new Function<Token, Object>() {
+        @Override
+        public Object apply(Token token) {
+            return token.getValue();
+        }
+    };
+
+    @Test
+    public void testStreamTokens() {
+        List<Object> values = values(Lexer.stream("  ab\\1 42 #x-1 2# c  "));
+
+        assertEquals(Arrays.<Object>asList("ab1", 42L, '#', "x-1", "2", '#', "c"), values);
+    }
+
+    @Test
+    public void testStreamIsLazy() {
+        // the invalid escape at the end is never reached
+        List<Object> numbers = Lexer.stream("a 1 b 2 3 4 \\a")
+                .filter(new Predicate<Token>() {
+                    @Override
+                    public boolean test(Token token) {
+                        return token.getType() == TokenType.NUMBER;
+                    }
+                })
+                .limit(2)
+                .map(VALUE)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.<Object>asList(1L, 2L), numbers);
+    }
+
+    @Test
+    public void testRemainingTokens() {
+        Lexer lexer = new Lexer("first # second third # 4");
+        lexer.nextToken();
+
+        assertEquals(5, lexer.tokens().count());
+        assertEquals(0, lexer.tokens().count());
+    }
+
+    @Test
+    public void testCharacteristics() {
+        Spliterator<Token> spliterator = Lexer.stream("a b").spliterator();
+
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+    }
+
+    @Test
+    public void testSplitSameAsSequential() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 100_000; i++) {
+            sb.append(i % 7 == 0 ? "#a\\b 1# " : "w\\1\\\\ ").append(i).append(' ');
+        }
+        String text = sb.toString();
+
+        Spliterator<Token> spliterator = Lexer.stream(text).spliterator();
+        Spliterator<Token> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+
+        final List<Object> split = new ArrayList<>();
+        Consumer<Token> collector = new Consumer<Token>() {
+            @Override
+            public void accept(Token token) {
+                split.add(token.getValue());
+            }
+        };
+        prefix.forEachRemaining(collector);
+        spliterator.forEachRemaining(collector);
+
+        List<Object> expected = values(Lexer.stream(text));
+        assertEquals(expected, split);
+        assertEquals(expected, values(Lexer.stream(text).parallel()));
+    }
+
+    @Test(expected=LexerException.class)
+    public void testStreamThrows() {
+        // will throw!
+        Lexer.stream("a \\a").count();
+    }
+
+    private static List<Object> values(Stream<Token> tokens) {
+        return tokens.map(VALUE).collect(Collectors.toList());
+    }
+
+}
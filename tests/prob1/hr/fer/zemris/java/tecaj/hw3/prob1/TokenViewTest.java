@@ -0,0 +1,79 @@
+package hr.fer.zemris.java.tecaj.hw3.prob1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TokenViewTest {
+
+    @Test
+    public void testViewIsReused() {
+        Lexer lexer = new Lexer("word 12");
+
+        TokenView first = lexer.nextTokenView();
+        TokenView second = lexer.nextTokenView();
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testViewValues() {
+        Lexer lexer = new Lexer("  ab\\1\\\\c 4213 -");
+
+        TokenView view = lexer.nextTokenView();
+        assertEquals(TokenType.WORD, view.getType());
+        assertEquals("ab1\\c", view.getText().toString());
+        assertEquals(2, view.getStart());
+        assertEquals(7, view.getLength());
+
+        view = lexer.nextTokenView();
+        assertEquals(TokenType.NUMBER, view.getType());
+        assertEquals(4213, view.getNumber());
+        assertEquals(10, view.getStart());
+        assertEquals("4213", view.getText().toString());
+
+        view = lexer.nextTokenView();
+        assertEquals(TokenType.SYMBOL, view.getType());
+        assertEquals('-', view.getSymbol());
+
+        assertEquals(TokenType.EOF, lexer.nextTokenView().getType());
+    }
+
+    @Test
+    public void testGetTokenAfterView() {
+        Lexer lexer = new Lexer("ab 3");
+
+        lexer.nextTokenView();
+        Token token = lexer.getToken();
+        assertEquals(TokenType.WORD, token.getType());
+        assertEquals("ab", token.getValue());
+        assertSame(token, lexer.getToken());
+
+        lexer.nextTokenView();
+        assertEquals(Long.valueOf(3), lexer.getToken().getValue());
+    }
+
+    @Test
+    public void testExtendedStateInView() {
+        Lexer lexer = new Lexer("a #b\\1 2# c");
+
+        lexer.nextTokenView();
+        assertEquals('#', lexer.nextTokenView().getSymbol());
+        assertEquals("b\\1", lexer.nextTokenView().getText().toString());
+        assertEquals("2", lexer.nextTokenView().getText().toString());
+        assertEquals('#', lexer.nextTokenView().getSymbol());
+        lexer.setState(LexerState.BASIC);
+        assertEquals("c", lexer.nextTokenView().getText().toString());
+    }
+
+    @Test(expected=LexerException.class)
+    public void testViewAfterEOF() {
+        Lexer lexer = new Lexer("");
+
+        lexer.nextTokenView();
+        // will throw!
+        lexer.nextTokenView();
+    }
+
+}
@@ -0,0 +1,154 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+
+
+@SuppressWarnings("javadoc")
+public class SmartScriptInterpreterTest {
+
+    @Test
+    public void testText() {
+        assertEquals("Just text.", run("Just text."));
+    }
+
+    @Test
+    public void testForLoop() {
+        assertEquals("1,2,3,", run("{$ FOR i 1 3 $}{$= i $},{$END$}"));
+        assertEquals("0 2 4 ", run("{$ FOR i 0 5 2 $}{$= i \" \" $}{$END$}"));
+        assertEquals("", run("{$ FOR i 3 1 $}{$= i $}{$END$}"));
+    }
+
+    @Test
+    public void testNestedForLoop() {
+        assertEquals("11 12 21 22 ",
+                run("{$FOR i 1 2$}{$FOR j 1 2$}{$= i j \" \" $}{$END$}{$END$}"));
+    }
+
+    @Test
+    public void testOperatorsAndFunctions() {
+        assertEquals("7", run("{$= 1 2 3 * + $}"));
+        assertEquals("2.5", run("{$= 5 2.0 / $}"));
+        assertEquals("1.000", run("{$= 90 @sin \"0.000\" @decfmt $}"));
+        assertEquals("21", run("{$= 1 2 @swap $}"));
+        assertEquals("33", run("{$= 3 @dup $}"));
+    }
+
+    @Test
+    public void testParameters() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("a", "4");
+        Map<String, String> persistent = new HashMap<>();
+
+        StringBuilder sb = new StringBuilder();
+        SmartScriptContext context = new SmartScriptContext(sb, parameters, persistent);
+        String script = "{$= \"a\" 0 @paramGet \"b\" 3 @paramGet + $}"
+                + "{$= \"n\" \"1\" @pparamGet 1 + \"n\" @pparamSet $}";
+        SmartScriptProgram program = compile(script);
+        new SmartScriptInterpreter(program).execute(context);
+        new SmartScriptInterpreter(program).execute(context);
+
+        assertEquals("77", sb.toString());
+        assertEquals("3", persistent.get("n"));
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testUnknownFunction() {
+        compile("{$= 1 @cos $}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testNotEnoughValues() {
+        run("{$= 1 + $}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testNotEnoughValuesAboveVariables() {
+        run("{$ FOR i 1 3 $}{$= i + $}{$END$}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testNegativeLoopStep() {
+        // must throw instead of looping forever!
+        run("{$ FOR i 1 10 -1 $}{$= i $}{$END$}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testZeroLoopStep() {
+        // must throw instead of looping forever!
+        run("{$ FOR i 1 10 0 $}{$= i $}{$END$}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testAdditionOverflow() {
+        // must throw instead of wrapping around!
+        run("{$= 2147483647 1 + $}");
+    }
+
+    @Test(expected=SmartScriptEngineException.class)
+    public void testMultiplicationOverflow() {
+        // must throw instead of wrapping around!
+        run("{$= 65536 65536 * $}");
+    }
+
+    @Test
+    public void testArithmeticAtIntegerLimits() {
+        assertEquals("2147483647", run("{$= 2147483646 1 + $}"));
+        assertEquals("-2147483648", run("{$= -2147483647 1 - $}"));
+        assertEquals("-2147483647", run("{$= 2147483647 -1 * $}"));
+    }
+
+    @Test
+    public void testLoopEndingAtLargestInteger() {
+        // must end instead of wrapping around!
+        assertEquals("2147483646,2147483647,",
+                run("{$ FOR i 2147483646 2147483647 1 $}{$= i $},{$END$}"));
+        assertEquals("2147483640,2147483645,",
+                run("{$ FOR i 2147483640 2147483647 5 $}{$= i $},{$END$}"));
+    }
+
+    @Test
+    public void testLoopVariableAfterLoop() {
+        assertEquals("1,2,3,3", run("{$ FOR i 1 3 $}{$= i $},{$END$}{$= i $}"));
+    }
+
+    @Test
+    public void testStringEscapes() {
+        assertEquals("a\"b\\c", run("{$= \"a\\\"b\\\\c\" $}"));
+        assertEquals("x\\ny", run("{$= \"x\\\\ny\" $}"));
+        assertEquals("1\t2\n", run("{$= \"1\\t2\\n\" $}"));
+    }
+
+    @Test
+    public void testStringEscapesKeptInText() {
+        String echo = "{$= \"a\\\"b\\\\c\\n\" $}";
+        SmartScriptParser parser = new SmartScriptParser(echo);
+        String text = parser.getDocumentNode().toString();
+
+        assertEquals(run(echo), run(text));
+        assertEquals(text, new SmartScriptParser(text).getDocumentNode().toString());
+    }
+
+    @Test
+    public void testStringLoopBounds() {
+        assertEquals("01 2 3 ", run("{$ FOR i \"01\" \"3\" $}{$= i \" \" $}{$END$}"));
+        assertEquals("1.5 2.5 ", run("{$ FOR i 1.5 3 $}{$= i \" \" $}{$END$}"));
+    }
+
+    private static SmartScriptProgram compile(String script) {
+        return SmartScriptCompiler.compile(new SmartScriptParser(script).getDocumentNode());
+    }
+
+    private static String run(String script) {
+        StringBuilder sb = new StringBuilder();
+        new SmartScriptInterpreter(compile(script)).execute(new SmartScriptContext(sb));
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,52 @@
+package hr.fer.zemris.java.custom.scripting.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+
+
+@SuppressWarnings("javadoc")
+public class SmartScriptGeneratorTest {
+
+    @Test
+    public void testGeneratedDocumentsAreValid() {
+        for (long seed = 0; seed < 50; seed++) {
+            SmartScriptGenerator generator = new SmartScriptGenerator(seed);
+            generator.setMaxDepth((int) (seed % 5));
+            generator.setEscapeDensity(0.3);
+            generator.setWhitespaceNoise(0.5);
+
+            String document = generator.generate(5000);
+            assertTrue(document.length() >= 5000);
+            // must not throw
+            new SmartScriptParser(document);
+        }
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameDocument() {
+        String first = new SmartScriptGenerator(42).generate(10000);
+        String second = new SmartScriptGenerator(42).generate(10000);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testStreamedDocumentIsSame() throws IOException {
+        SmartScriptGenerator generator = new SmartScriptGenerator(7);
+        StringWriter writer = new StringWriter();
+        generator.generate(writer, 10000);
+        assertEquals(generator.generate(10000), writer.toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidProbability() {
+        new SmartScriptGenerator(0).setEscapeDensity(1.5);
+    }
+
+}
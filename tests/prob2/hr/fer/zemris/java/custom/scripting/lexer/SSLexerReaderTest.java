@@ -0,0 +1,150 @@
+package hr.fer.zemris.java.custom.scripting.lexer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.tecaj.hw3.prob1.LexerException;
+
+@SuppressWarnings("javadoc")
+public class SSLexerReaderTest {
+
+    private static final String[] INPUTS = {
+        "",
+        "Just text.",
+        "Text {$ FOR i 1 10 1 $} x {$= i \"s\" @sin $}{$END$} end",
+        "{$FOR i 1 2 1$}{$END$}",
+        "{$for i -1 2.5 \"3\"$}{$end$}",
+        "{$= \"a \\\"quoted\\\" \\\\ string\" 1 2 + @decfmt $}",
+        "Escaped \\{$ and \\\\ in text",
+        "Čćžšđ {$= \"ünïcödé ✓\" $} 𝄞 kraj",
+        "Unclosed {$= 1",
+        "{$= @ $}",
+        "a {$ END $} b"
+    };
+
+    @Test
+    public void testReaderSameAsString() throws IOException {
+        for (String input : inputs()) {
+            String expected = tokenize(new SSLexer(input));
+            for (int bufferSize = SSLexer.MIN_BUFFER_SIZE; bufferSize <= 9; bufferSize++) {
+                assertEquals("Buffer size " + bufferSize + ": " + input,
+                        expected, tokenize(new SSLexer(new StringReader(input), bufferSize)));
+                assertEquals("One char, buffer size " + bufferSize + ": " + input,
+                        expected, tokenize(new SSLexer(new OneCharReader(input), bufferSize)));
+            }
+            assertEquals(expected, tokenize(new SSLexer(new StringReader(input))));
+        }
+    }
+
+    @Test
+    public void testChannelSameAsString() throws IOException {
+        for (String input : inputs()) {
+            String expected = tokenize(new SSLexer(input));
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+            // multi-byte characters are split across reads
+            assertEquals(input, expected, tokenize(
+                    new SSLexer(new OneByteChannel(bytes), StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBufferShorterThanKeyword() {
+        // must throw instead of waiting for a keyword that does not fit!
+        new SSLexer(new StringReader("{$FOR i 1 2 1$}{$END$}"), SSLexer.MIN_BUFFER_SIZE - 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullReader() {
+        // must throw!
+        new SSLexer((Reader) null, SSLexer.DEFAULT_BUFFER_SIZE);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullChannel() {
+        // must throw!
+        new SSLexer((ReadableByteChannel) null, StandardCharsets.UTF_8);
+    }
+
+    private static String[] inputs() throws IOException {
+        String[] inputs = new String[INPUTS.length + 4];
+        System.arraycopy(INPUTS, 0, inputs, 0, INPUTS.length);
+        for (int i = 1; i <= 4; i++) {
+            inputs[INPUTS.length + i - 1] = new String(
+                    Files.readAllBytes(Paths.get("doc" + i + ".txt")), StandardCharsets.UTF_8);
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns all tokens of the lexer, or the message of the exception.
+     */
+    private static String tokenize(SSLexer lexer) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            SSToken token;
+            do {
+                token = lexer.nextToken();
+                sb.append(token.getType()).append(' ').append(token.getValue()).append('\n');
+            } while (token.getType() != SSTokenType.EOF);
+        } catch (LexerException e) {
+            sb.append(e.getMessage());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A reader that reads at most one character at a time.
+     */
+    private static class OneCharReader extends StringReader {
+        public OneCharReader(String s) {
+            super(s);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 1));
+        }
+    }
+
+    /**
+     * A channel that reads at most one byte at a time.
+     */
+    private static class OneByteChannel implements ReadableByteChannel {
+        private final byte[] bytes;
+        private int position;
+
+        public OneByteChannel(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position == bytes.length) {
+                return -1;
+            }
+            dst.put(bytes[position++]);
+            return 1;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package hr.fer.zemris.java.custom.scripting.lexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.tecaj.hw3.prob1.LexerException;
+
+@SuppressWarnings("javadoc")
+public class SSLexerStreamTest {
+
+    @Test
+    public void testTokensSameAsNextToken() {
+        String text = "Text {$ FOR i 1 10 1 $} x {$= i \"s\" @sin $}{$END$} end";
+
+        SSLexer lexer = new SSLexer(text);
+        long expected = 0;
+        while (lexer.nextToken().getType() != SSTokenType.EOF) {
+            expected++;
+        }
+
+        assertEquals(expected, new SSLexer(text).tokens().count());
+    }
+
+    @Test
+    public void testTokensAreLazy() {
+        // the unclosed tag at the end is never reached
+        SSLexer lexer = new SSLexer("a {$= 1 $} b {$= 2");
+
+        assertEquals(SSTokenType.TEXT, lexer.tokens().findFirst().get().getType());
+    }
+
+    @Test
+    public void testCharacteristics() {
+        Spliterator<SSToken> spliterator = new SSLexer("a").tokens().spliterator();
+
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+    }
+
+    @Test(expected=LexerException.class)
+    public void testTokensThrow() {
+        // will throw!
+        new SSLexer("a {$= 1").tokens().anyMatch(new Predicate<SSToken>() {
+            @Override
+            public boolean test(SSToken token) {
+                return token.getType() == SSTokenType.EOF;
+            }
+        });
+    }
+
+}
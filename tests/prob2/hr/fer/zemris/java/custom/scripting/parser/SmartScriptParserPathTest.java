@@ -0,0 +1,118 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.scripting.elems.Element;
+import hr.fer.zemris.java.custom.scripting.nodes.EchoNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ForLoopNode;
+import hr.fer.zemris.java.custom.scripting.nodes.Node;
+import hr.fer.zemris.java.custom.scripting.nodes.TextNode;
+
+
+@SuppressWarnings("javadoc")
+public class SmartScriptParserPathTest {
+
+    @Test
+    public void testExampleDocuments() throws IOException {
+        for (int i = 1; i <= 4; i++) {
+            String text = new String(Files.readAllBytes(Paths.get("doc" + i + ".txt")), StandardCharsets.UTF_8);
+            assertSameTree(text);
+        }
+    }
+
+    @Test
+    public void testNonAsciiDocument() throws IOException {
+        assertSameTree("Čćžšđ ünïcödé {$ FOR i 1 3 $}✓ {$= \"𝄞 ž\" @sin $}{$END$} kraj ß");
+    }
+
+    @Test
+    public void testLongDocument() throws IOException {
+        // longer than the buffer the mapped bytes are decoded into
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("Redak ").append(i).append(" čćž {$= i \"ž\" $}\n");
+        }
+        assertSameTree(sb.toString());
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        assertSameTree("");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullPath() throws IOException {
+        // must throw!
+        new SmartScriptParser((Path) null, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the text to a temporary file and checks that parsing the file
+     * gives the same tree as parsing the text.
+     */
+    private static void assertSameTree(String text) throws IOException {
+        Path file = Files.createTempFile("document", ".txt");
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+            String expected = dump(new SmartScriptParser(text).getDocumentNode());
+            String actual = dump(new SmartScriptParser(file, StandardCharsets.UTF_8).getDocumentNode());
+            assertEquals(expected, actual);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Returns the structure of the tree under the given node, one node per
+     * line, indented by its depth.
+     */
+    private static String dump(Node root) {
+        StringBuilder sb = new StringBuilder();
+        dump(root, 0, sb);
+        return sb.toString();
+    }
+
+    private static void dump(Node node, int depth, StringBuilder sb) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(node.getClass().getSimpleName());
+        if (node instanceof TextNode) {
+            sb.append(" [").append(((TextNode) node).getText()).append(']');
+        } else if (node instanceof EchoNode) {
+            for (Element element : ((EchoNode) node).getElements()) {
+                append(element, sb);
+            }
+        } else if (node instanceof ForLoopNode) {
+            ForLoopNode loop = (ForLoopNode) node;
+            append(loop.getVariable(), sb);
+            append(loop.getStartExpression(), sb);
+            append(loop.getEndExpression(), sb);
+            append(loop.getStepExpression(), sb);
+        }
+        sb.append('\n');
+
+        for (int i = 0; i < node.numberOfChildren(); i++) {
+            dump(node.getChild(i), depth + 1, sb);
+        }
+    }
+
+    private static void append(Element element, StringBuilder sb) {
+        sb.append(' ');
+        if (element == null) {
+            sb.append("null");
+        } else {
+            sb.append(element.getClass().getSimpleName()).append(':').append(element.asText());
+        }
+    }
+
+}
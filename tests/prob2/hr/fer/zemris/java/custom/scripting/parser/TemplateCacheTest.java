@@ -0,0 +1,158 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+
+
+@SuppressWarnings("javadoc")
+public class TemplateCacheTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testHitAndMiss() throws IOException {
+        Path file = createTemplate("Text {$= i $}");
+        try {
+            TemplateCache cache = new TemplateCache(10, 1000);
+            DocumentNode first = cache.get(file);
+            DocumentNode second = cache.get(file);
+
+            assertSame(first, second);
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFileChangeInvalidates() throws IOException {
+        Path file = createTemplate("Old text");
+        try {
+            TemplateCache cache = new TemplateCache(10, 1000);
+            DocumentNode first = cache.get(file);
+
+            Files.write(file, "New longer text".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            DocumentNode second = cache.get(file);
+
+            assertNotSame(first, second);
+            assertEquals("New longer text", second.toString());
+            assertEquals(2, cache.getMisses());
+            assertEquals(1, cache.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws IOException {
+        Path a = createTemplate("A");
+        Path b = createTemplate("B");
+        Path c = createTemplate("C");
+        try {
+            TemplateCache cache = new TemplateCache(2, 1000);
+            cache.get(a);
+            cache.get(b);
+            cache.get(a);
+            cache.get(c); // evicts b
+
+            assertEquals(1, cache.getEvictions());
+            cache.get(a);
+            assertEquals(2, cache.getHits());
+            cache.get(b);
+            assertEquals(4, cache.getMisses());
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+            Files.delete(c);
+        }
+    }
+
+    @Test
+    public void testByteLimitEviction() throws IOException {
+        Path a = createTemplate("0123456789");
+        Path b = createTemplate("0123456789");
+        try {
+            TemplateCache cache = new TemplateCache(10, 30);
+            cache.get(a);
+            cache.get(b);
+
+            assertEquals(1, cache.size());
+            assertEquals(20, cache.getEstimatedBytes());
+            assertEquals(1, cache.getEvictions());
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsParseOnce() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("Line ").append(i).append(" {$ FOR i 1 3 $}{$= i \"x\" @sin $}{$END$}\n");
+        }
+        Path file = createTemplate(sb.toString());
+        try {
+            final TemplateCache cache = new TemplateCache(10, Long.MAX_VALUE);
+            final Path path = file;
+            final CountDownLatch start = new CountDownLatch(1);
+            final DocumentNode[] results = new DocumentNode[THREADS];
+            final Throwable[] errors = new Throwable[THREADS];
+
+            Thread[] threads = new Thread[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                final int index = i;
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            results[index] = cache.get(path);
+                        } catch (Throwable t) {
+                            errors[index] = t;
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            for (int i = 0; i < THREADS; i++) {
+                assertNull(errors[i]);
+                assertNotNull(results[i]);
+                assertSame(results[0], results[i]);
+            }
+            assertEquals(1, cache.getParses());
+            assertEquals(1, cache.getMisses());
+            assertEquals(THREADS - 1, cache.getHits());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path createTemplate(String text) throws IOException {
+        Path file = Files.createTempFile("template", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
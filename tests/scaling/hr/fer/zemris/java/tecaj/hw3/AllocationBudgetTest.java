@@ -0,0 +1,282 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.IntArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.LinkedListIndexedCollection;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptCompiler;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptContext;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptInterpreter;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptProgram;
+import hr.fer.zemris.java.custom.scripting.generator.SmartScriptGenerator;
+import hr.fer.zemris.java.custom.scripting.lexer.SSLexer;
+import hr.fer.zemris.java.custom.scripting.lexer.SSTokenType;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+import hr.fer.zemris.java.tecaj.hw3.prob1.Lexer;
+import hr.fer.zemris.java.tecaj.hw3.prob1.LexerState;
+import hr.fer.zemris.java.tecaj.hw3.prob1.Token;
+import hr.fer.zemris.java.tecaj.hw3.prob1.TokenType;
+import hr.fer.zemris.java.tecaj.hw3.prob1.TokenView;
+
+/*
+ * Every workload is run on an input of a base size and on an input twice as
+ * large, and the difference in allocated bytes is divided by the difference in
+ * processed items. This gives the bytes allocated per token or per element,
+ * without the fixed costs such as the buffers of a lexer. The budgets are the
+ * current costs with a little headroom; lower a budget when a hot path gets
+ * cheaper, so that it can not silently get more expensive again.
+ */
+@SuppressWarnings("javadoc")
+public class AllocationBudgetTest {
+
+    /** Base size of the inputs. */
+    private static final int SIZE = 1 << 16;
+    /** Number of warm-up runs before the measurement. */
+    private static final int WARMUP_RUNS = 3;
+    /** Number of measured runs for each size. */
+    private static final int RUNS = 3;
+
+    /** Keeps the results of the workloads from being optimized away. */
+    private static volatile long sink;
+
+    /** Output that discards everything written to it. */
+    private static final Appendable NULL_OUTPUT = new Appendable() {
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            return this;
+        }
+    };
+
+    @Test
+    public void testLexerBytesPerToken() {
+        // StringBuilder, String, boxed value and Token per token
+        assertBudget("Lexer bytes per token", 128, new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return Inputs.lexerInput(size);
+            }
+
+            @Override
+            long run(String input) {
+                Lexer lexer = new Lexer(input);
+                long count = 0;
+                boolean extended = false;
+                for (Token token = lexer.nextToken(); token.getType() != TokenType.EOF; token = lexer.nextToken()) {
+                    if (token.getType() == TokenType.SYMBOL && token.getValue().equals('#')) {
+                        extended = !extended;
+                        lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+                    }
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    @Test
+    public void testLexerViewBytesPerToken() {
+        // only the copy of the input text, the view is refilled for every token
+        assertBudget("Lexer view bytes per token", 8, new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return Inputs.lexerInput(size);
+            }
+
+            @Override
+            long run(String input) {
+                Lexer lexer = new Lexer(input);
+                long count = 0;
+                boolean extended = false;
+                for (TokenView view = lexer.nextTokenView(); view.getType() != TokenType.EOF; view = lexer.nextTokenView()) {
+                    if (view.getType() == TokenType.SYMBOL && view.getSymbol() == '#') {
+                        extended = !extended;
+                        lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+                    }
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    @Test
+    public void testSSLexerBytesPerToken() {
+        assertBudget("SSLexer bytes per token", 112, new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return new SmartScriptGenerator(size).generate(size);
+            }
+
+            @Override
+            long run(String input) {
+                SSLexer lexer = new SSLexer(input);
+                long count = 0;
+                while (lexer.nextToken().getType() != SSTokenType.EOF) {
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    @Test
+    public void testParserBytesPerCharacter() {
+        assertBudget("SmartScriptParser bytes per character", 20, new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return new SmartScriptGenerator(size).generate(size);
+            }
+
+            @Override
+            long run(String input) {
+                new SmartScriptParser(input).getDocumentNode();
+                return input.length();
+            }
+        });
+    }
+
+    @Test
+    public void testArrayIndexedCollectionBytesPerElement() {
+        // only the growth of the backing array, elements are boxed in advance
+        assertBudget("ArrayIndexedCollection bytes per element", 10, new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                ArrayIndexedCollection col = new ArrayIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                for (int i = 0; i < col.size(); i++) {
+                    sink += col.get(i).hashCode();
+                }
+                return elements.length;
+            }
+        });
+    }
+
+    @Test
+    public void testLinkedListIndexedCollectionBytesPerElement() {
+        // one node per element
+        assertBudget("LinkedListIndexedCollection bytes per element", 28, new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                LinkedListIndexedCollection col = new LinkedListIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                while (col.size() > 0) {
+                    col.remove(0);
+                }
+                return elements.length;
+            }
+        });
+    }
+
+    @Test
+    public void testIntArrayIndexedCollectionBytesPerElement() {
+        // no boxing, only the growth of the backing array
+        assertBudget("IntArrayIndexedCollection bytes per element", 10, new Workload<Integer>() {
+            @Override
+            Integer prepare(int size) {
+                return size;
+            }
+
+            @Override
+            long run(Integer size) {
+                IntArrayIndexedCollection col = new IntArrayIndexedCollection();
+                for (int i = 0; i < size; i++) {
+                    col.add(i);
+                }
+                for (int i = 0; i < col.size(); i++) {
+                    sink += col.get(i);
+                }
+                return size;
+            }
+        });
+    }
+
+    @Test
+    public void testInterpreterBytesPerIteration() {
+        // numbers are unboxed, so a loop allocates nothing per iteration
+        assertBudget("SmartScriptInterpreter bytes per iteration", 1, new Workload<Integer>() {
+            @Override
+            Integer prepare(int size) {
+                return size;
+            }
+
+            @Override
+            long run(Integer size) {
+                String script = "{$FOR i 1 " + size + " 1$}{$FOR x 0 1 0.5$}{$END$}{$END$}";
+                SmartScriptProgram program = SmartScriptCompiler.compile(
+                        new SmartScriptParser(script).getDocumentNode());
+                new SmartScriptInterpreter(program).execute(new SmartScriptContext(NULL_OUTPUT));
+                return size;
+            }
+        });
+    }
+
+    /**
+     * Measures the bytes allocated per item processed by the workload and
+     * fails if they exceed the given <tt>budget</tt>.
+     */
+    private static <T> void assertBudget(String name, double budget, Workload<T> workload) {
+        if (!AllocationMeter.isSupported()) {
+            return;
+        }
+
+        T smaller = workload.prepare(SIZE);
+        T larger = workload.prepare(2 * SIZE);
+
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            sink += workload.run(larger);
+        }
+
+        long[] smallerResult = measure(workload, smaller);
+        long[] largerResult = measure(workload, larger);
+
+        double bytesPerItem = (double) (largerResult[0] - smallerResult[0])
+                / Math.max(largerResult[1] - smallerResult[1], 1);
+        assertTrue(String.format("%s: %.1f is over the budget of %.1f", name, bytesPerItem, budget),
+                bytesPerItem <= budget);
+    }
+
+    /**
+     * Runs the workload on the given <tt>input</tt> and returns the least
+     * allocated bytes of all runs and the number of processed items.
+     */
+    private static <T> long[] measure(Workload<T> workload, T input) {
+        long bytes = Long.MAX_VALUE;
+        long items = 0;
+        for (int r = 0; r < RUNS; r++) {
+            long allocatedBefore = AllocationMeter.allocatedBytes();
+            items = workload.run(input);
+            bytes = Math.min(bytes, AllocationMeter.allocatedBytes() - allocatedBefore);
+        }
+        return new long[] {bytes, items};
+    }
+
+}
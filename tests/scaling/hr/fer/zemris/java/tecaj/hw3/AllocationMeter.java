@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated by the current thread, using the allocation
+ * counters of the HotSpot {@linkplain com.sun.management.ThreadMXBean}. The
+ * counters are exact enough to tell allocating code from allocation-free code,
+ * but include anything the thread allocates, so measured code should not
+ * print, log or prepare its input while being measured.
+ *
+ * @author Mario Bobic
+ */
+final class AllocationMeter {
+
+    /** Thread bean with the allocation counters, or <tt>null</tt>. */
+    private static final com.sun.management.ThreadMXBean BEAN = getBean();
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private AllocationMeter() {
+    }
+
+    /**
+     * Returns true if the JVM supports measuring allocated bytes.
+     *
+     * @return true if allocated bytes can be measured
+     */
+    static boolean isSupported() {
+        return BEAN != null;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or <tt>-1</tt>
+     * if the JVM does not support measuring it.
+     *
+     * @return the bytes allocated by the current thread, or <tt>-1</tt>
+     */
+    static long allocatedBytes() {
+        return BEAN == null ? -1 : BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the thread bean with enabled allocation counters, or
+     * <tt>null</tt> if there is no such bean.
+     *
+     * @return the thread bean with allocation counters, or <tt>null</tt>
+     */
+    private static com.sun.management.ThreadMXBean getBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sunBean;
+    }
+
+}
@@ -0,0 +1,55 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the CPU time of the current thread, using the
+ * {@linkplain ThreadMXBean}. Unlike the wall-clock time, the CPU time does not
+ * include the time the thread spent waiting for other processes or for the
+ * garbage collector, so it stays stable on a loaded machine. If the JVM does
+ * not support measuring the CPU time, the wall-clock time is used instead.
+ *
+ * @author Mario Bobic
+ */
+final class CpuClock {
+
+    /** Thread bean with the CPU time counters, or <tt>null</tt>. */
+    private static final ThreadMXBean BEAN = getBean();
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private CpuClock() {
+    }
+
+    /**
+     * Returns the CPU time of the current thread in nanoseconds, or the
+     * {@linkplain System#nanoTime() wall-clock time} if the JVM does not
+     * support measuring it. Only differences of the returned values are
+     * meaningful.
+     *
+     * @return the CPU time of the current thread in nanoseconds
+     */
+    static long nanoTime() {
+        return BEAN == null ? System.nanoTime() : BEAN.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Returns the thread bean with enabled CPU time counters, or <tt>null</tt>
+     * if there is no such bean.
+     *
+     * @return the thread bean with CPU time counters, or <tt>null</tt>
+     */
+    private static ThreadMXBean getBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isCurrentThreadCpuTimeSupported()) {
+            return null;
+        }
+        if (!bean.isThreadCpuTimeEnabled()) {
+            bean.setThreadCpuTimeEnabled(true);
+        }
+        return bean;
+    }
+
+}
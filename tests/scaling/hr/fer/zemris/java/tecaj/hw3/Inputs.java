@@ -0,0 +1,73 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+import java.util.Random;
+
+import hr.fer.zemris.java.tecaj.hw3.prob1.Lexer;
+
+/**
+ * Inputs of the workloads measured by the scaling and allocation tests.
+ *
+ * @author Mario Bobic
+ */
+final class Inputs {
+
+    /**
+     * Disable instantiation or inheritance.
+     */
+    private Inputs() {
+    }
+
+    /**
+     * Generates an input of approximately <tt>size</tt> characters for the
+     * {@linkplain Lexer} with words, escapes, numbers, symbols and extended
+     * sections.
+     *
+     * @param size size of the input in characters
+     * @return the generated input
+     */
+    static String lexerInput(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder(size + 16);
+        while (sb.length() < size) {
+            switch (random.nextInt(6)) {
+            case 0:
+                sb.append("word");
+                break;
+            case 1:
+                sb.append("ab\\1\\\\cd");
+                break;
+            case 2:
+                sb.append(random.nextInt(100000));
+                break;
+            case 3:
+                sb.append("-?.");
+                break;
+            case 4:
+                sb.append("# x-1 \\9 ");
+                sb.append(random.nextInt(1000));
+                sb.append(" #");
+                break;
+            default:
+                sb.append("a1b2");
+                break;
+            }
+            sb.append(random.nextBoolean() ? ' ' : '\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates <tt>size</tt> integer elements, boxed in advance.
+     *
+     * @param size number of elements
+     * @return the generated elements
+     */
+    static Object[] elements(int size) {
+        Object[] elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = i;
+        }
+        return elements;
+    }
+
+}
@@ -0,0 +1,335 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.ElementsGetter;
+import hr.fer.zemris.java.custom.collections.LinkedListIndexedCollection;
+import hr.fer.zemris.java.custom.collections.ObjectStack;
+import hr.fer.zemris.java.custom.collections.Tester;
+import hr.fer.zemris.java.custom.scripting.generator.SmartScriptGenerator;
+import hr.fer.zemris.java.custom.scripting.lexer.SSLexer;
+import hr.fer.zemris.java.custom.scripting.lexer.SSTokenType;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+import hr.fer.zemris.java.tecaj.hw3.prob1.Lexer;
+import hr.fer.zemris.java.tecaj.hw3.prob1.LexerState;
+import hr.fer.zemris.java.tecaj.hw3.prob1.Token;
+import hr.fer.zemris.java.tecaj.hw3.prob1.TokenType;
+
+/*
+ * Every workload is run on inputs of doubling sizes and must not grow faster
+ * than linearly. Time is measured as the best of several runs, so a slow run
+ * caused by the garbage collector or the JIT compiler does not fail the test.
+ * Time is the CPU time of the test thread, so other processes competing for
+ * the processor do not count towards it. A single run on the smallest input
+ * takes well under a millisecond, so every measured run repeats the workload
+ * until it takes at least a few tens of milliseconds, which keeps the timer
+ * resolution and cache effects from dominating a measurement.
+ * Over three doublings a linear workload grows 8 times and a quadratic one 64
+ * times, which leaves plenty of room for the tolerances below.
+ */
+@SuppressWarnings("javadoc")
+public class ScalingTest {
+
+    /** Number of times the input size is doubled. */
+    private static final int DOUBLINGS = 3;
+    /** Number of warm-up runs before the measurement. */
+    private static final int WARMUP_RUNS = 3;
+    /** Number of measured runs for each size. */
+    private static final int RUNS = 5;
+    /** Shortest CPU time of a measured run, in nanoseconds. */
+    private static final long MIN_RUN_NANOS = 30_000_000;
+    /** Allowed growth of time over linear, in total over all doublings. */
+    private static final double TIME_TOLERANCE = 3;
+    /** Allowed growth of allocated bytes over linear, in total over all doublings. */
+    private static final double ALLOCATION_TOLERANCE = 1.5;
+
+    /** Keeps the results of the workloads from being optimized away. */
+    private static volatile long sink;
+
+    /** Accepts every odd element. */
+    private static final Tester ODD = new Tester() {
+        @Override
+        public boolean test(Object value) {
+            return (Integer) value % 2 != 0;
+        }
+    };
+
+    @Test
+    public void testLexerIsLinear() {
+        assertLinear("Lexer", new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return Inputs.lexerInput(size);
+            }
+
+            @Override
+            long run(String input) {
+                Lexer lexer = new Lexer(input);
+                long count = 0;
+                boolean extended = false;
+                for (Token token = lexer.nextToken(); token.getType() != TokenType.EOF; token = lexer.nextToken()) {
+                    if (token.getType() == TokenType.SYMBOL && token.getValue().equals('#')) {
+                        extended = !extended;
+                        lexer.setState(extended ? LexerState.EXTENDED : LexerState.BASIC);
+                    }
+                    count++;
+                }
+                return count;
+            }
+        }, 1 << 14);
+    }
+
+    @Test
+    public void testSSLexerIsLinear() {
+        assertLinear("SSLexer", new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return new SmartScriptGenerator(size).generate(size);
+            }
+
+            @Override
+            long run(String input) {
+                SSLexer lexer = new SSLexer(input);
+                long count = 0;
+                while (lexer.nextToken().getType() != SSTokenType.EOF) {
+                    count++;
+                }
+                return count;
+            }
+        }, 1 << 14);
+    }
+
+    @Test
+    public void testParserIsLinear() {
+        assertLinear("SmartScriptParser", new Workload<String>() {
+            @Override
+            String prepare(int size) {
+                return new SmartScriptGenerator(size).generate(size);
+            }
+
+            @Override
+            long run(String input) {
+                return new SmartScriptParser(input).getDocumentNode().numberOfChildren();
+            }
+        }, 1 << 14);
+    }
+
+    @Test
+    public void testArrayIndexedCollectionIsLinear() {
+        assertLinear("ArrayIndexedCollection", new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                ArrayIndexedCollection col = new ArrayIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                long sum = 0;
+                for (int i = 0; i < col.size(); i++) {
+                    sum += (Integer) col.get(i);
+                }
+                sum += col.indexOf(elements[elements.length - 1]);
+                while (col.size() > 0) {
+                    col.remove(col.size() - 1);
+                }
+                return sum;
+            }
+        }, 1 << 13);
+    }
+
+    @Test
+    public void testLinkedListIndexedCollectionIsLinear() {
+        assertLinear("LinkedListIndexedCollection", new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                LinkedListIndexedCollection col = new LinkedListIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                long sum = (Integer) col.get(0) + (Integer) col.get(col.size() - 1);
+                sum += col.indexOf(elements[elements.length - 1]);
+                while (col.size() > 0) {
+                    col.remove(0);
+                }
+                return sum;
+            }
+        }, 1 << 13);
+    }
+
+    @Test
+    public void testArrayIndexedCollectionRemoveIfIsLinear() {
+        assertLinear("ArrayIndexedCollection.removeIf", new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                ArrayIndexedCollection col = new ArrayIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                col.removeIf(ODD);
+                return col.size();
+            }
+        }, 1 << 13);
+    }
+
+    @Test
+    public void testLinkedListIndexedCollectionRemoveIfIsLinear() {
+        assertLinear("LinkedListIndexedCollection.removeIf", new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                LinkedListIndexedCollection col = new LinkedListIndexedCollection();
+                for (Object element : elements) {
+                    col.add(element);
+                }
+                col.removeIf(ODD);
+                return col.size();
+            }
+        }, 1 << 13);
+    }
+
+    @Test
+    public void testLinkedListElementsGetterIsLinear() {
+        assertLinear("LinkedListIndexedCollection.createElementsGetter", new Workload<LinkedListIndexedCollection>() {
+            @Override
+            LinkedListIndexedCollection prepare(int size) {
+                LinkedListIndexedCollection col = new LinkedListIndexedCollection();
+                for (Object element : Inputs.elements(size)) {
+                    col.add(element);
+                }
+                return col;
+            }
+
+            @Override
+            long run(LinkedListIndexedCollection col) {
+                long sum = 0;
+                ElementsGetter getter = col.createElementsGetter();
+                while (getter.hasNextElement()) {
+                    sum += (Integer) getter.getNextElement();
+                }
+                return sum;
+            }
+        }, 1 << 13);
+    }
+
+    @Test
+    public void testObjectStackIsLinear() {
+        assertLinear("ObjectStack", new Workload<Object[]>() {
+            @Override
+            Object[] prepare(int size) {
+                return Inputs.elements(size);
+            }
+
+            @Override
+            long run(Object[] elements) {
+                ObjectStack stack = new ObjectStack();
+                for (Object element : elements) {
+                    stack.push(element);
+                }
+                long sum = 0;
+                while (!stack.isEmpty()) {
+                    sum += (Integer) stack.pop();
+                }
+                return sum;
+            }
+        }, 1 << 13);
+    }
+
+    /**
+     * Runs the workload on inputs of sizes from <tt>baseSize</tt> up to
+     * <tt>baseSize</tt> doubled {@link #DOUBLINGS} times and fails if the best
+     * time or the allocated bytes grow faster than linearly.
+     */
+    private static <T> void assertLinear(String name, Workload<T> workload, int baseSize) {
+        List<T> inputs = new ArrayList<>();
+        for (int i = 0; i <= DOUBLINGS; i++) {
+            inputs.add(workload.prepare(baseSize << i));
+        }
+
+        // warm up on the largest input so that every size runs compiled code
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            sink += workload.run(inputs.get(DOUBLINGS));
+        }
+
+        long[] times = new long[DOUBLINGS + 1];
+        long[] bytes = new long[DOUBLINGS + 1];
+        int[] repetitions = new int[DOUBLINGS + 1];
+        for (int i = 0; i <= DOUBLINGS; i++) {
+            times[i] = Long.MAX_VALUE;
+            bytes[i] = Long.MAX_VALUE;
+            repetitions[i] = repetitions(workload, inputs.get(i));
+        }
+
+        // sizes take turns in every run, so a slower phase of the machine
+        // affects all of them instead of only the sizes measured during it
+        for (int r = 0; r < RUNS; r++) {
+            for (int i = 0; i <= DOUBLINGS; i++) {
+                T input = inputs.get(i);
+                long allocatedBefore = AllocationMeter.allocatedBytes();
+                long start = CpuClock.nanoTime();
+                for (int k = 0; k < repetitions[i]; k++) {
+                    sink += workload.run(input);
+                }
+                times[i] = Math.min(times[i], (CpuClock.nanoTime() - start) / repetitions[i]);
+                bytes[i] = Math.min(bytes[i], (AllocationMeter.allocatedBytes() - allocatedBefore) / repetitions[i]);
+            }
+        }
+
+        double linear = 1 << DOUBLINGS;
+        double timeGrowth = (double) times[DOUBLINGS] / Math.max(times[0], 1);
+        assertTrue(String.format("%s time grew %.1f times for %d times larger input, times: %s",
+                name, timeGrowth, 1 << DOUBLINGS, Arrays.toString(times)),
+                timeGrowth <= linear * TIME_TOLERANCE);
+
+        if (AllocationMeter.isSupported()) {
+            double allocationGrowth = (double) bytes[DOUBLINGS] / Math.max(bytes[0], 1);
+            assertTrue(String.format("%s allocation grew %.1f times for %d times larger input, bytes: %s",
+                    name, allocationGrowth, 1 << DOUBLINGS, Arrays.toString(bytes)),
+                    allocationGrowth <= linear * ALLOCATION_TOLERANCE);
+        }
+    }
+
+    /**
+     * Returns the number of times the workload must be repeated on the given
+     * <tt>input</tt> for the repetitions to take at least
+     * {@link #MIN_RUN_NANOS} nanoseconds of CPU time.
+     */
+    private static <T> int repetitions(Workload<T> workload, T input) {
+        int repetitions = 1;
+        while (true) {
+            long start = CpuClock.nanoTime();
+            for (int k = 0; k < repetitions; k++) {
+                sink += workload.run(input);
+            }
+            if (CpuClock.nanoTime() - start >= MIN_RUN_NANOS) {
+                return repetitions;
+            }
+            repetitions *= 2;
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package hr.fer.zemris.java.tecaj.hw3;
+
+/**
+ * A workload measured on inputs of different sizes. Inputs are prepared
+ * outside of the measurement so that only the work done on them is measured.
+ *
+ * @param <T> type of the input
+ * @author Mario Bobic
+ */
+abstract class Workload<T> {
+
+    /**
+     * Prepares an input of approximately the given <tt>size</tt>.
+     *
+     * @param size size of the input
+     * @return the prepared input
+     */
+    abstract T prepare(int size);
+
+    /**
+     * Runs the workload on the given <tt>input</tt> and returns the number of
+     * processed items, such as tokens or elements, which also keeps the work
+     * from being optimized away.
+     *
+     * @param input input of the workload
+     * @return the number of processed items
+     */
+    abstract long run(T input);
+
+}